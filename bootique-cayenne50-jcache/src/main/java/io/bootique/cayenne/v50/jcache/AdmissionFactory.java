@@ -0,0 +1,100 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import io.bootique.value.Bytes;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Admission thresholds keeping large query results from displacing the smaller entries of a cache group")
+public class AdmissionFactory {
+
+    private int maxRows;
+    private Bytes maxBytes;
+    private OversizedResultPolicy oversizedPolicy;
+    private Bytes oversizedCapacity;
+
+    @BQConfigProperty("The maximum number of rows in a result admitted to the group cache.")
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    @BQConfigProperty("""
+            The maximum estimated heap size of a result admitted to the group cache, e.g. '1mb'. The estimate is
+            based on a sample of the result rows.""")
+    public void setMaxBytes(Bytes maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @BQConfigProperty("""
+            What to do with the results exceeding the thresholds. 'REJECT' (default) doesn't cache them, 'SEPARATE'
+            stores them in a separate in-heap cache bounded by 'oversizedCapacity'.""")
+    public void setOversizedPolicy(OversizedResultPolicy oversizedPolicy) {
+        this.oversizedPolicy = oversizedPolicy;
+    }
+
+    @BQConfigProperty("""
+            The total estimated heap size of the oversized results cache, e.g. '64mb'. Required for the 'SEPARATE'
+            policy.""")
+    public void setOversizedCapacity(Bytes oversizedCapacity) {
+        this.oversizedCapacity = oversizedCapacity;
+    }
+
+    GroupAdmission createAdmission(String groupName, Duration ttl, Duration tti) {
+
+        if (maxRows <= 0 && maxBytes == null) {
+            throw new IllegalStateException(
+                    "Either 'maxRows' or 'maxBytes' must be set for the admission of the group '" + groupName + "'");
+        }
+
+        return new GroupAdmission(
+                maxRows,
+                maxBytes != null ? maxBytes.getBytes() : 0L,
+                createOversizedCache(groupName, ttl, tti));
+    }
+
+    protected TinyLfuCache<String, List> createOversizedCache(String groupName, Duration ttl, Duration tti) {
+
+        OversizedResultPolicy policy = oversizedPolicy != null ? oversizedPolicy : OversizedResultPolicy.REJECT;
+        if (policy == OversizedResultPolicy.REJECT) {
+            return null;
+        }
+
+        if (oversizedCapacity == null) {
+            throw new IllegalStateException(
+                    "'oversizedCapacity' must be set for the 'SEPARATE' policy of the group '" + groupName + "'");
+        }
+
+        Duration expiration = ttl != null ? ttl : tti;
+        long expirationMs = expiration != null ? expiration.toMillis() : 0L;
+        return TinyLfuCache.ofMaxWeight(
+                oversizedCapacity.getBytes(),
+                ResultWeigher::weigh,
+                ResultWeigher.AVERAGE_RESULT_BYTES,
+                expirationMs);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A QueryCache decorator that keeps the results exceeding the group row count or size thresholds out of the
+ * wrapped cache. Depending on the group policy, such results are either not cached at all, or are stored in a
+ * separate weight-bounded cache.
+ *
+ * @since 4.0
+ */
+public class AdmissionQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final Map<String, GroupAdmission> admissions;
+
+    public AdmissionQueryCache(QueryCache delegate, Map<String, GroupAdmission> admissions) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.admissions = Objects.requireNonNull(admissions);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+
+        List result = delegate.get(metadata);
+        if (result != null) {
+            return result;
+        }
+
+        GroupAdmission admission = admissions.get(cacheName(metadata));
+        TinyLfuCache<String, List> oversized = admission != null ? admission.getOversizedCache() : null;
+        return oversized != null ? oversized.get(metadata.getCacheKey()) : null;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        GroupAdmission admission = admissions.get(cacheName(metadata));
+        if (admission == null) {
+            return delegate.get(metadata, factory);
+        }
+
+        List result = get(metadata);
+        if (result != null) {
+            return result;
+        }
+
+        result = factory.createObject();
+        if (result != null) {
+            put(metadata, result, admission);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+
+        GroupAdmission admission = admissions.get(cacheName(metadata));
+        if (admission == null || results == null) {
+            delegate.put(metadata, results);
+        } else {
+            put(metadata, results, admission);
+        }
+    }
+
+    protected void put(QueryMetadata metadata, List results, GroupAdmission admission) {
+
+        String key = metadata.getCacheKey();
+        TinyLfuCache<String, List> oversized = admission.getOversizedCache();
+
+        if (admission.admits(results)) {
+            delegate.put(metadata, results);
+
+            // the result might have shrunk since it was last stored
+            if (oversized != null) {
+                oversized.remove(key);
+            }
+        } else if (oversized != null) {
+            oversized.put(key, results);
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+        clearOversized(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+        clearOversized(groupKey);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        admissions.keySet().forEach(this::clearOversized);
+    }
+
+    /**
+     * Returns an evictor of individual oversized cache entries, used by row-level invalidation.
+     */
+    CacheEntryEvictor oversizedEvictor() {
+        return new CacheEntryEvictor() {
+
+            @Override
+            public void evict(String group, Set<String> keys) {
+                GroupAdmission admission = admissions.get(group);
+                TinyLfuCache<String, List> oversized = admission != null ? admission.getOversizedCache() : null;
+                if (oversized != null) {
+                    keys.forEach(oversized::remove);
+                }
+            }
+
+            @Override
+            public void evictGroup(String group) {
+                clearOversized(group);
+            }
+        };
+    }
+
+    private void clearOversized(String group) {
+        GroupAdmission admission = admissions.get(group);
+        TinyLfuCache<String, List> oversized = admission != null ? admission.getOversizedCache() : null;
+        if (oversized != null) {
+            oversized.clear();
+        }
+    }
+
+    protected String cacheName(QueryMetadata metadata) {
+        String cacheGroup = metadata.getCacheGroup();
+        return cacheGroup != null ? cacheGroup : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+}
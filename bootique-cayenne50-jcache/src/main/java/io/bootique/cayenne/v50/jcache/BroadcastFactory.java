@@ -0,0 +1,74 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.shutdown.ShutdownManager;
+import io.bootique.value.Duration;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Publishing of query cache group invalidations to the other nodes of the cluster")
+public class BroadcastFactory {
+
+    private static final long DEFAULT_BATCH_WINDOW_MS = 50;
+
+    private String nodeId;
+    private Duration batchWindow;
+
+    @BQConfigProperty("""
+            A unique id of this node within the cluster, used to ignore the node's own messages. If not set, a random
+            id is generated on startup.""")
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @BQConfigProperty("""
+            The period during which the local invalidations are collected and deduplicated before being published as
+            a single message. The default is 50ms.""")
+    public void setBatchWindow(Duration batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    public InvalidationBroadcaster createBroadcaster(
+            Set<InvalidationTransport> transports,
+            ShutdownManager shutdownManager) {
+
+        String nodeId = this.nodeId != null ? this.nodeId : UUID.randomUUID().toString();
+        long batchWindowMs = batchWindow != null ? batchWindow.getDuration().toMillis() : DEFAULT_BATCH_WINDOW_MS;
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bootique-cayenne-cache-broadcast");
+            t.setDaemon(true);
+            return t;
+        });
+
+        InvalidationBroadcaster broadcaster = new InvalidationBroadcaster(nodeId, transports, executor, batchWindowMs);
+        shutdownManager.onShutdown(broadcaster, InvalidationBroadcaster::shutdown);
+        return broadcaster;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A QueryCache decorator that publishes cache group invalidations to the other nodes of the cluster. The
+ * invalidations received from the other nodes are applied to the wrapped cache, bypassing the publishing. Full
+ * cache clearing is a local operation and is not published.
+ *
+ * @since 4.0
+ */
+public class BroadcastingQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final InvalidationBroadcaster broadcaster;
+
+    public BroadcastingQueryCache(QueryCache delegate, InvalidationBroadcaster broadcaster) {
+        this(delegate, broadcaster, null);
+    }
+
+    BroadcastingQueryCache(QueryCache delegate, InvalidationBroadcaster broadcaster, CacheEntryEvictor localEvictor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.broadcaster = Objects.requireNonNull(broadcaster);
+        broadcaster.start(delegate, localEvictor);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+        return delegate.get(metadata, factory);
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+        broadcaster.enqueue(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+        broadcaster.enqueue(groupKey);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ExpiryPolicy;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JCache expiry policy combining time-to-live and time-to-idle settings of a cache group.
+ *
+ * @since 4.0
+ */
+class CacheGroupExpiryPolicy implements ExpiryPolicy, Serializable {
+
+    private final Duration ttl;
+    private final Duration tti;
+
+    CacheGroupExpiryPolicy(java.time.Duration ttl, java.time.Duration tti) {
+        this.ttl = toJCacheDuration(ttl);
+        this.tti = toJCacheDuration(tti);
+    }
+
+    private static Duration toJCacheDuration(java.time.Duration duration) {
+        return duration != null ? new Duration(TimeUnit.MILLISECONDS, duration.toMillis()) : null;
+    }
+
+    @Override
+    public Duration getExpiryForCreation() {
+        if (ttl != null) {
+            return ttl;
+        }
+
+        return tti != null ? tti : Duration.ETERNAL;
+    }
+
+    @Override
+    public Duration getExpiryForAccess() {
+        // null means "unchanged"
+        return tti;
+    }
+
+    @Override
+    public Duration getExpiryForUpdate() {
+        return ttl != null ? ttl : tti;
+    }
+}
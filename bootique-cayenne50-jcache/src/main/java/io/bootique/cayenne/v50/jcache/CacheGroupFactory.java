@@ -0,0 +1,204 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import io.bootique.value.Bytes;
+import io.bootique.value.Duration;
+
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import java.util.List;
+
+/**
+ * Configuration of a JCache cache backing a single Cayenne cache group.
+ *
+ * @since 4.0
+ */
+@BQConfig("JCache settings of a single Cayenne cache group")
+public class CacheGroupFactory {
+
+    private Long heap;
+    private Bytes offHeap;
+    private Duration ttl;
+    private Duration tti;
+    private boolean statistics;
+    private NearCacheFactory nearCache;
+    private Duration maxStaleness;
+    private RowInvalidationFactory rowInvalidation;
+    private AdmissionFactory admission;
+    private boolean compactSerialization;
+
+    @BQConfigProperty("""
+            The maximum number of entries in the heap tier. Size limits require Ehcache as the JCache provider, and
+            are ignored with a warning for other providers.""")
+    public void setHeap(Long heap) {
+        this.heap = heap;
+    }
+
+    @BQConfigProperty("""
+            The size of the off-heap tier, e.g. '64mb'. Size limits require Ehcache as the JCache provider, and are
+            ignored with a warning for other providers.""")
+    public void setOffHeap(Bytes offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    @BQConfigProperty("Time to live of the cached query results since they were stored, e.g. '5min'.")
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    @BQConfigProperty("""
+            Time to idle, i.e. how long the cached query results are kept since they were last accessed, e.g. '1min'.
+            If both 'ttl' and 'tti' are set, the entry lifespan starts with 'ttl' and is extended by 'tti' on each
+            access.""")
+    public void setTti(Duration tti) {
+        this.tti = tti;
+    }
+
+    @BQConfigProperty("Whether to collect JCache statistics for the group cache. The default is 'false'.")
+    public void setStatistics(boolean statistics) {
+        this.statistics = statistics;
+    }
+
+    @BQConfigProperty("""
+            An optional in-heap near cache for the group, placed in front of the JCache tier. Useful for the hottest
+            groups when the JCache provider stores the entries off-heap or serialized.""")
+    public void setNearCache(NearCacheFactory nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    @BQConfigProperty("""
+            Enables 'stale-while-revalidate' mode for the group. The results older than 'ttl' are still served for up
+            to 'maxStaleness', while the query is rerun in the background to refresh them. Requires 'ttl' to be
+            set.""")
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    @BQConfigProperty("""
+            Enables row-level invalidation for the group. Instead of evicting the whole group on a change, only the
+            entries containing the changed rows are evicted. Requires
+            'CayenneJCacheModule.extend(b).enableRowInvalidation()'. The group should not be mapped to entities via
+            InvalidationHandlers or '@CacheGroups', as those invalidate whole groups.""")
+    public void setRowInvalidation(RowInvalidationFactory rowInvalidation) {
+        this.rowInvalidation = rowInvalidation;
+    }
+
+    @BQConfigProperty("""
+            Optional row count and size thresholds for the results stored in the group. The results exceeding them
+            are either not cached, or are stored separately, so that they don't push the smaller entries out.""")
+    public void setAdmission(AdmissionFactory admission) {
+        this.admission = admission;
+    }
+
+    @BQConfigProperty("""
+            Whether to store the group results in the off-heap or disk tiers using the compact schema-aware
+            serializer instead of Java serialization. The default is 'false'. Requires Ehcache as the JCache
+            provider.""")
+    public void setCompactSerialization(boolean compactSerialization) {
+        this.compactSerialization = compactSerialization;
+    }
+
+    public boolean isStatistics() {
+        return statistics;
+    }
+
+    boolean isStaleWhileRevalidate() {
+        return maxStaleness != null && ttl != null;
+    }
+
+    /**
+     * Returns how long the cache keeps the entries after creation. In "stale-while-revalidate" mode, this is longer
+     * than the TTL, as the entries are retained during the staleness period.
+     */
+    java.time.Duration getRetention() {
+        java.time.Duration retention = getTtl();
+        return retention != null && maxStaleness != null ? retention.plus(maxStaleness.getDuration()) : retention;
+    }
+
+    boolean hasRowInvalidation() {
+        return rowInvalidation != null;
+    }
+
+    GroupRowIndex createRowIndex(String groupName) {
+        return rowInvalidation.createIndex(groupName);
+    }
+
+    boolean hasAdmission() {
+        return admission != null;
+    }
+
+    GroupAdmission createAdmission(String groupName) {
+        return admission.createAdmission(groupName, getTtl(), getTti());
+    }
+
+    boolean hasNearCache() {
+        return nearCache != null;
+    }
+
+    TinyLfuCache<String, List> createNearCache(String groupName) {
+        return nearCache.createNearCache(groupName, getTtl(), getTti());
+    }
+
+    boolean isCompactSerialization() {
+        return compactSerialization;
+    }
+
+    /**
+     * Returns whether the group requires provider-specific (i.e. Ehcache) configuration.
+     */
+    boolean hasProviderSettings() {
+        return hasSizeLimits() || compactSerialization;
+    }
+
+    boolean hasSizeLimits() {
+        return heap != null || offHeap != null;
+    }
+
+    Long getHeap() {
+        return heap;
+    }
+
+    Bytes getOffHeap() {
+        return offHeap;
+    }
+
+    java.time.Duration getTtl() {
+        return ttl != null ? ttl.getDuration() : null;
+    }
+
+    java.time.Duration getTti() {
+        return tti != null ? tti.getDuration() : null;
+    }
+
+    /**
+     * Creates a provider-neutral JCache configuration with the group expiration and statistics settings.
+     */
+    public Configuration<String, List> createConfiguration() {
+        return new MutableConfiguration<String, List>()
+                .setTypes(String.class, List.class)
+                .setExpiryPolicyFactory(FactoryBuilder.factoryOf(new CacheGroupExpiryPolicy(getRetention(), getTti())))
+                .setStatisticsEnabled(statistics);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Live counters of a single Cayenne query cache group. Based on {@link LongAdder}s, so the recording from many
+ * threads at once doesn't contend on a single memory location.
+ *
+ * @since 4.0
+ */
+public class CacheGroupMetrics {
+
+    private final String group;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder puts;
+    private final LongAdder evictions;
+    private final LongAdder invalidations;
+    private final LongAdder loads;
+    private final LongAdder loadTimeNanos;
+
+    // evictions counted by the cache tiers themselves, such as the near caches
+    private volatile LongSupplier tierEvictions;
+
+    public CacheGroupMetrics(String group) {
+        this.group = group;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.puts = new LongAdder();
+        this.evictions = new LongAdder();
+        this.invalidations = new LongAdder();
+        this.loads = new LongAdder();
+        this.loadTimeNanos = new LongAdder();
+        this.tierEvictions = () -> 0L;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void onHit() {
+        hits.increment();
+    }
+
+    public void onMiss() {
+        misses.increment();
+    }
+
+    public void onPut() {
+        puts.increment();
+    }
+
+    public void onEviction() {
+        evictions.increment();
+    }
+
+    public void onInvalidation() {
+        invalidations.increment();
+    }
+
+    public void onLoad(long nanos) {
+        loads.increment();
+        loadTimeNanos.add(nanos);
+    }
+
+    void setTierEvictions(LongSupplier tierEvictions) {
+        this.tierEvictions = tierEvictions;
+    }
+
+    public CacheGroupStats snapshot() {
+        return new CacheGroupStats(
+                group,
+                hits.sum(),
+                misses.sum(),
+                puts.sum(),
+                evictions.sum() + tierEvictions.getAsLong(),
+                invalidations.sum(),
+                loads.sum(),
+                loadTimeNanos.sum());
+    }
+}
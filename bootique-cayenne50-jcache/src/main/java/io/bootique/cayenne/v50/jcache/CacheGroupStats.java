@@ -0,0 +1,110 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+/**
+ * A point-in-time snapshot of a single cache group counters.
+ *
+ * @since 4.0
+ */
+public class CacheGroupStats {
+
+    private final String group;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long evictions;
+    private final long invalidations;
+    private final long loads;
+    private final long loadTimeNanos;
+
+    public CacheGroupStats(
+            String group,
+            long hits,
+            long misses,
+            long puts,
+            long evictions,
+            long invalidations,
+            long loads,
+            long loadTimeNanos) {
+
+        this.group = group;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.loads = loads;
+        this.loadTimeNanos = loadTimeNanos;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of hits among all the cache reads, or 0 if there were no reads.
+     */
+    public double getHitRatio() {
+        long reads = hits + misses;
+        return reads > 0 ? (double) hits / reads : 0.;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    /**
+     * Returns the number of entries removed due to expiration or size limits.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of times the whole group was invalidated.
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the number of queries run to load the missing entries.
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getLoadTimeNanos() {
+        return loadTimeNanos;
+    }
+
+    public long getAverageLoadTimeNanos() {
+        return loads > 0 ? loadTimeNanos / loads : 0L;
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import io.bootique.shutdown.ShutdownManager;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.map.EntityResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.Configuration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures JCache caches backing Cayenne query cache groups")
+public class CayenneJCacheFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CayenneJCacheFactory.class);
+
+    private Map<String, CacheGroupFactory> groups;
+    private SingleFlightFactory singleFlight;
+    private RevalidationFactory revalidation;
+    private BroadcastFactory broadcast;
+    private SnapshotFactory snapshot;
+    private SerializationFactory serialization;
+
+    @BQConfigProperty("""
+            Per-group cache settings. The keys are Cayenne cache group names. The groups not configured here are
+            created with the JCache provider defaults.""")
+    public void setGroups(Map<String, CacheGroupFactory> groups) {
+        this.groups = groups;
+    }
+
+    @BQConfigProperty("""
+            If set, concurrent query cache misses for the same key are collapsed into a single query, with the other
+            callers waiting for its result.""")
+    public void setSingleFlight(SingleFlightFactory singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    @BQConfigProperty("Settings of the background refresh of the 'stale-while-revalidate' cache groups.")
+    public void setRevalidation(RevalidationFactory revalidation) {
+        this.revalidation = revalidation;
+    }
+
+    @BQConfigProperty("""
+            Settings of publishing the cache group invalidations to the other nodes of the cluster. Only used if
+            InvalidationTransports are registered via 'CayenneJCacheModule.extend(b).addInvalidationTransport(..)'.""")
+    public void setBroadcast(BroadcastFactory broadcast) {
+        this.broadcast = broadcast;
+    }
+
+    @BQConfigProperty("""
+            Enables saving the contents of the selected cache groups to a local file on shutdown, and reloading them
+            on startup.""")
+    public void setSnapshot(SnapshotFactory snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @BQConfigProperty("Settings of the compact serializer used by the groups with 'compactSerialization' enabled.")
+    public void setSerialization(SerializationFactory serialization) {
+        this.serialization = serialization;
+    }
+
+    /**
+     * Creates the caches for all the configured cache groups in the provided CacheManager, so that Cayenne query
+     * cache could find them on the first access. The caches that already exist (e.g. those defined in the JCache
+     * provider configuration) are left unchanged.
+     *
+     * @param entityResolver a lazy supplier of Cayenne model, used by the compact serializer of the cached results
+     */
+    public void createCacheGroups(CacheManager cacheManager, Supplier<EntityResolver> entityResolver) {
+        if (groups == null || groups.isEmpty()) {
+            return;
+        }
+
+        boolean ehcache = cacheManager.getCachingProvider().getClass().getName().startsWith("org.ehcache.");
+        Supplier<ResultSerializer> serializer = new Supplier<>() {
+
+            // shared by all the groups, and only created if needed
+            private ResultSerializer instance;
+
+            @Override
+            public ResultSerializer get() {
+                if (instance == null) {
+                    instance = createSerializer(entityResolver);
+                }
+                return instance;
+            }
+        };
+
+        groups.forEach((name, group) -> createCacheGroup(cacheManager, name, group, ehcache, serializer));
+    }
+
+    public ResultSerializer createSerializer(Supplier<EntityResolver> entityResolver) {
+        SerializationFactory serialization = this.serialization != null
+                ? this.serialization
+                : new SerializationFactory();
+        return serialization.createSerializer(entityResolver);
+    }
+
+    /**
+     * Returns whether the configuration requires any decoration of the JCache-backed QueryCache.
+     */
+    public boolean decoratesQueryCache() {
+        return singleFlight != null
+                || snapshot != null
+                || hasGroups(CacheGroupFactory::hasNearCache)
+                || hasGroups(CacheGroupFactory::isStaleWhileRevalidate)
+                || hasGroups(CacheGroupFactory::hasRowInvalidation)
+                || hasGroups(CacheGroupFactory::hasAdmission);
+    }
+
+    /**
+     * Returns whether any of the cache groups is in "stale-while-revalidate" mode, and hence requires
+     * {@link RevalidationQueryFilter} to be installed.
+     */
+    public boolean hasStaleWhileRevalidateGroups() {
+        return hasGroups(CacheGroupFactory::isStaleWhileRevalidate);
+    }
+
+    /**
+     * Creates row-level invalidation indexes for the groups that have it configured.
+     */
+    public RowInvalidation createRowInvalidation(CacheManager cacheManager, Supplier<EntityResolver> entityResolver) {
+
+        Map<String, GroupRowIndex> indexes = new HashMap<>();
+        if (groups != null) {
+            groups.forEach((name, group) -> {
+                if (group.hasRowInvalidation()) {
+                    indexes.put(name, group.createRowIndex(name));
+                }
+            });
+        }
+
+        return new RowInvalidation(indexes, cacheManager, entityResolver);
+    }
+
+    /**
+     * Creates a snapshot of the configured groups, that is disabled if there are no such groups. The groups with
+     * row-level invalidation are excluded, as their restored entries would be missing from the row indexes.
+     */
+    public QueryCacheSnapshot createSnapshot(CacheManager cacheManager) {
+
+        if (snapshot == null) {
+            return new QueryCacheSnapshot(null, Map.of(), cacheManager, false);
+        }
+
+        return snapshot.createSnapshot(cacheManager, this::getRetention, g -> {
+            CacheGroupFactory group = groups != null ? groups.get(g) : null;
+            if (group != null && group.hasRowInvalidation()) {
+                LOGGER.warn("Cache group '{}' has row-level invalidation and can't be included in the snapshot", g);
+                return false;
+            }
+
+            return true;
+        });
+    }
+
+    private java.time.Duration getRetention(String groupName) {
+        CacheGroupFactory group = groups != null ? groups.get(groupName) : null;
+        return group != null ? group.getRetention() : null;
+    }
+
+    /**
+     * Wraps the JCache-backed QueryCache with the configured layers. The snapshot invalidation tracking, if the
+     * snapshot is enabled, is applied right above the JCache tier, followed by the admission thresholds, row
+     * indexing, single-flight loading, the "stale-while-revalidate" layer and the near caches. The metrics, if not
+     * null, are collected above all the tiers. Publishing of the invalidations to the cluster, if any transports are
+     * present, is the outermost layer, so that the remote invalidations reach every tier.
+     */
+    public QueryCache createQueryCache(
+            QueryCache jCacheQueryCache,
+            Supplier<ObjectContext> contextFactory,
+            ShutdownManager shutdownManager,
+            RowInvalidation rowInvalidation,
+            QueryCacheSnapshot snapshot,
+            Set<InvalidationTransport> transports,
+            QueryCacheMetrics metrics) {
+
+        QueryCache cache = jCacheQueryCache;
+
+        if (snapshot.isEnabled()) {
+            cache = new SnapshotTrackingQueryCache(cache, snapshot);
+        }
+
+        Map<String, GroupAdmission> admissions = createAdmissions();
+        if (!admissions.isEmpty()) {
+            AdmissionQueryCache admissionCache = new AdmissionQueryCache(cache, admissions);
+            rowInvalidation.addEvictor(admissionCache.oversizedEvictor());
+            cache = admissionCache;
+        }
+
+        if (rowInvalidation.hasGroups()) {
+            cache = new RowIndexingQueryCache(cache, rowInvalidation);
+        }
+
+        if (singleFlight != null) {
+            cache = singleFlight.createQueryCache(cache);
+        }
+
+        Map<String, Long> freshnessByGroup = createFreshnessByGroup();
+        if (!freshnessByGroup.isEmpty()) {
+            RevalidationFactory revalidation = this.revalidation != null
+                    ? this.revalidation
+                    : new RevalidationFactory();
+            ExecutorService refreshExecutor = revalidation.createExecutor();
+            shutdownManager.onShutdown(refreshExecutor, ExecutorService::shutdownNow);
+            cache = new StaleWhileRevalidateQueryCache(cache, freshnessByGroup, refreshExecutor, contextFactory);
+        }
+
+        Map<String, TinyLfuCache<String, List>> nearCaches = createNearCaches();
+        if (!nearCaches.isEmpty()) {
+            NearQueryCache nearCache = new NearQueryCache(cache, nearCaches);
+            rowInvalidation.addEvictor(nearCache.nearTierEvictor());
+            cache = nearCache;
+        }
+
+        if (metrics != null) {
+            nearCaches.forEach((n, c) -> metrics.group(n).setTierEvictions(c::evictionCount));
+            cache = new MeteredQueryCache(cache, metrics);
+        }
+
+        if (!transports.isEmpty()) {
+            BroadcastFactory broadcast = this.broadcast != null ? this.broadcast : new BroadcastFactory();
+            InvalidationBroadcaster broadcaster = broadcast.createBroadcaster(transports, shutdownManager);
+            cache = new BroadcastingQueryCache(cache, broadcaster, rowInvalidation.localEvictor());
+
+            // the commit-driven row evictions happen outside the QueryCache, so are published separately
+            rowInvalidation.setBroadcaster(broadcaster);
+        }
+
+        return cache;
+    }
+
+    /**
+     * Returns the names of the explicitly configured cache groups.
+     */
+    public Set<String> getGroupNames() {
+        return groups != null ? groups.keySet() : Set.of();
+    }
+
+    private boolean hasGroups(Predicate<CacheGroupFactory> predicate) {
+        return groups != null && groups.values().stream().anyMatch(predicate);
+    }
+
+    protected Map<String, Long> createFreshnessByGroup() {
+        if (groups == null || groups.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Long> freshness = new HashMap<>();
+        groups.forEach((name, group) -> {
+            if (group.isStaleWhileRevalidate()) {
+                freshness.put(name, group.getTtl().toMillis());
+            }
+        });
+
+        return freshness;
+    }
+
+    protected Map<String, GroupAdmission> createAdmissions() {
+        if (groups == null || groups.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, GroupAdmission> admissions = new HashMap<>();
+        groups.forEach((name, group) -> {
+            if (group.hasAdmission()) {
+                admissions.put(name, group.createAdmission(name));
+            }
+        });
+
+        return admissions;
+    }
+
+    protected Map<String, TinyLfuCache<String, List>> createNearCaches() {
+        if (groups == null || groups.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, TinyLfuCache<String, List>> nearCaches = new HashMap<>();
+        groups.forEach((name, group) -> {
+            if (group.hasNearCache()) {
+                nearCaches.put(name, group.createNearCache(name));
+            }
+        });
+
+        return nearCaches;
+    }
+
+    protected void createCacheGroup(
+            CacheManager cacheManager,
+            String name,
+            CacheGroupFactory group,
+            boolean ehcache,
+            Supplier<ResultSerializer> serializer) {
+
+        if (cacheManager.getCache(name) != null) {
+            LOGGER.warn("Cache '{}' already exists, ignoring its 'groups' configuration", name);
+            return;
+        }
+
+        Configuration<String, List> config;
+        if (!group.hasProviderSettings()) {
+            config = group.createConfiguration();
+        } else if (ehcache) {
+            config = EhcacheConfigurations.create(group, serializer);
+        } else {
+            LOGGER.warn("Cache group '{}' size limits and serialization require Ehcache as the JCache provider. "
+                    + "Ignoring them", name);
+            config = group.createConfiguration();
+        }
+
+        Cache<String, List> cache = cacheManager.createCache(name, config);
+
+        // Ehcache configurations can't carry the statistics flag, so setting it on the cache directly
+        if (group.isStatistics()) {
+            cacheManager.enableStatistics(cache.getName(), true);
+        }
+    }
+}
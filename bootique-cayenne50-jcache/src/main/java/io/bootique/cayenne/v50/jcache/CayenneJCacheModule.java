@@ -22,17 +22,29 @@ package io.bootique.cayenne.v50.jcache;
 import io.bootique.BQModule;
 import io.bootique.ModuleCrate;
 import io.bootique.cayenne.v50.CayenneModule;
+import io.bootique.config.ConfigurationFactory;
 import io.bootique.di.Binder;
 import io.bootique.di.Key;
 import io.bootique.di.Provides;
+import io.bootique.shutdown.ShutdownManager;
+import org.apache.cayenne.cache.QueryCache;
 import org.apache.cayenne.cache.invalidation.CacheInvalidationModule;
 import org.apache.cayenne.cache.invalidation.CacheInvalidationModuleExtender;
 import org.apache.cayenne.cache.invalidation.InvalidationHandler;
+import org.apache.cayenne.configuration.ObjectContextFactory;
+import org.apache.cayenne.configuration.runtime.CoreModule;
+import org.apache.cayenne.di.DIRuntimeException;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Injector;
+import org.apache.cayenne.di.Provider;
+import org.apache.cayenne.jcache.JCacheQueryCache;
+import org.apache.cayenne.runtime.CayenneRuntime;
 
 import javax.cache.CacheManager;
 import jakarta.inject.Qualifier;
 import jakarta.inject.Singleton;
 import java.lang.annotation.ElementType;
+import java.lang.management.ManagementFactory;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
@@ -43,6 +55,9 @@ import java.util.Set;
  */
 public class CayenneJCacheModule implements BQModule {
 
+    // can't use "cayenne.jcache", as "cayenne" root is owned by CayenneRuntimeFactory
+    private static final String CONFIG_PREFIX = "cayennejcache";
+
     /**
      * @param binder DI binder passed to the Module that invokes this method.
      * @return an instance of {@link CayenneJCacheModuleExtender} that can be used to load Cayenne cache
@@ -56,6 +71,7 @@ public class CayenneJCacheModule implements BQModule {
     public ModuleCrate crate() {
         return ModuleCrate.of(this)
                 .description("Integrates Apache Cayenne 4.2 JCache extensions")
+                .config(CONFIG_PREFIX, CayenneJCacheFactory.class)
                 .build();
     }
 
@@ -63,20 +79,109 @@ public class CayenneJCacheModule implements BQModule {
     public void configure(Binder binder) {
         extend(binder).initAllExtensions();
 
-        CayenneModule.extend(binder).addModule(Key.get(org.apache.cayenne.di.Module.class, DefinedInCayenneJCache.class));
+        CayenneModule.extend(binder)
+                .addModule(Key.get(org.apache.cayenne.di.Module.class, DefinedInCayenneJCache.class))
+                .addStartupListener(QueryCacheSnapshot.class);
+    }
+
+    @Singleton
+    @Provides
+    CayenneJCacheFactory provideCayenneJCacheFactory(ConfigurationFactory configFactory) {
+        return configFactory.config(CayenneJCacheFactory.class, CONFIG_PREFIX);
+    }
+
+    @Singleton
+    @Provides
+    QueryCacheMetrics provideQueryCacheMetrics() {
+        return new QueryCacheMetrics();
+    }
+
+    @Singleton
+    @Provides
+    QueryCacheSnapshot provideQueryCacheSnapshot(
+            CayenneJCacheFactory jCacheFactory,
+            CacheManager cacheManager,
+            ShutdownManager shutdownManager) {
+
+        QueryCacheSnapshot snapshot = jCacheFactory.createSnapshot(cacheManager);
+        if (snapshot.isEnabled()) {
+            shutdownManager.onShutdown(snapshot, QueryCacheSnapshot::save);
+        }
+
+        return snapshot;
+    }
+
+    @Singleton
+    @Provides
+    RowInvalidation provideRowInvalidation(
+            CayenneJCacheFactory jCacheFactory,
+            CacheManager cacheManager,
+            io.bootique.di.Injector injector) {
+
+        return jCacheFactory.createRowInvalidation(
+                cacheManager,
+                () -> injector.getInstance(CayenneRuntime.class).getDataDomain().getEntityResolver());
+    }
+
+    @Singleton
+    @Provides
+    RowInvalidationListener provideRowInvalidationListener(RowInvalidation rowInvalidation) {
+        return new RowInvalidationListener(rowInvalidation);
     }
 
     @Singleton
     @Provides
     @DefinedInCayenneJCache
-    org.apache.cayenne.di.Module provideDiJCacheModule(CacheManager cacheManager, Set<InvalidationHandler> invalidationHandlers) {
+    org.apache.cayenne.di.Module provideDiJCacheModule(
+            CacheManager cacheManager,
+            CayenneJCacheFactory jCacheFactory,
+            ShutdownManager shutdownManager,
+            RowInvalidation rowInvalidation,
+            Set<InvalidationHandler> invalidationHandlers,
+            Set<InvalidationTransport> invalidationTransports,
+            io.bootique.di.Injector injector) {
+
+        jCacheFactory.createCacheGroups(
+                cacheManager,
+                () -> injector.getInstance(CayenneRuntime.class).getDataDomain().getEntityResolver());
+        rowInvalidation.trackRemovals();
+
+        QueryCacheMetrics metrics = injector.hasProvider(Key.get(Boolean.class, CayenneJCacheModuleExtender.METRICS))
+                ? injector.getInstance(QueryCacheMetrics.class)
+                : null;
+
+        if (metrics != null) {
+            startMetrics(jCacheFactory, cacheManager, shutdownManager, metrics);
+        }
+
         // return module composition
         return b -> {
             createInvalidationModule(invalidationHandlers).configure(b);
             createOverridesModule(cacheManager).configure(b);
+
+            if (jCacheFactory.decoratesQueryCache() || !invalidationTransports.isEmpty() || metrics != null) {
+                createQueryCacheModule(
+                        jCacheFactory,
+                        shutdownManager,
+                        rowInvalidation,
+                        injector.getInstance(QueryCacheSnapshot.class),
+                        invalidationTransports,
+                        metrics).configure(b);
+            }
         };
     }
 
+    protected void startMetrics(
+            CayenneJCacheFactory jCacheFactory,
+            CacheManager cacheManager,
+            ShutdownManager shutdownManager,
+            QueryCacheMetrics metrics) {
+
+        metrics.trackExpirations(cacheManager, jCacheFactory.getGroupNames());
+        metrics.exportToJmx(ManagementFactory.getPlatformMBeanServer());
+        shutdownManager.onShutdown(metrics, QueryCacheMetrics::unexportFromJmx);
+    }
+
     protected org.apache.cayenne.di.Module createInvalidationModule(Set<InvalidationHandler> invalidationHandlers) {
         return b -> {
             CacheInvalidationModuleExtender extender = CacheInvalidationModule.extend(b);
@@ -88,6 +193,79 @@ public class CayenneJCacheModule implements BQModule {
         return b -> b.bind(CacheManager.class).toInstance(cacheManager);
     }
 
+    /**
+     * @since 4.0
+     */
+    protected org.apache.cayenne.di.Module createQueryCacheModule(
+            CayenneJCacheFactory jCacheFactory,
+            ShutdownManager shutdownManager,
+            RowInvalidation rowInvalidation,
+            QueryCacheSnapshot snapshot,
+            Set<InvalidationTransport> invalidationTransports,
+            QueryCacheMetrics metrics) {
+
+        return b -> {
+            b.bind(QueryCache.class).toProviderInstance(new QueryCacheProvider(
+                    jCacheFactory,
+                    shutdownManager,
+                    rowInvalidation,
+                    snapshot,
+                    invalidationTransports,
+                    metrics));
+
+            if (jCacheFactory.hasStaleWhileRevalidateGroups()) {
+                CoreModule.extend(b).addQueryFilter(new RevalidationQueryFilter());
+            }
+        };
+    }
+
+    static class QueryCacheProvider implements Provider<QueryCache> {
+
+        private final CayenneJCacheFactory jCacheFactory;
+        private final ShutdownManager shutdownManager;
+        private final RowInvalidation rowInvalidation;
+        private final QueryCacheSnapshot snapshot;
+        private final Set<InvalidationTransport> invalidationTransports;
+        private final QueryCacheMetrics metrics;
+
+        @Inject
+        Injector injector;
+
+        // lazy, as the context factory depends on the DataDomain that depends on the QueryCache
+        @Inject
+        Provider<ObjectContextFactory> contextFactoryProvider;
+
+        QueryCacheProvider(
+                CayenneJCacheFactory jCacheFactory,
+                ShutdownManager shutdownManager,
+                RowInvalidation rowInvalidation,
+                QueryCacheSnapshot snapshot,
+                Set<InvalidationTransport> invalidationTransports,
+                QueryCacheMetrics metrics) {
+
+            this.jCacheFactory = jCacheFactory;
+            this.shutdownManager = shutdownManager;
+            this.rowInvalidation = rowInvalidation;
+            this.snapshot = snapshot;
+            this.invalidationTransports = invalidationTransports;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public QueryCache get() throws DIRuntimeException {
+            JCacheQueryCache jCache = new JCacheQueryCache();
+            injector.injectMembers(jCache);
+            return jCacheFactory.createQueryCache(
+                    jCache,
+                    () -> contextFactoryProvider.get().createContext(),
+                    shutdownManager,
+                    rowInvalidation,
+                    snapshot,
+                    invalidationTransports,
+                    metrics);
+        }
+    }
+
     @Target({ElementType.PARAMETER, ElementType.FIELD, ElementType.METHOD})
     @Retention(RetentionPolicy.RUNTIME)
     @Qualifier
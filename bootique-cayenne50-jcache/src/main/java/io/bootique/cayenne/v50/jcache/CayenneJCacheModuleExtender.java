@@ -20,7 +20,9 @@
 package io.bootique.cayenne.v50.jcache;
 
 import io.bootique.ModuleExtender;
+import io.bootique.cayenne.v50.CayenneModule;
 import io.bootique.di.Binder;
+import io.bootique.di.Key;
 import io.bootique.di.SetBuilder;
 import io.bootique.jcache.JCacheModule;
 import org.apache.cayenne.cache.invalidation.InvalidationHandler;
@@ -30,6 +32,8 @@ import javax.cache.configuration.Configuration;
 
 public class CayenneJCacheModuleExtender extends ModuleExtender<CayenneJCacheModuleExtender> {
 
+    static final String METRICS = CayenneJCacheModuleExtender.class.getPackageName() + ".metrics";
+
     public CayenneJCacheModuleExtender(Binder binder) {
         super(binder);
     }
@@ -37,6 +41,7 @@ public class CayenneJCacheModuleExtender extends ModuleExtender<CayenneJCacheMod
     @Override
     public CayenneJCacheModuleExtender initAllExtensions() {
         contributeInvalidationHandler();
+        contributeInvalidationTransport();
         return this;
     }
 
@@ -50,6 +55,46 @@ public class CayenneJCacheModuleExtender extends ModuleExtender<CayenneJCacheMod
         return this;
     }
 
+    /**
+     * Registers a transport to publish the cache group invalidations to the other nodes of the cluster and to
+     * receive theirs.
+     *
+     * @since 4.0
+     */
+    public CayenneJCacheModuleExtender addInvalidationTransport(InvalidationTransport transport) {
+        contributeInvalidationTransport().addInstance(transport);
+        return this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public CayenneJCacheModuleExtender addInvalidationTransport(Class<? extends InvalidationTransport> transportType) {
+        contributeInvalidationTransport().add(transportType);
+        return this;
+    }
+
+    /**
+     * Enables collection of per-group query cache statistics, available via {@link QueryCacheMetrics} and JMX.
+     *
+     * @since 4.0
+     */
+    public CayenneJCacheModuleExtender enableMetrics() {
+        binder.bind(Key.get(Boolean.class, METRICS)).toInstance(Boolean.TRUE);
+        return this;
+    }
+
+    /**
+     * Registers a post-commit listener that performs row-level invalidation of the cache groups configured with
+     * "rowInvalidation".
+     *
+     * @since 4.0
+     */
+    public CayenneJCacheModuleExtender enableRowInvalidation() {
+        CayenneModule.extend(binder).addCommitLogListener(RowInvalidationListener.class, false);
+        return this;
+    }
+
     // TODO: we actually know key and value types for Cayenne QueryCache config
     public CayenneJCacheModuleExtender setDefaultCacheConfiguration(Configuration<?, ?> config) {
         JCacheModule.extend(binder).setConfiguration(JCacheConstants.DEFAULT_CACHE_NAME, config);
@@ -59,4 +104,8 @@ public class CayenneJCacheModuleExtender extends ModuleExtender<CayenneJCacheMod
     protected SetBuilder<InvalidationHandler> contributeInvalidationHandler() {
         return newSet(InvalidationHandler.class);
     }
+
+    protected SetBuilder<InvalidationTransport> contributeInvalidationTransport() {
+        return newSet(InvalidationTransport.class);
+    }
 }
@@ -0,0 +1,372 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A schema-aware {@link ResultSerializer}. DataRows of the known entities are written as a presence bitmap followed
+ * by the column values in the order defined by the {@link EntityResolver}, so the column names are not repeated
+ * for every row. The other values use the compact tagged encoding of {@link ResultCodec}, and the results that
+ * can't be encoded this way fall back to Java serialization. Large payloads can optionally be compressed with a
+ * fast Deflater setting.
+ *
+ * @since 4.0
+ */
+public class CompactResultSerializer implements ResultSerializer {
+
+    static final int FLAG_COMPRESSED = 1;
+    static final int FLAG_JAVA_SERIALIZATION = 2;
+    static final int FLAG_TIMESTAMPED = 4;
+
+    static final byte SCHEMA_ROW = 64;
+
+    private final Supplier<EntityResolver> entityResolver;
+    private final boolean compression;
+    private final int compressionThreshold;
+    private final ConcurrentMap<String, RowSchema> schemas;
+
+    /**
+     * @param entityResolver       a supplier of Cayenne model, invoked lazily, as the caches may be created before
+     *                             Cayenne runtime
+     * @param compression          whether to compress the payloads above the threshold
+     * @param compressionThreshold the minimal payload size in bytes to be compressed
+     */
+    public CompactResultSerializer(
+            Supplier<EntityResolver> entityResolver,
+            boolean compression,
+            int compressionThreshold) {
+
+        this.entityResolver = entityResolver;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+        this.schemas = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public byte[] serialize(List<?> result) throws IOException {
+
+        int flags = 0;
+        long freshUntil = 0L;
+        if (result instanceof TimestampedList t) {
+            flags |= FLAG_TIMESTAMPED;
+            freshUntil = t.getFreshUntil();
+        }
+
+        byte[] payload;
+        if (ResultCodec.canEncode(result)) {
+            payload = writeCompact(result);
+        } else {
+            flags |= FLAG_JAVA_SERIALIZATION;
+            // copying, as the TimestampedList wrapper is stored in the header
+            payload = writeJava(new ArrayList<>(result));
+        }
+
+        int rawLength = payload.length;
+        if (compression && rawLength >= compressionThreshold) {
+            byte[] compressed = compress(payload);
+            if (compressed.length < rawLength) {
+                flags |= FLAG_COMPRESSED;
+                payload = compressed;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(flags);
+            if ((flags & FLAG_TIMESTAMPED) != 0) {
+                out.writeLong(freshUntil);
+            }
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                out.writeInt(rawLength);
+            }
+            out.write(payload);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public List<?> deserialize(byte[] bytes) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int flags = in.readByte();
+        long freshUntil = (flags & FLAG_TIMESTAMPED) != 0 ? in.readLong() : 0L;
+
+        byte[] payload;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            int rawLength = in.readInt();
+            payload = decompress(in.readAllBytes(), rawLength);
+        } else {
+            payload = in.readAllBytes();
+        }
+
+        List<?> result = (flags & FLAG_JAVA_SERIALIZATION) != 0 ? readJava(payload) : readCompact(payload);
+        return (flags & FLAG_TIMESTAMPED) != 0 ? TimestampedList.restore(result, freshUntil) : result;
+    }
+
+    protected byte[] writeCompact(List<?> result) throws IOException {
+
+        // entities are numbered in the order of appearance within the list
+        Map<String, Integer> entityIds = new HashMap<>();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(result.size());
+            for (Object o : result) {
+                RowSchema schema = o instanceof DataRow row ? schema(row.getEntityName()) : null;
+                if (schema != null) {
+                    writeSchemaRow(out, (DataRow) o, schema, entityIds);
+                } else {
+                    ResultCodec.writeValue(out, o);
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    protected List<Object> readCompact(byte[] payload) throws IOException {
+
+        List<RowSchema> entities = new ArrayList<>();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int size = in.readInt();
+        List<Object> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            in.mark(1);
+            if (in.readByte() == SCHEMA_ROW) {
+                result.add(readSchemaRow(in, entities));
+            } else {
+                in.reset();
+                result.add(ResultCodec.readValue(in));
+            }
+        }
+
+        return result;
+    }
+
+    private void writeSchemaRow(
+            DataOutputStream out,
+            DataRow row,
+            RowSchema schema,
+            Map<String, Integer> entityIds) throws IOException {
+
+        out.writeByte(SCHEMA_ROW);
+
+        Integer entityId = entityIds.get(schema.entityName);
+        if (entityId == null) {
+            out.writeInt(entityIds.size());
+            entityIds.put(schema.entityName, entityIds.size());
+            ResultCodec.writeString(out, schema.entityName);
+            out.writeInt(schema.hash);
+        } else {
+            out.writeInt(entityId);
+        }
+
+        out.writeLong(row.getVersion());
+
+        String[] columns = schema.columns;
+        byte[] presence = new byte[(columns.length + 7) / 8];
+        int present = 0;
+        for (int i = 0; i < columns.length; i++) {
+            if (row.containsKey(columns[i])) {
+                presence[i >> 3] |= (byte) (1 << (i & 7));
+                present++;
+            }
+        }
+
+        out.write(presence);
+        for (String column : columns) {
+            if (row.containsKey(column)) {
+                ResultCodec.writeValue(out, row.get(column));
+            }
+        }
+
+        // the keys not matching the DbEntity columns, e.g. those of flattened prefetches
+        out.writeInt(row.size() - present);
+        if (row.size() > present) {
+            for (Map.Entry<String, Object> e : row.entrySet()) {
+                if (Arrays.binarySearch(columns, e.getKey()) < 0) {
+                    ResultCodec.writeString(out, e.getKey());
+                    ResultCodec.writeValue(out, e.getValue());
+                }
+            }
+        }
+    }
+
+    private DataRow readSchemaRow(DataInputStream in, List<RowSchema> entities) throws IOException {
+
+        int entityId = in.readInt();
+        RowSchema schema;
+        if (entityId == entities.size()) {
+            String entityName = ResultCodec.readString(in);
+            int hash = in.readInt();
+            schema = schema(entityName);
+            if (schema == null || schema.hash != hash) {
+                throw new IOException("Entity '" + entityName + "' has changed since the result was serialized");
+            }
+            entities.add(schema);
+        } else {
+            schema = entities.get(entityId);
+        }
+
+        long version = in.readLong();
+
+        String[] columns = schema.columns;
+        byte[] presence = new byte[(columns.length + 7) / 8];
+        in.readFully(presence);
+
+        DataRow row = new DataRow(columns.length);
+        row.setEntityName(schema.entityName);
+        row.setVersion(version);
+        for (int i = 0; i < columns.length; i++) {
+            if ((presence[i >> 3] & (1 << (i & 7))) != 0) {
+                row.put(columns[i], ResultCodec.readValue(in));
+            }
+        }
+
+        int extras = in.readInt();
+        for (int i = 0; i < extras; i++) {
+            row.put(ResultCodec.readString(in), ResultCodec.readValue(in));
+        }
+
+        return row;
+    }
+
+    private RowSchema schema(String entityName) {
+        if (entityName == null) {
+            return null;
+        }
+
+        RowSchema schema = schemas.get(entityName);
+        if (schema != null) {
+            return schema;
+        }
+
+        ObjEntity entity = entityResolver.get().getObjEntity(entityName);
+        if (entity == null || entity.getDbEntity() == null) {
+            return null;
+        }
+
+        return schemas.computeIfAbsent(entityName, n -> new RowSchema(n, entity.getDbEntity().getAttributes()
+                .stream()
+                .map(DbAttribute::getName)
+                .sorted()
+                .toArray(String[]::new)));
+    }
+
+    private static byte[] writeJava(List<?> result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(result);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<?> readJava(byte[] payload) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (List<?>) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Can't deserialize cached result", e);
+        }
+    }
+
+    private static byte[] compress(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] payload = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(payload, offset, rawLength - offset);
+
+                // a truncated or a dictionary-compressed payload would stall the loop otherwise
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed result");
+                }
+
+                offset += read;
+            }
+
+            if (offset < rawLength) {
+                throw new IOException("Compressed result is shorter than expected: " + offset + " of " + rawLength);
+            }
+
+            return payload;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed result", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static class RowSchema {
+
+        final String entityName;
+        final String[] columns;
+        final int hash;
+
+        RowSchema(String entityName, String[] columns) {
+            this.entityName = entityName;
+            this.columns = columns;
+            this.hash = Arrays.hashCode(columns);
+        }
+    }
+}
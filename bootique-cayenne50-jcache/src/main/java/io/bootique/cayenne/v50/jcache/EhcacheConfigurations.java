@@ -0,0 +1,76 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.jsr107.Eh107Configuration;
+
+import javax.cache.configuration.Configuration;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Builds Ehcache-specific cache group configurations with size limits and custom serialization. Only referenced
+ * when Ehcache is the JCache provider, as it is an optional dependency.
+ *
+ * @since 4.0
+ */
+class EhcacheConfigurations {
+
+    static Configuration<String, List> create(CacheGroupFactory group, Supplier<ResultSerializer> serializer) {
+
+        ResourcePoolsBuilder pools = ResourcePoolsBuilder.newResourcePoolsBuilder();
+        if (group.getHeap() != null) {
+            pools = pools.heap(group.getHeap(), EntryUnit.ENTRIES);
+        }
+
+        if (group.getOffHeap() != null) {
+            pools = pools.offheap(group.getOffHeap().getBytes(), MemoryUnit.B);
+        }
+
+        CacheConfigurationBuilder<String, List> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(String.class, List.class, pools);
+
+        Duration ttl = group.getRetention();
+        Duration tti = group.getTti();
+        if (ttl != null || tti != null) {
+            ExpiryPolicyBuilder<Object, Object> expiry = ExpiryPolicyBuilder.expiry()
+                    .create(ttl != null ? ttl : tti)
+                    .update(ttl != null ? ttl : tti);
+
+            if (tti != null) {
+                expiry = expiry.access(tti);
+            }
+
+            builder = builder.withExpiry(expiry.build());
+        }
+
+        if (group.isCompactSerialization()) {
+            builder = builder.withValueSerializer(new EhcacheResultSerializer(serializer.get()));
+        }
+
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder.build());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Adapts a {@link ResultSerializer} to Ehcache value serialization, used by the off-heap and disk tiers. Only
+ * referenced when Ehcache is the JCache provider, as it is an optional dependency.
+ *
+ * @since 4.0
+ */
+class EhcacheResultSerializer implements Serializer<List> {
+
+    private final ResultSerializer serializer;
+
+    EhcacheResultSerializer(ResultSerializer serializer) {
+        this.serializer = Objects.requireNonNull(serializer);
+    }
+
+    @Override
+    public ByteBuffer serialize(List object) throws SerializerException {
+        try {
+            return ByteBuffer.wrap(serializer.serialize(object));
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    @Override
+    public List read(ByteBuffer binary) throws SerializerException {
+        byte[] bytes = new byte[binary.remaining()];
+        binary.get(bytes);
+
+        try {
+            return serializer.deserialize(bytes);
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(List object, ByteBuffer binary) throws SerializerException {
+        return object.equals(read(binary));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+
+import java.util.List;
+
+/**
+ * Admission thresholds of a single cache group, with an optional separate cache for the results exceeding them.
+ *
+ * @since 4.0
+ */
+class GroupAdmission {
+
+    private final int maxRows;
+    private final long maxBytes;
+    private final TinyLfuCache<String, List> oversizedCache;
+
+    GroupAdmission(int maxRows, long maxBytes, TinyLfuCache<String, List> oversizedCache) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.oversizedCache = oversizedCache;
+    }
+
+    /**
+     * Returns whether the result fits within the group thresholds and can be stored in the main cache.
+     */
+    boolean admits(List<?> result) {
+        if (maxRows > 0 && result.size() > maxRows) {
+            return false;
+        }
+
+        return maxBytes <= 0 || ResultWeigher.estimateBytes(result) <= maxBytes;
+    }
+
+    /**
+     * Returns the cache of the oversized results, or null if such results are not cached.
+     */
+    TinyLfuCache<String, List> getOversizedCache() {
+        return oversizedCache;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An index of the rows contained in each cached query result of a single cache group, used to evict only the
+ * entries affected by a commit. The entries whose rows can't be identified (e.g. column queries) are evicted on
+ * any change to their root entity. If the index overflows, or a query has no root entity, the index becomes
+ * "untracked", and any change evicts the whole group.
+ * <p>
+ * To match the rows of the entities with inheritance, the indexed ids are keyed by the root of the inheritance
+ * hierarchy, and so are the ids of the changes (see {@link RowChange}). The entity-level matches consider the changed
+ * entity and all its super entities.
+ *
+ * @since 4.0
+ */
+class GroupRowIndex {
+
+    private final String group;
+    private final RowInsertPolicy insertPolicy;
+    private final int maxEntries;
+    private final AtomicLong generation;
+
+    private final Map<String, IndexedEntry> entries;
+    private final Map<ObjectId, Set<String>> keysById;
+    private final Map<String, Set<String>> keysByEntity;
+    private final Map<String, Set<String>> opaqueKeysByEntity;
+    private boolean untracked;
+
+    GroupRowIndex(String group, RowInsertPolicy insertPolicy, int maxEntries) {
+        this.group = group;
+        this.insertPolicy = insertPolicy;
+        this.maxEntries = maxEntries;
+        this.generation = new AtomicLong();
+
+        this.entries = new HashMap<>();
+        this.keysById = new HashMap<>();
+        this.keysByEntity = new HashMap<>();
+        this.opaqueKeysByEntity = new HashMap<>();
+    }
+
+    String getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns a counter incremented on each invalidation that may affect the group, allowing the loaders to detect
+     * the invalidations that happened while they were running a query.
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    void index(String key, ObjEntity rootEntity, List<?> results) {
+
+        if (rootEntity == null) {
+            markUntracked(key);
+            return;
+        }
+
+        // resolving the ids outside the lock
+        String hierarchyRoot = hierarchyRoot(rootEntity).getName();
+        Set<ObjectId> ids = new HashSet<>();
+        boolean opaque = false;
+        for (Object r : results) {
+            ObjectId id = toId(rootEntity, hierarchyRoot, r);
+            if (id != null) {
+                ids.add(id);
+            } else {
+                opaque = true;
+            }
+        }
+
+        synchronized (this) {
+            removeEntry(key);
+
+            if (entries.size() >= maxEntries) {
+                untracked = true;
+                return;
+            }
+
+            String entityName = rootEntity.getName();
+            entries.put(key, new IndexedEntry(entityName, ids, opaque));
+            keysByEntity.computeIfAbsent(entityName, e -> new HashSet<>()).add(key);
+
+            if (opaque) {
+                opaqueKeysByEntity.computeIfAbsent(entityName, e -> new HashSet<>()).add(key);
+            }
+
+            for (ObjectId id : ids) {
+                keysById.computeIfAbsent(id, i -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    /**
+     * Returns whether any change to this group requires evicting the whole group.
+     */
+    synchronized boolean isUntracked() {
+        return untracked;
+    }
+
+    /**
+     * Collects the keys of the entries affected by the provided changes into the provided set. Any change that may
+     * affect the group advances the generation, even if no indexed entries are affected, as the change may still
+     * affect a result that is being loaded and is not indexed yet.
+     */
+    synchronized void collectAffectedKeys(List<RowChange> changes, Set<String> keys) {
+
+        boolean affected = false;
+        for (RowChange c : changes) {
+            affected |= collectAffectedKeys(c, keys);
+        }
+
+        if (affected) {
+            generation.incrementAndGet();
+        }
+    }
+
+    private boolean collectAffectedKeys(RowChange change, Set<String> keys) {
+
+        switch (change.type()) {
+            case INSERT:
+                if (insertPolicy == RowInsertPolicy.EVICT_ENTITY) {
+                    for (String entityName : change.entityNames()) {
+                        addAll(keysByEntity.get(entityName), keys);
+                    }
+                    return true;
+                }
+                return false;
+            default:
+                addAll(keysById.get(change.id()), keys);
+                for (String entityName : change.entityNames()) {
+                    addAll(opaqueKeysByEntity.get(entityName), keys);
+                }
+                return true;
+        }
+    }
+
+    synchronized void remove(Collection<String> keys) {
+        generation.incrementAndGet();
+        for (String key : keys) {
+            removeEntry(key);
+        }
+    }
+
+    synchronized void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+        keysById.clear();
+        keysByEntity.clear();
+        opaqueKeysByEntity.clear();
+        untracked = false;
+    }
+
+    /**
+     * Removes the index entry for the key that was removed from the cache by the provider (e.g. on expiration).
+     */
+    synchronized void onEntryRemoved(String key) {
+        removeEntry(key);
+    }
+
+    private synchronized void markUntracked(String key) {
+        removeEntry(key);
+        untracked = true;
+    }
+
+    private void removeEntry(String key) {
+        IndexedEntry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+
+        removeKey(keysByEntity, entry.entityName, key);
+        if (entry.opaque) {
+            removeKey(opaqueKeysByEntity, entry.entityName, key);
+        }
+
+        for (ObjectId id : entry.ids) {
+            removeKey(keysById, id, key);
+        }
+    }
+
+    private static <T> void removeKey(Map<T, Set<String>> index, T indexKey, String key) {
+        Set<String> keys = index.get(indexKey);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(indexKey);
+        }
+    }
+
+    private static void addAll(Set<String> from, Set<String> to) {
+        if (from != null) {
+            to.addAll(from);
+        }
+    }
+
+    private static ObjEntity hierarchyRoot(ObjEntity entity) {
+        ObjEntity root = entity;
+        for (ObjEntity e = entity.getSuperEntity(); e != null; e = e.getSuperEntity()) {
+            root = e;
+        }
+        return root;
+    }
+
+    private static ObjectId toId(ObjEntity rootEntity, String hierarchyRoot, Object result) {
+
+        if (result instanceof Persistent p) {
+            ObjectId id = p.getObjectId();
+            return id == null || id.getEntityName().equals(hierarchyRoot)
+                    ? id
+                    : ObjectId.of(hierarchyRoot, id.getIdSnapshot());
+        }
+
+        if (result instanceof DataRow row) {
+            Collection<DbAttribute> pks = rootEntity.getDbEntity().getPrimaryKeys();
+            if (pks.isEmpty()) {
+                return null;
+            }
+
+            Map<String, Object> idMap = new HashMap<>((int) (pks.size() / 0.75) + 1);
+            for (DbAttribute pk : pks) {
+                Object value = row.get(pk.getName());
+                if (value == null) {
+                    return null;
+                }
+
+                idMap.put(pk.getName(), value);
+            }
+
+            return ObjectId.of(hierarchyRoot, idMap);
+        }
+
+        return null;
+    }
+
+    record IndexedEntry(String entityName, Set<ObjectId> ids, boolean opaque) {
+    }
+
+    /**
+     * A committed change, with the id keyed by the root of the entity inheritance hierarchy, and the names of the
+     * changed entity and all its super entities.
+     */
+    record RowChange(ObjectChangeType type, ObjectId id, List<String> entityNames) {
+
+        static RowChange of(ObjectChange change, EntityResolver resolver) {
+
+            // deleted objects may have no post-commit id
+            ObjectId id = change.getPostCommitId() != null ? change.getPostCommitId() : change.getPreCommitId();
+
+            ObjEntity entity = resolver.getObjEntity(id.getEntityName());
+            if (entity == null) {
+                return new RowChange(change.getType(), id, List.of(id.getEntityName()));
+            }
+
+            List<String> entityNames = new ArrayList<>(2);
+            ObjEntity root = entity;
+            for (ObjEntity e = entity; e != null; e = e.getSuperEntity()) {
+                entityNames.add(e.getName());
+                root = e;
+            }
+
+            ObjectId rootId = root == entity ? id : ObjectId.of(root.getName(), id.getIdSnapshot());
+            return new RowChange(change.getType(), rootId, entityNames);
+        }
+    }
+}
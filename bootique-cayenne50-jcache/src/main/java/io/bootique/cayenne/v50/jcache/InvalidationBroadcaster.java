@@ -0,0 +1,195 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the locally invalidated cache groups and the entries evicted by row-level invalidation, publishing them
+ * to the cluster as a single deduplicated message per batch window, and applies the invalidations received from
+ * the other nodes to the local QueryCache. After the shutdown, the invalidations are published synchronously.
+ *
+ * @since 4.0
+ */
+public class InvalidationBroadcaster {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBroadcaster.class);
+
+    private final String nodeId;
+    private final Set<InvalidationTransport> transports;
+    private final ScheduledExecutorService executor;
+    private final long batchWindowMs;
+
+    private Set<String> pending;
+    private Map<String, Set<String>> pendingEntries;
+    private boolean flushScheduled;
+
+    public InvalidationBroadcaster(
+            String nodeId,
+            Set<InvalidationTransport> transports,
+            ScheduledExecutorService executor,
+            long batchWindowMs) {
+
+        this.nodeId = nodeId;
+        this.transports = transports;
+        this.executor = executor;
+        this.batchWindowMs = batchWindowMs;
+        this.pending = new LinkedHashSet<>();
+        this.pendingEntries = new LinkedHashMap<>();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Starts applying the invalidations received from the other nodes to the provided cache. The cache must not
+     * publish the received invalidations again.
+     */
+    public void start(QueryCache localCache) {
+        start(localCache, null);
+    }
+
+    /**
+     * Starts applying the invalidations received from the other nodes to the provided cache, with the individual
+     * entry evictions applied via the provided evictor. If the evictor is null, the received entry evictions
+     * invalidate their whole groups. Neither the cache nor the evictor must publish the received invalidations again.
+     */
+    void start(QueryCache localCache, CacheEntryEvictor localEvictor) {
+        transports.forEach(t -> t.subscribe(m -> onMessage(m, localCache, localEvictor)));
+    }
+
+    /**
+     * Schedules a cache group invalidation to be published to the cluster.
+     */
+    public void enqueue(String group) {
+
+        boolean schedule;
+        synchronized (this) {
+            pending.add(group);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+
+        if (schedule) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Schedules an eviction of the individual cache group entries to be published to the cluster.
+     */
+    public void enqueue(String group, Set<String> keys) {
+
+        boolean schedule;
+        synchronized (this) {
+            pendingEntries.computeIfAbsent(group, g -> new HashSet<>()).addAll(keys);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+
+        if (schedule) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+
+        if (!executor.isShutdown()) {
+            try {
+                executor.schedule(this::flush, batchWindowMs, TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                // shut down concurrently, publishing right away
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * Publishes all the pending invalidations.
+     */
+    public void flush() {
+
+        Set<String> groups;
+        Map<String, Set<String>> entries;
+        synchronized (this) {
+            groups = pending;
+            entries = pendingEntries;
+            pending = new LinkedHashSet<>();
+            pendingEntries = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+
+        // the entries of the fully invalidated groups are evicted anyway
+        entries.keySet().removeAll(groups);
+
+        if (groups.isEmpty() && entries.isEmpty()) {
+            return;
+        }
+
+        InvalidationMessage message = new InvalidationMessage(nodeId, groups, entries);
+        for (InvalidationTransport t : transports) {
+            try {
+                t.publish(message);
+            } catch (RuntimeException e) {
+                // the remote nodes will serve stale entries until they expire
+                LOGGER.warn("Error publishing invalidation of cache groups {}", groups, e);
+            }
+        }
+    }
+
+    /**
+     * Publishes the pending invalidations and stops the background publishing.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    void onMessage(InvalidationMessage message, QueryCache localCache, CacheEntryEvictor localEvictor) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+
+        LOGGER.debug("Invalidating cache groups {} on request from node '{}'", message.groups(), message.origin());
+        message.groups().forEach(localCache::removeGroup);
+
+        message.entries().forEach((group, keys) -> {
+            if (localEvictor != null) {
+                localEvictor.evict(group, keys);
+            } else {
+                localCache.removeGroup(group);
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A batch of cache invalidations published by a cluster node.
+ *
+ * @param origin  the id of the node that published the message
+ * @param groups  the names of the invalidated cache groups
+ * @param entries the keys of the individual entries evicted by row-level invalidation, by cache group
+ * @since 4.0
+ */
+public record InvalidationMessage(String origin, Set<String> groups, Map<String, Set<String>> entries)
+        implements Serializable {
+
+    public InvalidationMessage {
+        Objects.requireNonNull(origin);
+        groups = Set.copyOf(groups);
+
+        Map<String, Set<String>> entriesCopy = new HashMap<>();
+        entries.forEach((g, keys) -> entriesCopy.put(g, Set.copyOf(keys)));
+        entries = Map.copyOf(entriesCopy);
+    }
+
+    public InvalidationMessage(String origin, Set<String> groups) {
+        this(origin, groups, Map.of());
+    }
+}
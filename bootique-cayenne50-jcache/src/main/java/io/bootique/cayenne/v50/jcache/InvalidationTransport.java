@@ -0,0 +1,42 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import java.util.function.Consumer;
+
+/**
+ * A pluggable channel delivering query cache group invalidations between the nodes of a cluster. Implementations
+ * may be backed by a message broker, multicast, a database table, etc.
+ *
+ * @since 4.0
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Sends a message to all the cluster nodes subscribed to this transport. Implementations may deliver the message
+     * back to the sender, as the receivers ignore their own messages.
+     */
+    void publish(InvalidationMessage message);
+
+    /**
+     * Registers a consumer of the messages published by the cluster nodes.
+     */
+    void subscribe(Consumer<InvalidationMessage> consumer);
+}
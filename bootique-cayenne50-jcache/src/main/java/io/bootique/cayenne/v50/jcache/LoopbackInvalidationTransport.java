@@ -0,0 +1,61 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-process {@link InvalidationTransport} that synchronously delivers each message to all of its subscribers.
+ * Sharing a single instance between multiple Bootique runtimes in the same JVM emulates a cluster, which is useful
+ * in tests.
+ *
+ * @since 4.0
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoopbackInvalidationTransport.class);
+
+    private final List<Consumer<InvalidationMessage>> consumers;
+
+    public LoopbackInvalidationTransport() {
+        this.consumers = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        for (Consumer<InvalidationMessage> c : consumers) {
+            try {
+                c.accept(message);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error processing invalidation message", e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> consumer) {
+        consumers.add(consumer);
+    }
+}
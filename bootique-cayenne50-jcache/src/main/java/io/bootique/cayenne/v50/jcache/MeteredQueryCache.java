@@ -0,0 +1,116 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A QueryCache decorator recording per-group hits, misses, puts, invalidations and load times in
+ * {@link QueryCacheMetrics}.
+ *
+ * @since 4.0
+ */
+public class MeteredQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final QueryCacheMetrics metrics;
+
+    public MeteredQueryCache(QueryCache delegate, QueryCacheMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        List result = delegate.get(metadata);
+
+        CacheGroupMetrics groupMetrics = metrics.group(cacheName(metadata));
+        if (result != null) {
+            groupMetrics.onHit();
+        } else {
+            groupMetrics.onMiss();
+        }
+
+        return result;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        CacheGroupMetrics groupMetrics = metrics.group(cacheName(metadata));
+        boolean[] loaded = new boolean[1];
+
+        List result = delegate.get(metadata, () -> {
+            loaded[0] = true;
+            long t0 = System.nanoTime();
+            try {
+                return factory.createObject();
+            } finally {
+                groupMetrics.onLoad(System.nanoTime() - t0);
+            }
+        });
+
+        if (loaded[0]) {
+            groupMetrics.onMiss();
+            if (result != null) {
+                groupMetrics.onPut();
+            }
+        } else {
+            groupMetrics.onHit();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+        metrics.group(cacheName(metadata)).onPut();
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+        metrics.group(groupKey).onInvalidation();
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+        metrics.group(groupKey).onInvalidation();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        metrics.onClear();
+    }
+
+    protected String cacheName(QueryMetadata metadata) {
+        String cacheGroup = metadata.getCacheGroup();
+        return cacheGroup != null ? cacheGroup : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import io.bootique.value.Bytes;
+import io.bootique.value.Duration;
+
+import java.util.List;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("In-heap near cache placed in front of the JCache cache of a Cayenne cache group")
+public class NearCacheFactory {
+
+    // the default near tier TTL as a fraction of the group TTL (or TTI)
+    static final int DEFAULT_TTL_DIVISOR = 10;
+
+    private long maxEntries;
+    private long maxWeight;
+    private Bytes maxBytes;
+    private Duration ttl;
+
+    @BQConfigProperty("The maximum number of cached query results in the near cache.")
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @BQConfigProperty("""
+            The maximum total number of rows in the cached query results in the near cache. Can be used instead of
+            'maxEntries' when the result sizes vary a lot.""")
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    @BQConfigProperty("""
+            The maximum total estimated heap size of the cached query results in the near cache, e.g. '32mb'. Takes
+            precedence over 'maxWeight' and 'maxEntries'.""")
+    public void setMaxBytes(Bytes maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @BQConfigProperty("""
+            Time to live of the results in the near cache since they were copied from the JCache tier, e.g. '30s'.
+            Must be shorter than the group TTL (or TTI). The default is 1/10 of the group TTL (or TTI), or no
+            expiration if neither is set.""")
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Creates a near cache. The age of a JCache entry is unknown when it is copied to the near tier, so the near
+     * tier expiration starts at that point, and a result may be served for up to the group TTL plus the near cache
+     * TTL since it was loaded. To keep this overshoot small, the near cache TTL is a fraction of the group TTL. The
+     * near tier hits do not extend the TTI of the JCache entries, so for the TTI-only groups, the near cache TTL is
+     * derived from the TTI the same way.
+     */
+    public TinyLfuCache<String, List> createNearCache(
+            String groupName,
+            java.time.Duration groupTtl,
+            java.time.Duration groupTti) {
+
+        long expirationMs = nearTtlMs(groupName, groupTtl != null ? groupTtl : groupTti);
+
+        if (maxBytes != null) {
+            return TinyLfuCache.ofMaxWeight(
+                    maxBytes.getBytes(),
+                    ResultWeigher::weigh,
+                    ResultWeigher.AVERAGE_RESULT_BYTES,
+                    expirationMs);
+        }
+
+        if (maxWeight > 0) {
+            return TinyLfuCache.ofMaxWeight(
+                    maxWeight,
+                    l -> Math.max(1, l.size()),
+                    ResultWeigher.AVERAGE_RESULT_ROWS,
+                    expirationMs);
+        }
+
+        if (maxEntries > 0) {
+            return TinyLfuCache.ofMaxEntries(maxEntries, expirationMs);
+        }
+
+        throw new IllegalStateException("One of 'maxEntries', 'maxWeight' or 'maxBytes' must be set for the near "
+                + "cache of the group '" + groupName + "'");
+    }
+
+    private long nearTtlMs(String groupName, java.time.Duration groupExpiration) {
+
+        if (ttl == null) {
+            return groupExpiration != null ? Math.max(1L, groupExpiration.toMillis() / DEFAULT_TTL_DIVISOR) : 0L;
+        }
+
+        long ttlMs = ttl.getDuration().toMillis();
+        if (groupExpiration != null && ttlMs >= groupExpiration.toMillis()) {
+            throw new IllegalStateException("Near cache 'ttl' of the group '" + groupName
+                    + "' must be shorter than the group TTL (or TTI)");
+        }
+
+        return ttlMs;
+    }
+}
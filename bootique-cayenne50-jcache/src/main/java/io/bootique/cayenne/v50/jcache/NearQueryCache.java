@@ -0,0 +1,206 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A two-tier QueryCache, with a small in-heap W-TinyLFU "near" cache in front of the JCache-backed cache for the
+ * configured cache groups. The near cache hits avoid the JCache provider overhead, such as deserialization of the
+ * off-heap entries. The groups without a near cache are served by the JCache tier directly. Group invalidation
+ * (e.g. by the registered InvalidationHandlers) is applied to both tiers.
+ *
+ * @since 4.0
+ */
+public class NearQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final Map<String, NearGroup> nearGroups;
+
+    public NearQueryCache(QueryCache delegate, Map<String, TinyLfuCache<String, List>> nearCaches) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.nearGroups = new HashMap<>();
+        nearCaches.forEach((n, c) -> this.nearGroups.put(n, new NearGroup(c)));
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+
+        NearGroup near = nearGroups.get(cacheName(metadata));
+        if (near == null) {
+            return delegate.get(metadata);
+        }
+
+        String key = metadata.getCacheKey();
+        List result = near.cache.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        long generation = near.generation.get();
+        result = delegate.get(metadata);
+        if (result != null) {
+            near.putIfCurrent(key, result, generation);
+        }
+
+        return result;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        NearGroup near = nearGroups.get(cacheName(metadata));
+        if (near == null) {
+            return delegate.get(metadata, factory);
+        }
+
+        String key = metadata.getCacheKey();
+        List result = near.cache.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        long generation = near.generation.get();
+        result = delegate.get(metadata, factory);
+        if (result != null) {
+            near.putIfCurrent(key, result, generation);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+
+        NearGroup near = nearGroups.get(cacheName(metadata));
+        if (near != null && results != null) {
+            near.cache.put(metadata.getCacheKey(), results);
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        NearGroup near = nearGroups.get(groupKey);
+        if (near != null) {
+            near.invalidate(() -> delegate.removeGroup(groupKey));
+        } else {
+            delegate.removeGroup(groupKey);
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        NearGroup near = nearGroups.get(groupKey);
+        if (near != null) {
+            near.invalidate(() -> delegate.removeGroup(groupKey, keyType, valueType));
+        } else {
+            delegate.removeGroup(groupKey, keyType, valueType);
+        }
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        nearGroups.values().forEach(g -> g.invalidate(() -> {}));
+    }
+
+    /**
+     * Returns an evictor of individual near cache entries, used by row-level invalidation.
+     */
+    CacheEntryEvictor nearTierEvictor() {
+        return new CacheEntryEvictor() {
+
+            @Override
+            public void evict(String group, Set<String> keys) {
+                NearGroup near = nearGroups.get(group);
+                if (near != null) {
+                    near.invalidate(keys);
+                }
+            }
+
+            @Override
+            public void evictGroup(String group) {
+                NearGroup near = nearGroups.get(group);
+                if (near != null) {
+                    near.invalidate(() -> {});
+                }
+            }
+        };
+    }
+
+    protected String cacheName(QueryMetadata metadata) {
+
+        // same naming as in JCacheQueryCache
+        String cacheGroup = metadata.getCacheGroup();
+        return cacheGroup != null ? cacheGroup : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+
+    static class NearGroup {
+
+        final TinyLfuCache<String, List> cache;
+
+        // incremented on each invalidation, so that the results read from the JCache tier before the invalidation
+        // are not stored in the near cache after it
+        final AtomicLong generation;
+
+        NearGroup(TinyLfuCache<String, List> cache) {
+            this.cache = cache;
+            this.generation = new AtomicLong();
+        }
+
+        void putIfCurrent(String key, List result, long readGeneration) {
+
+            // a stale "stale-while-revalidate" result is about to be refreshed, so it should not be retained
+            if (TimestampedList.isStale(result)) {
+                return;
+            }
+
+            cache.put(key, result);
+
+            // rechecking after the put, as an invalidation may have happened concurrently
+            if (generation.get() != readGeneration) {
+                cache.remove(key);
+            }
+        }
+
+        void invalidate(Set<String> keys) {
+            generation.incrementAndGet();
+            keys.forEach(cache::remove);
+        }
+
+        void invalidate(Runnable delegateInvalidation) {
+            generation.incrementAndGet();
+            delegateInvalidation.run();
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+/**
+ * Defines what happens to the query results exceeding the group admission thresholds.
+ *
+ * @since 4.0
+ */
+public enum OversizedResultPolicy {
+
+    /**
+     * The oversized results are not cached at all.
+     */
+    REJECT,
+
+    /**
+     * The oversized results are stored in a separate in-heap cache with its own capacity, so that they can't push
+     * the smaller entries out of the main cache.
+     */
+    SEPARATE
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-group query cache counters, populated by {@link MeteredQueryCache} when the metrics are enabled via
+ * {@link CayenneJCacheModuleExtender#enableMetrics()}. The counters can be read via {@link #snapshot()}, or over
+ * JMX, as "io.bootique.cayenne:type=QueryCacheGroup,name=..." MXBeans.
+ *
+ * @since 4.0
+ */
+public class QueryCacheMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryCacheMetrics.class);
+
+    static final String JMX_DOMAIN = "io.bootique.cayenne";
+
+    private final ConcurrentMap<String, CacheGroupMetrics> byGroup;
+    private final Map<String, ObjectName> jmxNames;
+    private volatile MBeanServer mBeanServer;
+
+    public QueryCacheMetrics() {
+        this.byGroup = new ConcurrentHashMap<>();
+        this.jmxNames = new ConcurrentHashMap<>();
+    }
+
+    public CacheGroupMetrics group(String group) {
+
+        // "get" before "computeIfAbsent" to avoid locking a map bin on the hot path
+        CacheGroupMetrics metrics = byGroup.get(group);
+        return metrics != null ? metrics : byGroup.computeIfAbsent(group, this::createGroupMetrics);
+    }
+
+    /**
+     * Returns a snapshot of the group counters, or null if the group was never accessed.
+     */
+    public CacheGroupStats getStats(String group) {
+        CacheGroupMetrics metrics = byGroup.get(group);
+        return metrics != null ? metrics.snapshot() : null;
+    }
+
+    /**
+     * Returns a point-in-time copy of all the groups counters.
+     */
+    public List<CacheGroupStats> snapshot() {
+        List<CacheGroupStats> stats = new ArrayList<>(byGroup.size());
+        for (CacheGroupMetrics m : byGroup.values()) {
+            stats.add(m.snapshot());
+        }
+
+        return stats;
+    }
+
+    void onClear() {
+        byGroup.values().forEach(CacheGroupMetrics::onInvalidation);
+    }
+
+    /**
+     * Counts the expirations of the entries of the provided groups JCache caches as evictions. Must be called after
+     * the caches are created.
+     */
+    public void trackExpirations(CacheManager cacheManager, Collection<String> groups) {
+        for (String group : groups) {
+            Cache<String, List> cache = cacheManager.getCache(group, String.class, List.class);
+            if (cache != null) {
+                cache.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<>(
+                        new FactoryBuilder.SingletonFactory<>(new ExpirationListener(group(group))),
+                        null,
+                        false,
+                        false));
+            }
+        }
+    }
+
+    /**
+     * Registers an MXBean for each of the present and future cache groups with the provided server.
+     */
+    public synchronized void exportToJmx(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+        byGroup.values().forEach(this::registerMXBean);
+    }
+
+    /**
+     * Unregisters all the MXBeans registered by this object.
+     */
+    public synchronized void unexportFromJmx() {
+
+        MBeanServer server = this.mBeanServer;
+        this.mBeanServer = null;
+
+        if (server != null) {
+            for (ObjectName name : jmxNames.values()) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException e) {
+                    LOGGER.warn("Error unregistering MXBean '{}'", name, e);
+                }
+            }
+        }
+
+        jmxNames.clear();
+    }
+
+    private CacheGroupMetrics createGroupMetrics(String group) {
+        CacheGroupMetrics metrics = new CacheGroupMetrics(group);
+        if (mBeanServer != null) {
+            registerMXBean(metrics);
+        }
+        return metrics;
+    }
+
+    private void registerMXBean(CacheGroupMetrics metrics) {
+
+        MBeanServer server = this.mBeanServer;
+        if (server == null || jmxNames.containsKey(metrics.getGroup())) {
+            return;
+        }
+
+        try {
+            ObjectName name = new ObjectName(
+                    JMX_DOMAIN + ":type=QueryCacheGroup,name=" + ObjectName.quote(metrics.getGroup()));
+            server.registerMBean(new CacheGroupStatsView(metrics), name);
+            jmxNames.put(metrics.getGroup(), name);
+        } catch (JMException e) {
+            // e.g. another runtime in the same JVM has already registered the group
+            LOGGER.warn("Error registering MXBean for cache group '{}'", metrics.getGroup(), e);
+        }
+    }
+
+    static class ExpirationListener implements CacheEntryExpiredListener<String, List> {
+
+        private final CacheGroupMetrics metrics;
+
+        ExpirationListener(CacheGroupMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends String, ? extends List>> events) {
+            for (CacheEntryEvent<? extends String, ? extends List> e : events) {
+                metrics.onEviction();
+            }
+        }
+    }
+
+    static class CacheGroupStatsView implements CacheGroupStatsMXBean {
+
+        private final CacheGroupMetrics metrics;
+
+        CacheGroupStatsView(CacheGroupMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public long getHits() {
+            return metrics.snapshot().getHits();
+        }
+
+        @Override
+        public long getMisses() {
+            return metrics.snapshot().getMisses();
+        }
+
+        @Override
+        public double getHitRatio() {
+            return metrics.snapshot().getHitRatio();
+        }
+
+        @Override
+        public long getPuts() {
+            return metrics.snapshot().getPuts();
+        }
+
+        @Override
+        public long getEvictions() {
+            return metrics.snapshot().getEvictions();
+        }
+
+        @Override
+        public long getInvalidations() {
+            return metrics.snapshot().getInvalidations();
+        }
+
+        @Override
+        public long getLoads() {
+            return metrics.snapshot().getLoads();
+        }
+
+        @Override
+        public long getAverageLoadTimeNanos() {
+            return metrics.snapshot().getAverageLoadTimeNanos();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.cayenne.v50.CayenneStartupListener;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the contents of the selected query cache groups to a local file on shutdown, and reloads them in the
+ * background on the next startup, so that the app doesn't start with a cold cache. The snapshot is discarded if the
+ * DB model has changed, and the groups are skipped if the snapshot is older than their retention time. The groups
+ * invalidated after the app startup are skipped as well, as the snapshot entries may predate the invalidation. This
+ * requires the group invalidations to be reported via {@link SnapshotTrackingQueryCache}.
+ *
+ * @since 4.0
+ */
+public class QueryCacheSnapshot implements CayenneStartupListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryCacheSnapshot.class);
+
+    static final int MAGIC = 0x42514353;
+    static final short FORMAT_VERSION = 1;
+
+    // null if the snapshot is disabled
+    private final Path file;
+    private final Map<String, Duration> retentionByGroup;
+    private final CacheManager cacheManager;
+    private final boolean loadOnStartup;
+
+    // incremented before a group is cleared, so that the loader can tell whether its entries may be stale
+    private final Map<String, AtomicLong> invalidations;
+
+    private volatile EntityResolver entityResolver;
+
+    /**
+     * @param retentionByGroup snapshot groups mapped to their retention time, with null retention meaning unlimited
+     */
+    public QueryCacheSnapshot(
+            Path file,
+            Map<String, Duration> retentionByGroup,
+            CacheManager cacheManager,
+            boolean loadOnStartup) {
+
+        this.file = file;
+        this.retentionByGroup = retentionByGroup;
+        this.cacheManager = cacheManager;
+        this.loadOnStartup = loadOnStartup;
+
+        this.invalidations = new HashMap<>();
+        retentionByGroup.keySet().forEach(g -> invalidations.put(g, new AtomicLong()));
+    }
+
+    public boolean isEnabled() {
+        return !retentionByGroup.isEmpty();
+    }
+
+    @Override
+    public void onRuntimeCreated(CayenneRuntime runtime) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        this.entityResolver = runtime.getDataDomain().getEntityResolver();
+
+        if (loadOnStartup && Files.isRegularFile(file)) {
+            Thread loader = new Thread(this::load, "bootique-cayenne-cache-snapshot-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    /**
+     * Records an invalidation of the group. Must be called before the group is cleared.
+     */
+    void onGroupInvalidated(String group) {
+        AtomicLong counter = invalidations.get(group);
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records an invalidation of all groups. Must be called before the groups are cleared.
+     */
+    void onAllInvalidated() {
+        invalidations.values().forEach(AtomicLong::incrementAndGet);
+    }
+
+    private boolean isInvalidated(String group) {
+        AtomicLong counter = invalidations.get(group);
+        return counter != null && counter.get() != 0;
+    }
+
+    /**
+     * Writes the current contents of the snapshot groups to the file. Does nothing if Cayenne runtime was never
+     * started, as the cache must be empty in this case.
+     */
+    public void save() {
+
+        EntityResolver resolver = this.entityResolver;
+        if (resolver == null) {
+            return;
+        }
+
+        long t0 = System.currentTimeMillis();
+        int entries = 0;
+
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(modelFingerprint(resolver));
+                out.writeLong(t0);
+
+                out.writeInt(retentionByGroup.size());
+                for (String group : retentionByGroup.keySet()) {
+                    ResultCodec.writeString(out, group);
+                    entries += writeGroup(out, group);
+                }
+            }
+
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to save query cache snapshot to {}", file, e);
+            return;
+        }
+
+        LOGGER.info("Saved {} query cache entries to {} in {} ms", entries, file, System.currentTimeMillis() - t0);
+    }
+
+    /**
+     * Loads the snapshot entries into the JCache caches. Entries already present in the caches are not replaced.
+     * Groups invalidated since the startup are skipped, and the entries already loaded into such groups are removed.
+     */
+    public void load() {
+
+        EntityResolver resolver = this.entityResolver;
+        if (resolver == null) {
+            return;
+        }
+
+        long t0 = System.currentTimeMillis();
+        int entries = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                LOGGER.warn("Ignoring query cache snapshot {} of unknown format", file);
+                return;
+            }
+
+            if (in.readLong() != modelFingerprint(resolver)) {
+                LOGGER.info("Ignoring query cache snapshot {}, as the DB model has changed", file);
+                return;
+            }
+
+            long age = t0 - in.readLong();
+            int groups = in.readInt();
+            for (int i = 0; i < groups; i++) {
+                entries += readGroup(in, ResultCodec.readString(in), age);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to load query cache snapshot from {}", file, e);
+            return;
+        }
+
+        LOGGER.info("Loaded {} query cache entries from {} in {} ms", entries, file, System.currentTimeMillis() - t0);
+    }
+
+    private int writeGroup(DataOutputStream out, String group) throws IOException {
+
+        int entries = 0;
+        Cache<String, List> cache = cacheManager.getCache(group, String.class, List.class);
+        if (cache != null) {
+            for (Cache.Entry<String, List> e : cache) {
+                List<?> list = e.getValue();
+                if (list == null || !ResultCodec.canEncode(list)) {
+                    continue;
+                }
+
+                out.writeBoolean(true);
+                ResultCodec.writeString(out, e.getKey());
+
+                if (list instanceof TimestampedList t) {
+                    out.writeBoolean(true);
+                    out.writeLong(t.getFreshUntil());
+                } else {
+                    out.writeBoolean(false);
+                }
+
+                ResultCodec.writeList(out, list);
+                entries++;
+            }
+        }
+
+        out.writeBoolean(false);
+        return entries;
+    }
+
+    private int readGroup(DataInputStream in, String group, long snapshotAgeMs) throws IOException {
+
+        Cache<String, List> cache = cacheManager.getCache(group, String.class, List.class);
+
+        // the entries are read even if they are discarded, to reach the next group
+        Duration retention = retentionByGroup.get(group);
+        boolean expired = retention != null && snapshotAgeMs >= retention.toMillis();
+        boolean discard = cache == null || !retentionByGroup.containsKey(group) || expired || isInvalidated(group);
+
+        Map<String, List<?>> loaded = new HashMap<>();
+        while (in.readBoolean()) {
+            String key = ResultCodec.readString(in);
+            boolean timestamped = in.readBoolean();
+            long freshUntil = timestamped ? in.readLong() : 0L;
+            List<Object> list = ResultCodec.readList(in);
+
+            if (discard) {
+                continue;
+            }
+
+            List<?> value = timestamped ? TimestampedList.restore(list, freshUntil) : list;
+            if (cache.putIfAbsent(key, (List) value)) {
+                loaded.put(key, value);
+            }
+
+            // checking after the put, as the invalidation may have cleared the cache right before it
+            if (isInvalidated(group)) {
+                LOGGER.info("Query cache group '{}' was invalidated while loading the snapshot, skipping it", group);
+                loaded.forEach((k, v) -> cache.remove(k, (List) v));
+                loaded.clear();
+                discard = true;
+            }
+        }
+
+        return loaded.size();
+    }
+
+    /**
+     * Calculates a checksum of the DB model parts that affect the cached DataRows.
+     */
+    static long modelFingerprint(EntityResolver resolver) {
+
+        CRC32 crc = new CRC32();
+        resolver.getDbEntities().stream().sorted(Comparator.comparing(DbEntity::getName)).forEach(e -> {
+            update(crc, e.getName());
+            e.getAttributes().stream().sorted(Comparator.comparing(DbAttribute::getName)).forEach(a -> {
+                update(crc, a.getName());
+                update(crc, String.valueOf(a.getType()));
+                update(crc, String.valueOf(a.isPrimaryKey()));
+            });
+        });
+
+        return crc.getValue();
+    }
+
+    private static void update(CRC32 crc, String string) {
+        crc.update(string.getBytes(StandardCharsets.UTF_8));
+        crc.update(0);
+    }
+}
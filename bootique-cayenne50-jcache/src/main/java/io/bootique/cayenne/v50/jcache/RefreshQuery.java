@@ -0,0 +1,65 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.QueryMetadataProxy;
+import org.apache.cayenne.query.QueryRouter;
+import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.SQLActionVisitor;
+
+/**
+ * A wrapper of a cached query that forces the shared cache refresh, so that the query is run against the database,
+ * and the result is stored in the cache.
+ *
+ * @since 4.0
+ */
+class RefreshQuery implements Query {
+
+    private final Query query;
+
+    RefreshQuery(Query query) {
+        this.query = query;
+    }
+
+    @Override
+    public QueryMetadata getMetaData(EntityResolver resolver) {
+        return new QueryMetadataProxy(query.getMetaData(resolver)) {
+
+            @Override
+            public QueryCacheStrategy getCacheStrategy() {
+                return QueryCacheStrategy.SHARED_CACHE_REFRESH;
+            }
+        };
+    }
+
+    @Override
+    public void route(QueryRouter router, EntityResolver resolver, Query substitutedQuery) {
+        query.route(router, resolver, substitutedQuery != null ? substitutedQuery : this);
+    }
+
+    @Override
+    public SQLAction createSQLAction(SQLActionVisitor visitor) {
+        return query.createSQLAction(visitor);
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.DataRow;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact tagged binary encoding of cached query results, i.e. lists of DataRows, scalars or arrays of scalars.
+ * Values of the types not known to the codec can't be encoded, and such results are skipped by the callers.
+ *
+ * @since 4.0
+ */
+final class ResultCodec {
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INT = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte BOOLEAN_TRUE = 5;
+    static final byte BOOLEAN_FALSE = 6;
+    static final byte BIG_DECIMAL = 7;
+    static final byte BYTES = 8;
+    static final byte SQL_TIMESTAMP = 9;
+    static final byte SQL_DATE = 10;
+    static final byte SQL_TIME = 11;
+    static final byte UTIL_DATE = 12;
+    static final byte LOCAL_DATE = 13;
+    static final byte LOCAL_TIME = 14;
+    static final byte LOCAL_DATE_TIME = 15;
+    static final byte SHORT = 16;
+    static final byte FLOAT = 17;
+    static final byte DATA_ROW = 18;
+    static final byte ARRAY = 19;
+
+    private ResultCodec() {
+    }
+
+    /**
+     * Returns whether all the values in the list can be encoded.
+     */
+    static boolean canEncode(List<?> list) {
+        for (Object o : list) {
+            if (!canEncodeRow(o)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static void writeList(DataOutput out, List<?> list) throws IOException {
+        out.writeInt(list.size());
+        for (Object o : list) {
+            writeValue(out, o);
+        }
+    }
+
+    static List<Object> readList(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readValue(in));
+        }
+
+        return list;
+    }
+
+    static void writeValue(DataOutput out, Object value) throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+        } else if (value instanceof BigDecimal d) {
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(d.scale());
+            writeBytes(out, d.unscaledValue().toByteArray());
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            writeBytes(out, bytes);
+        } else if (value instanceof java.sql.Timestamp ts) {
+            out.writeByte(SQL_TIMESTAMP);
+            out.writeLong(ts.getTime());
+            out.writeInt(ts.getNanos());
+        } else if (value instanceof java.sql.Date d) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(d.getTime());
+        } else if (value instanceof java.sql.Time t) {
+            out.writeByte(SQL_TIME);
+            out.writeLong(t.getTime());
+        } else if (value instanceof java.util.Date d) {
+            out.writeByte(UTIL_DATE);
+            out.writeLong(d.getTime());
+        } else if (value instanceof LocalDate d) {
+            out.writeByte(LOCAL_DATE);
+            out.writeLong(d.toEpochDay());
+        } else if (value instanceof LocalTime t) {
+            out.writeByte(LOCAL_TIME);
+            out.writeLong(t.toNanoOfDay());
+        } else if (value instanceof LocalDateTime dt) {
+            out.writeByte(LOCAL_DATE_TIME);
+            out.writeLong(dt.toLocalDate().toEpochDay());
+            out.writeLong(dt.toLocalTime().toNanoOfDay());
+        } else if (value instanceof Short s) {
+            out.writeByte(SHORT);
+            out.writeShort(s);
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof DataRow row) {
+            out.writeByte(DATA_ROW);
+            writeDataRow(out, row);
+        } else if (value instanceof Object[] array) {
+            out.writeByte(ARRAY);
+            out.writeInt(array.length);
+            for (Object o : array) {
+                writeValue(out, o);
+            }
+        } else {
+            throw new IOException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    static Object readValue(DataInput in) throws IOException {
+
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN_TRUE:
+                return Boolean.TRUE;
+            case BOOLEAN_FALSE:
+                return Boolean.FALSE;
+            case BIG_DECIMAL:
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case BYTES:
+                return readBytes(in);
+            case SQL_TIMESTAMP:
+                java.sql.Timestamp ts = new java.sql.Timestamp(in.readLong());
+                ts.setNanos(in.readInt());
+                return ts;
+            case SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case SQL_TIME:
+                return new java.sql.Time(in.readLong());
+            case UTIL_DATE:
+                return new java.util.Date(in.readLong());
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(in.readLong());
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+            case SHORT:
+                return in.readShort();
+            case FLOAT:
+                return in.readFloat();
+            case DATA_ROW:
+                return readDataRow(in);
+            case ARRAY:
+                Object[] array = new Object[in.readInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readValue(in);
+                }
+                return array;
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    static void writeString(DataOutput out, String string) throws IOException {
+        // unlike "writeUTF", not limited to 64K
+        writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeDataRow(DataOutput out, DataRow row) throws IOException {
+        String entityName = row.getEntityName();
+        out.writeBoolean(entityName != null);
+        if (entityName != null) {
+            writeString(out, entityName);
+        }
+
+        out.writeLong(row.getVersion());
+        out.writeInt(row.size());
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+            writeString(out, e.getKey());
+            writeValue(out, e.getValue());
+        }
+    }
+
+    private static DataRow readDataRow(DataInput in) throws IOException {
+        String entityName = in.readBoolean() ? readString(in) : null;
+        long version = in.readLong();
+        int size = in.readInt();
+
+        DataRow row = new DataRow(size);
+        row.setEntityName(entityName);
+        row.setVersion(version);
+        for (int i = 0; i < size; i++) {
+            row.put(readString(in), readValue(in));
+        }
+
+        return row;
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static boolean canEncodeRow(Object value) {
+        if (value instanceof DataRow row) {
+            for (Object v : row.values()) {
+                if (!canEncodeValue(v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        if (value instanceof Object[] array) {
+            for (Object v : array) {
+                if (!canEncodeValue(v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        return canEncodeValue(value);
+    }
+
+    private static boolean canEncodeValue(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Number && isEncodableNumber(value)
+                || value instanceof Boolean
+                || value instanceof byte[]
+                || value instanceof java.util.Date
+                || value instanceof LocalDate
+                || value instanceof LocalTime
+                || value instanceof LocalDateTime;
+    }
+
+    private static boolean isEncodableNumber(Object value) {
+        return value instanceof Integer
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof BigDecimal
+                || value instanceof Short
+                || value instanceof Float;
+    }
+}
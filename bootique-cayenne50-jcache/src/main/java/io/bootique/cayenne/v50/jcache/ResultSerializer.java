@@ -0,0 +1,35 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Converts cached query results to bytes and back, for the JCache tiers that store the values outside the heap.
+ *
+ * @since 4.0
+ */
+public interface ResultSerializer {
+
+    byte[] serialize(List<?> result) throws IOException;
+
+    List<?> deserialize(byte[] bytes) throws IOException;
+}
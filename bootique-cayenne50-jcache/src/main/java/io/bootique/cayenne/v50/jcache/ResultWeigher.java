@@ -0,0 +1,129 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.Persistent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the heap footprint of cached query results. The estimate is based on a sample of rows, so its cost
+ * doesn't depend on the result size.
+ *
+ * @since 4.0
+ */
+final class ResultWeigher {
+
+    /**
+     * An expected number of rows in a typical cached result, used to estimate the number of entries in the caches
+     * bounded by the total number of rows.
+     */
+    static final int AVERAGE_RESULT_ROWS = 16;
+
+    /**
+     * An expected size of a typical cached result in bytes, used to estimate the number of entries in the caches
+     * bounded by the total heap size.
+     */
+    static final int AVERAGE_RESULT_BYTES = 4 * 1024;
+
+    private static final int SAMPLE_SIZE = 16;
+
+    private static final int LIST_ENTRY_BYTES = 8;
+    private static final int MAP_ENTRY_BYTES = 48;
+    private static final int OBJECT_BYTES = 16;
+    private static final int PERSISTENT_BYTES = 256;
+
+    private ResultWeigher() {
+    }
+
+    /**
+     * Returns the estimated size of the result in bytes, capped at Integer.MAX_VALUE.
+     */
+    static int weigh(List<?> result) {
+        return (int) Math.min(Integer.MAX_VALUE, estimateBytes(result));
+    }
+
+    static long estimateBytes(List<?> result) {
+
+        int size = result.size();
+        if (size == 0) {
+            return OBJECT_BYTES;
+        }
+
+        // sample the rows evenly across the list
+        int samples = Math.min(size, SAMPLE_SIZE);
+        int step = size / samples;
+        long sampledBytes = 0;
+        for (int i = 0; i < samples; i++) {
+            sampledBytes += estimateRowBytes(result.get(i * step));
+        }
+
+        return OBJECT_BYTES + (long) size * (LIST_ENTRY_BYTES + sampledBytes / samples);
+    }
+
+    private static long estimateRowBytes(Object row) {
+
+        if (row instanceof DataRow dataRow) {
+            long bytes = OBJECT_BYTES;
+            for (Map.Entry<String, Object> e : dataRow.entrySet()) {
+                bytes += MAP_ENTRY_BYTES + estimateValueBytes(e.getValue());
+            }
+            return bytes;
+        }
+
+        if (row instanceof Persistent) {
+            return PERSISTENT_BYTES;
+        }
+
+        // scalars of column queries, or arrays of those
+        if (row instanceof Object[] columns) {
+            long bytes = OBJECT_BYTES + (long) LIST_ENTRY_BYTES * columns.length;
+            for (Object c : columns) {
+                bytes += estimateValueBytes(c);
+            }
+            return bytes;
+        }
+
+        return estimateValueBytes(row);
+    }
+
+    private static long estimateValueBytes(Object value) {
+
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof String s) {
+            return 40 + 2L * s.length();
+        }
+
+        if (value instanceof byte[] bytes) {
+            return OBJECT_BYTES + bytes.length;
+        }
+
+        if (value instanceof Persistent) {
+            return PERSISTENT_BYTES;
+        }
+
+        return OBJECT_BYTES + 8;
+    }
+}
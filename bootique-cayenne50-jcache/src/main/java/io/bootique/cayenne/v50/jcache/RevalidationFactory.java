@@ -0,0 +1,73 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Background refresh of stale query cache entries in 'stale-while-revalidate' cache groups")
+public class RevalidationFactory {
+
+    private static final int DEFAULT_THREADS = 2;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private int threads;
+    private int queueSize;
+
+    @BQConfigProperty("The number of threads refreshing stale cache entries. The default is 2.")
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @BQConfigProperty("""
+            The maximum number of pending refreshes. When the queue is full, stale entries are served without a
+            refresh until a later read. The default is 1000.""")
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public ExecutorService createExecutor() {
+
+        int threads = this.threads > 0 ? this.threads : DEFAULT_THREADS;
+        int queueSize = this.queueSize > 0 ? this.queueSize : DEFAULT_QUEUE_SIZE;
+        AtomicInteger counter = new AtomicInteger();
+
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "bootique-cayenne-cache-refresh-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.query.Query;
+
+/**
+ * Makes the current query available to {@link StaleWhileRevalidateQueryCache}, so that it could rerun it on a stale
+ * cache read.
+ *
+ * @since 4.0
+ */
+public class RevalidationQueryFilter implements DataChannelQueryFilter {
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+
+        Query previous = StaleWhileRevalidateQueryCache.CURRENT_QUERY.get();
+        StaleWhileRevalidateQueryCache.CURRENT_QUERY.set(query);
+        try {
+            return filterChain.onQuery(originatingContext, query);
+        } finally {
+            if (previous != null) {
+                StaleWhileRevalidateQueryCache.CURRENT_QUERY.set(previous);
+            } else {
+                StaleWhileRevalidateQueryCache.CURRENT_QUERY.remove();
+            }
+        }
+    }
+}
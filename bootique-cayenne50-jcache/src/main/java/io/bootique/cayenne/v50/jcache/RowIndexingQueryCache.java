@@ -0,0 +1,123 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A QueryCache decorator that records the rows of each result stored in a row invalidation group in the group
+ * {@link GroupRowIndex}. If an invalidation happens while a result is being loaded, the freshly stored entry is
+ * evicted, as it may have been read before the change.
+ *
+ * @since 4.0
+ */
+public class RowIndexingQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final RowInvalidation rowInvalidation;
+
+    public RowIndexingQueryCache(QueryCache delegate, RowInvalidation rowInvalidation) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.rowInvalidation = Objects.requireNonNull(rowInvalidation);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        String group = cacheName(metadata);
+        GroupRowIndex index = rowInvalidation.getIndex(group);
+        if (index == null) {
+            return delegate.get(metadata, factory);
+        }
+
+        long generation = index.generation();
+        boolean[] loaded = new boolean[1];
+
+        List result = delegate.get(metadata, () -> {
+            List r = factory.createObject();
+            if (r != null) {
+                index.index(metadata.getCacheKey(), metadata.getObjEntity(), r);
+                loaded[0] = true;
+            }
+            return r;
+        });
+
+        if (loaded[0] && index.generation() != generation) {
+            rowInvalidation.evict(group, Set.of(metadata.getCacheKey()));
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+
+        String group = cacheName(metadata);
+        GroupRowIndex index = rowInvalidation.getIndex(group);
+        if (index == null || results == null) {
+            delegate.put(metadata, results);
+            return;
+        }
+
+        // the results were loaded before this call, so can't detect concurrent invalidations as reliably as "get"
+        long generation = index.generation();
+        index.index(metadata.getCacheKey(), metadata.getObjEntity(), results);
+        delegate.put(metadata, results);
+
+        if (index.generation() != generation) {
+            rowInvalidation.evict(group, Set.of(metadata.getCacheKey()));
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+        rowInvalidation.clearIndex(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+        rowInvalidation.clearIndex(groupKey);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        rowInvalidation.clearIndexes();
+    }
+
+    protected String cacheName(QueryMetadata metadata) {
+        String cacheGroup = metadata.getCacheGroup();
+        return cacheGroup != null ? cacheGroup : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+/**
+ * Defines how row-level cache invalidation handles inserts, as there's no way to tell whether a new row would be
+ * matched by a cached query.
+ * <p>
+ * The same limitation applies to updates: an update evicts only the entries that already contain the updated row,
+ * so an UPDATE that makes a row match a cached query (i.e. moves the row <i>into</i> a cached result) does not
+ * evict that result. Such a result stays stale until it expires, or until another change evicts it. Cache groups
+ * whose queries filter on mutable attributes should use a short TTL or group invalidation instead.
+ *
+ * @since 4.0
+ */
+public enum RowInsertPolicy {
+
+    /**
+     * An insert evicts all the group entries whose queries are rooted in the inserted entity.
+     */
+    EVICT_ENTITY,
+
+    /**
+     * Inserts do not evict anything. Suitable for the groups whose queries select by PK or otherwise never match
+     * newly inserted rows, or when the new rows may appear in the results with a delay (up to TTL).
+     */
+    IGNORE
+}
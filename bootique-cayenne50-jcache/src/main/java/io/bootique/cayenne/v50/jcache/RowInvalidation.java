@@ -0,0 +1,252 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.map.EntityResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryRemovedListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Evicts the cache entries affected by committed changes, based on per-group {@link GroupRowIndex}es, instead of
+ * invalidating whole cache groups. Only the local commits are seen by this node, so if the invalidation broadcast is
+ * enabled, the evictions are published to the other nodes of the cluster.
+ *
+ * @since 4.0
+ */
+public class RowInvalidation {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RowInvalidation.class);
+
+    private final Map<String, GroupRowIndex> indexes;
+    private final CacheManager cacheManager;
+    private final Supplier<EntityResolver> entityResolver;
+    private final List<CacheEntryEvictor> evictors;
+    private volatile InvalidationBroadcaster broadcaster;
+
+    RowInvalidation(
+            Map<String, GroupRowIndex> indexes,
+            CacheManager cacheManager,
+            Supplier<EntityResolver> entityResolver) {
+
+        this.indexes = indexes;
+        this.cacheManager = cacheManager;
+        this.entityResolver = entityResolver;
+        this.evictors = new CopyOnWriteArrayList<>();
+        this.evictors.add(new JCacheEvictor(cacheManager));
+    }
+
+    /**
+     * Subscribes the group indexes to the entry removal events of the group caches. Must be called after the caches
+     * are created.
+     */
+    public void trackRemovals() {
+        indexes.values().forEach(this::trackRemovals);
+    }
+
+    public boolean hasGroups() {
+        return !indexes.isEmpty();
+    }
+
+    GroupRowIndex getIndex(String group) {
+        return indexes.get(group);
+    }
+
+    void addEvictor(CacheEntryEvictor evictor) {
+        evictors.add(evictor);
+    }
+
+    /**
+     * Sets a broadcaster to publish the commit-driven evictions to the other nodes of the cluster.
+     */
+    void setBroadcaster(InvalidationBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Returns an evictor that applies the evictions received from the other nodes, without publishing them again.
+     */
+    CacheEntryEvictor localEvictor() {
+        return new CacheEntryEvictor() {
+
+            @Override
+            public void evict(String group, Set<String> keys) {
+                RowInvalidation.this.evict(group, keys);
+            }
+
+            @Override
+            public void evictGroup(String group) {
+                RowInvalidation.this.evictGroup(group);
+            }
+        };
+    }
+
+    /**
+     * Evicts the cache entries affected by the provided changes.
+     */
+    public void invalidate(List<? extends ObjectChange> changes) {
+        if (changes.isEmpty() || indexes.isEmpty()) {
+            return;
+        }
+
+        EntityResolver resolver = entityResolver.get();
+        List<GroupRowIndex.RowChange> rowChanges = new ArrayList<>(changes.size());
+        for (ObjectChange c : changes) {
+            rowChanges.add(GroupRowIndex.RowChange.of(c, resolver));
+        }
+
+        for (GroupRowIndex index : indexes.values()) {
+            invalidate(index, rowChanges);
+        }
+    }
+
+    void evict(String group, Set<String> keys) {
+        GroupRowIndex index = indexes.get(group);
+        if (index != null) {
+            index.remove(keys);
+        }
+
+        for (CacheEntryEvictor e : evictors) {
+            e.evict(group, keys);
+        }
+    }
+
+    void evictGroup(String group) {
+        GroupRowIndex index = indexes.get(group);
+        if (index != null) {
+            index.clear();
+        }
+
+        for (CacheEntryEvictor e : evictors) {
+            e.evictGroup(group);
+        }
+    }
+
+    void clearIndex(String group) {
+        GroupRowIndex index = indexes.get(group);
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    void clearIndexes() {
+        indexes.values().forEach(GroupRowIndex::clear);
+    }
+
+    private void invalidate(GroupRowIndex index, List<GroupRowIndex.RowChange> changes) {
+
+        InvalidationBroadcaster broadcaster = this.broadcaster;
+
+        if (index.isUntracked()) {
+            evictGroup(index.getGroup());
+            if (broadcaster != null) {
+                broadcaster.enqueue(index.getGroup());
+            }
+            return;
+        }
+
+        Set<String> keys = new HashSet<>();
+        index.collectAffectedKeys(changes, keys);
+
+        if (!keys.isEmpty()) {
+            evict(index.getGroup(), keys);
+            if (broadcaster != null) {
+                broadcaster.enqueue(index.getGroup(), keys);
+            }
+        }
+    }
+
+    // keeps the index from accumulating the keys of the entries that expired or were removed by the provider
+    private void trackRemovals(GroupRowIndex index) {
+
+        Cache<String, List> cache = cacheManager.getCache(index.getGroup(), String.class, List.class);
+        if (cache == null) {
+            LOGGER.warn("No cache found for row invalidation group '{}'", index.getGroup());
+            return;
+        }
+
+        cache.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<>(
+                new FactoryBuilder.SingletonFactory<>(new RemovalListener(index)),
+                null,
+                false,
+                true));
+    }
+
+    static class RemovalListener implements CacheEntryExpiredListener<String, List>, CacheEntryRemovedListener<String, List> {
+
+        private final GroupRowIndex index;
+
+        RemovalListener(GroupRowIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends String, ? extends List>> events) {
+            onRemoved(events);
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends String, ? extends List>> events) {
+            for (CacheEntryEvent<? extends String, ? extends List> e : events) {
+                index.onEntryRemoved(e.getKey());
+            }
+        }
+    }
+
+    static class JCacheEvictor implements CacheEntryEvictor {
+
+        private final CacheManager cacheManager;
+
+        JCacheEvictor(CacheManager cacheManager) {
+            this.cacheManager = cacheManager;
+        }
+
+        @Override
+        public void evict(String group, Set<String> keys) {
+            Cache<String, List> cache = cacheManager.getCache(group, String.class, List.class);
+            if (cache != null) {
+                cache.removeAll(keys);
+            }
+        }
+
+        @Override
+        public void evictGroup(String group) {
+            Cache<String, List> cache = cacheManager.getCache(group, String.class, List.class);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
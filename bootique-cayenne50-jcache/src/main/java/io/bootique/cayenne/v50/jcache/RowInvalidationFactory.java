@@ -0,0 +1,56 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Row-level invalidation of a cache group driven by the commit log")
+public class RowInvalidationFactory {
+
+    private static final int DEFAULT_MAX_INDEXED_ENTRIES = 100_000;
+
+    private RowInsertPolicy insertPolicy;
+    private int maxIndexedEntries;
+
+    @BQConfigProperty("""
+            How to handle inserts. 'EVICT_ENTITY' evicts all group entries whose queries are rooted in the inserted
+            entity. 'IGNORE' doesn't evict anything on insert. The default is 'EVICT_ENTITY'.""")
+    public void setInsertPolicy(RowInsertPolicy insertPolicy) {
+        this.insertPolicy = insertPolicy;
+    }
+
+    @BQConfigProperty("""
+            The maximum number of cache entries tracked by the row index. If exceeded, the group falls back to
+            evicting all entries on any change, until its index is reset. The default is 100000.""")
+    public void setMaxIndexedEntries(int maxIndexedEntries) {
+        this.maxIndexedEntries = maxIndexedEntries;
+    }
+
+    GroupRowIndex createIndex(String group) {
+        return new GroupRowIndex(
+                group,
+                insertPolicy != null ? insertPolicy : RowInsertPolicy.EVICT_ENTITY,
+                maxIndexedEntries > 0 ? maxIndexedEntries : DEFAULT_MAX_INDEXED_ENTRIES);
+    }
+}
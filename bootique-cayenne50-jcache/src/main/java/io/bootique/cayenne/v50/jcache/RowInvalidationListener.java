@@ -0,0 +1,43 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+
+/**
+ * A post-commit listener that passes committed changes to {@link RowInvalidation}.
+ *
+ * @since 4.0
+ */
+public class RowInvalidationListener implements CommitLogListener {
+
+    private final RowInvalidation rowInvalidation;
+
+    public RowInvalidationListener(RowInvalidation rowInvalidation) {
+        this.rowInvalidation = rowInvalidation;
+    }
+
+    @Override
+    public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+        rowInvalidation.invalidate(changes.getUniqueChanges());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Bytes;
+import org.apache.cayenne.map.EntityResolver;
+
+import java.util.function.Supplier;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Settings of the compact serializer of the cached query results")
+public class SerializationFactory {
+
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private boolean compression;
+    private Bytes compressionThreshold;
+
+    @BQConfigProperty("""
+            Whether to compress the serialized results larger than 'compressionThreshold'. The default is
+            'false'.""")
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    @BQConfigProperty("The minimal size of a serialized result to be compressed. The default is '1kb'.")
+    public void setCompressionThreshold(Bytes compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public ResultSerializer createSerializer(Supplier<EntityResolver> entityResolver) {
+        int threshold = compressionThreshold != null
+                ? (int) Math.min(Integer.MAX_VALUE, compressionThreshold.getBytes())
+                : DEFAULT_COMPRESSION_THRESHOLD;
+
+        return new CompactResultSerializer(entityResolver, compression, threshold);
+    }
+}
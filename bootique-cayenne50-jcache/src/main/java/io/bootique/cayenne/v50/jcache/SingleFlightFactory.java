@@ -0,0 +1,48 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.cache.QueryCache;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Collapses concurrent query cache misses for the same key into a single query")
+public class SingleFlightFactory {
+
+    private static final long DEFAULT_WAIT_TIMEOUT_MS = 10_000;
+
+    private Duration waitTimeout;
+
+    @BQConfigProperty("""
+            How long the concurrent callers wait for the query started by the first caller, before running the query
+            themselves. The default is 10s.""")
+    public void setWaitTimeout(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public QueryCache createQueryCache(QueryCache delegate) {
+        long waitTimeoutMs = waitTimeout != null ? waitTimeout.getDuration().toMillis() : DEFAULT_WAIT_TIMEOUT_MS;
+        return new SingleFlightQueryCache(delegate, waitTimeoutMs);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.query.QueryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A QueryCache decorator that collapses concurrent cache misses for the same key into a single query. The first
+ * caller that misses runs the query, while the concurrent callers for the same key wait for its result. If the wait
+ * exceeds the configured timeout or the first caller fails, the waiting callers run the query themselves.
+ *
+ * @since 4.0
+ */
+public class SingleFlightQueryCache implements QueryCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlightQueryCache.class);
+
+    private final QueryCache delegate;
+    private final long waitTimeoutMs;
+    private final ConcurrentMap<QueryCacheKey, CompletableFuture<List>> inFlight;
+
+    public SingleFlightQueryCache(QueryCache delegate, long waitTimeoutMs) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        List result = delegate.get(metadata);
+        if (result != null) {
+            return result;
+        }
+
+        QueryCacheKey key = new QueryCacheKey(metadata.getCacheGroup(), metadata.getCacheKey());
+        CompletableFuture<List> flight = new CompletableFuture<>();
+        CompletableFuture<List> existing = inFlight.putIfAbsent(key, flight);
+
+        return existing != null
+                ? await(existing, factory)
+                : lead(key, flight, metadata, factory);
+    }
+
+    private List lead(QueryCacheKey key, CompletableFuture<List> flight, QueryMetadata metadata, QueryCacheEntryFactory factory) {
+        try {
+
+            // the delegate rechecks the cache, runs the query on a miss and stores the result
+            List result = delegate.get(metadata, factory);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private List await(CompletableFuture<List> flight, QueryCacheEntryFactory factory) {
+        try {
+            return flight.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.debug("Timed out waiting for a concurrent query cache load, running the query directly");
+        } catch (ExecutionException e) {
+            LOGGER.debug("Concurrent query cache load failed, running the query directly", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return factory.createObject();
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
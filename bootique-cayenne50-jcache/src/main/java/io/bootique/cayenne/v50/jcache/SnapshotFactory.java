@@ -0,0 +1,88 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+
+import javax.cache.CacheManager;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Persisting the contents of selected query cache groups between the app restarts")
+public class SnapshotFactory {
+
+    private String file;
+    private List<String> groups;
+    private Boolean loadOnStartup;
+
+    @BQConfigProperty("A local file where the snapshot is saved on shutdown. Required.")
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    @BQConfigProperty("Names of the cache groups to include in the snapshot.")
+    public void setGroups(List<String> groups) {
+        this.groups = groups;
+    }
+
+    @BQConfigProperty("Whether to reload the snapshot in the background on startup. The default is 'true'.")
+    public void setLoadOnStartup(boolean loadOnStartup) {
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    /**
+     * @param retentionResolver returns the retention time of a group, or null if unlimited
+     * @param groupFilter       allows to exclude the groups that can't be snapshotted
+     */
+    public QueryCacheSnapshot createSnapshot(
+            CacheManager cacheManager,
+            Function<String, Duration> retentionResolver,
+            Predicate<String> groupFilter) {
+
+        if (file == null) {
+            throw new IllegalStateException("Query cache snapshot 'file' is not set");
+        }
+
+        // HashMap, as the retention can be null
+        Map<String, Duration> retentionByGroup = new HashMap<>();
+        if (groups != null) {
+            for (String g : groups) {
+                if (groupFilter.test(g)) {
+                    retentionByGroup.put(g, retentionResolver.apply(g));
+                }
+            }
+        }
+
+        return new QueryCacheSnapshot(
+                Path.of(file),
+                retentionByGroup,
+                cacheManager,
+                loadOnStartup != null ? loadOnStartup : true);
+    }
+}
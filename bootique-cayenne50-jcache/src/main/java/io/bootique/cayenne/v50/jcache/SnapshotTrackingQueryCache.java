@@ -0,0 +1,78 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A QueryCache decorator that reports cache group invalidations to the {@link QueryCacheSnapshot}, before passing
+ * them to the wrapped cache. This prevents the background snapshot loader from restoring the entries of a group
+ * invalidated after the app startup.
+ *
+ * @since 4.0
+ */
+public class SnapshotTrackingQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final QueryCacheSnapshot snapshot;
+
+    public SnapshotTrackingQueryCache(QueryCache delegate, QueryCacheSnapshot snapshot) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.snapshot = Objects.requireNonNull(snapshot);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+        return delegate.get(metadata, factory);
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        snapshot.onGroupInvalidated(groupKey);
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        snapshot.onGroupInvalidated(groupKey);
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Override
+    public void clear() {
+        snapshot.onAllInvalidated();
+        delegate.clear();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A QueryCache decorator implementing "stale-while-revalidate" mode for the configured cache groups. The results of
+ * such groups are stored with a freshness deadline, and are kept in the cache for a while after that. When a stale
+ * result is read, it is still returned to the caller, while a background refresh reruns the query through the
+ * normal DataChannel filter chain and replaces the cached result.
+ * <p>
+ * As QueryCache is not aware of the queries, they are captured by {@link RevalidationQueryFilter}, which must be
+ * installed together with this cache. The query objects are not thread-safe, and the caller may change its query
+ * once it gets the result, so the background refresh runs a copy of the query made on the calling thread. The
+ * queries that can't be copied (i.e. serialized) are not refreshed, and their stale entries stay in the cache until
+ * they expire.
+ *
+ * @since 4.0
+ */
+public class StaleWhileRevalidateQueryCache implements QueryCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaleWhileRevalidateQueryCache.class);
+
+    static final ThreadLocal<Query> CURRENT_QUERY = new ThreadLocal<>();
+
+    private final QueryCache delegate;
+    private final Map<String, Long> freshnessByGroup;
+    private final Executor refreshExecutor;
+    private final Supplier<ObjectContext> contextFactory;
+    private final Set<QueryCacheKey> refreshing;
+
+    public StaleWhileRevalidateQueryCache(
+            QueryCache delegate,
+            Map<String, Long> freshnessByGroup,
+            Executor refreshExecutor,
+            Supplier<ObjectContext> contextFactory) {
+
+        this.delegate = Objects.requireNonNull(delegate);
+        this.freshnessByGroup = Objects.requireNonNull(freshnessByGroup);
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor);
+        this.contextFactory = Objects.requireNonNull(contextFactory);
+        this.refreshing = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        Long freshnessMs = freshnessByGroup.get(cacheName(metadata));
+        if (freshnessMs == null) {
+            return delegate.get(metadata, factory);
+        }
+
+        List result = delegate.get(metadata, () -> stamp(factory.createObject(), freshnessMs));
+        if (TimestampedList.isStale(result)) {
+            scheduleRefresh(metadata);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        Long freshnessMs = freshnessByGroup.get(cacheName(metadata));
+        delegate.put(metadata, freshnessMs != null ? stamp(results, freshnessMs) : results);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    protected String cacheName(QueryMetadata metadata) {
+        String cacheGroup = metadata.getCacheGroup();
+        return cacheGroup != null ? cacheGroup : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+
+    private static List stamp(List results, long freshnessMs) {
+        return results != null && !(results instanceof TimestampedList)
+                ? new TimestampedList(results, freshnessMs)
+                : results;
+    }
+
+    private void scheduleRefresh(QueryMetadata metadata) {
+
+        Query query = CURRENT_QUERY.get();
+        if (query == null) {
+            LOGGER.debug("Can't refresh a stale cache entry, as its query is unknown. "
+                    + "Is RevalidationQueryFilter installed?");
+            return;
+        }
+
+        // only one refresh per entry at a time
+        QueryCacheKey key = new QueryCacheKey(metadata.getCacheGroup(), metadata.getCacheKey());
+        if (!refreshing.add(key)) {
+            return;
+        }
+
+        Query snapshot;
+        try {
+            snapshot = copy(query);
+        } catch (IOException | ClassNotFoundException e) {
+            refreshing.remove(key);
+            LOGGER.debug("Can't refresh a stale cache entry in group '{}', as its query can't be copied",
+                    key.group(),
+                    e);
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> refresh(key, snapshot));
+        } catch (RejectedExecutionException e) {
+
+            // the refresh queue is full. The stale entry will be retried on the next read
+            refreshing.remove(key);
+        }
+    }
+
+    // copying via serialization, as there's no other generic way to copy a query
+    static Query copy(Query query) throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(query);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Query) in.readObject();
+        }
+    }
+
+    private void refresh(QueryCacheKey key, Query query) {
+        try {
+            contextFactory.get().performGenericQuery(new RefreshQuery(query));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to refresh stale query cache entry in group '{}'", key.group(), e);
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+}
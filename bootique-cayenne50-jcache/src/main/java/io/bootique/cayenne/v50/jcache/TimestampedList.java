@@ -0,0 +1,71 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A cached query result that remembers until when it is considered fresh. Uses wall clock time, as the value may be
+ * stored outside the JVM heap.
+ *
+ * @since 4.0
+ */
+class TimestampedList extends AbstractList<Object> implements RandomAccess, Serializable {
+
+    private final List<?> results;
+    private final long freshUntil;
+
+    TimestampedList(List<?> results, long freshnessMs) {
+        this(System.currentTimeMillis() + freshnessMs, results);
+    }
+
+    private TimestampedList(long freshUntil, List<?> results) {
+        this.results = results;
+        this.freshUntil = freshUntil;
+    }
+
+    /**
+     * Recreates a previously stored list with its original freshness deadline.
+     */
+    static TimestampedList restore(List<?> results, long freshUntil) {
+        return new TimestampedList(freshUntil, results);
+    }
+
+    long getFreshUntil() {
+        return freshUntil;
+    }
+
+    static boolean isStale(List<?> list) {
+        return list instanceof TimestampedList t && System.currentTimeMillis() > t.freshUntil;
+    }
+
+    @Override
+    public Object get(int index) {
+        return results.get(index);
+    }
+
+    @Override
+    public int size() {
+        return results.size();
+    }
+}
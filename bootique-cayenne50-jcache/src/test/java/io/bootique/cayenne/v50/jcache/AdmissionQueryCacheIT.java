@@ -0,0 +1,106 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.jcache.persistent.Table2;
+import io.bootique.cayenne.v50.junit.CayenneTester;
+import io.bootique.jdbc.junit.derby.DerbyTester;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import io.bootique.junit.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class AdmissionQueryCacheIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table2.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:admission.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void reject() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table2> small = ObjectSelect.query(Table2.class)
+                .where(Table2.NAME.startsWith("a"))
+                .sharedCache("g1");
+        ObjectSelect<Table2> large = ObjectSelect.query(Table2.class).sharedCache("g1");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, "b").insert(3, "c");
+        assertEquals(1, small.select(context).size());
+        assertEquals(3, large.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(4, "a1");
+
+        // the small result is cached, while the large one is rerun
+        assertEquals(1, small.select(context).size());
+        assertEquals(4, large.select(context).size());
+
+        Cache<String, List> jCache = runtime.getInstance(CacheManager.class).getCache("g1", String.class, List.class);
+        int entries = 0;
+        for (Cache.Entry<String, List> ignored : jCache) {
+            entries++;
+        }
+        assertEquals(1, entries);
+    }
+
+    @Test
+    public void separate() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table2> large = ObjectSelect.query(Table2.class).sharedCache("g2");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, "b").insert(3, "c");
+        assertEquals(3, large.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(4, "d");
+
+        // the large result is served from the separate cache
+        assertEquals(3, large.select(context).size());
+
+        Cache<String, List> jCache = runtime.getInstance(CacheManager.class).getCache("g2", String.class, List.class);
+        assertFalse(jCache.iterator().hasNext());
+
+        cayenne.getRuntime().getDataDomain().getQueryCache().removeGroup("g2");
+        assertEquals(4, large.select(context).size());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.jcache.persistent.Table1;
+import io.bootique.cayenne.v50.junit.CayenneTester;
+import io.bootique.jdbc.junit.derby.DerbyTester;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import io.bootique.junit.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class BroadcastingQueryCacheIT {
+
+    static final LoopbackInvalidationTransport transport = new LoopbackInvalidationTransport();
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:broadcast.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .module(b -> CayenneJCacheModule.extend(b).addInvalidationTransport(transport))
+            .createRuntime();
+
+    @Test
+    public void cacheProvider() {
+        QueryCache cache = cayenne.getRuntime().getInjector().getInstance(QueryCache.class);
+        assertTrue(cache instanceof BroadcastingQueryCache, "Unexpected cache type: " + cache.getClass().getName());
+    }
+
+    @Test
+    public void publish() throws InterruptedException {
+
+        List<InvalidationMessage> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        transport.subscribe(m -> {
+            received.add(m);
+            latch.countDown();
+        });
+
+        QueryCache cache = cayenne.getRuntime().getDataDomain().getQueryCache();
+        cache.removeGroup("g1");
+        cache.removeGroup("g2");
+        cache.removeGroup("g1");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        // all invalidations within the batch window must be deduplicated and published as a single message
+        assertEquals(1, received.size());
+        assertEquals("n1", received.get(0).origin());
+        assertEquals(Set.of("g1", "g2"), received.get(0).groups());
+    }
+
+    @Test
+    public void receive() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g3 = ObjectSelect.query(Table1.class).sharedCache("g3");
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, g3.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2);
+        assertEquals(2, g3.select(context).size());
+
+        // own messages must be ignored
+        transport.publish(new InvalidationMessage("n1", Set.of("g3")));
+        assertEquals(2, g3.select(context).size());
+
+        transport.publish(new InvalidationMessage("n2", Set.of("g3")));
+        assertEquals(3, g3.select(context).size());
+    }
+
+    @Test
+    public void receiveEntries() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g4 = ObjectSelect.query(Table1.class).sharedCache("g4");
+        String key = g4.getMetaData(cayenne.getRuntime().getDataDomain().getEntityResolver()).getCacheKey();
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, g4.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2);
+        assertEquals(2, g4.select(context).size());
+
+        transport.publish(new InvalidationMessage("n2", Set.of(), Map.of("g4", Set.of("no-such-key"))));
+        assertEquals(2, g4.select(context).size());
+
+        transport.publish(new InvalidationMessage("n2", Set.of(), Map.of("g4", Set.of(key))));
+        assertEquals(3, g4.select(context).size());
+    }
+
+    @Test
+    public void enqueueAfterShutdown() {
+
+        LoopbackInvalidationTransport localTransport = new LoopbackInvalidationTransport();
+        List<InvalidationMessage> received = new CopyOnWriteArrayList<>();
+        localTransport.subscribe(received::add);
+
+        InvalidationBroadcaster broadcaster = new InvalidationBroadcaster(
+                "n3",
+                Set.of(localTransport),
+                Executors.newSingleThreadScheduledExecutor(),
+                100);
+        broadcaster.shutdown();
+
+        // must be published right away instead of failing
+        broadcaster.enqueue("g1");
+        broadcaster.enqueue("g2", Set.of("k1"));
+
+        assertEquals(2, received.size());
+        assertEquals(Set.of("g1"), received.get(0).groups());
+        assertEquals(Map.of("g2", Set.of("k1")), received.get(1).entries());
+    }
+}
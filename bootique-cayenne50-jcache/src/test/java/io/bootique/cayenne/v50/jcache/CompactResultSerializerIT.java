@@ -0,0 +1,134 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.jcache.persistent.Table2;
+import io.bootique.cayenne.v50.junit.CayenneTester;
+import io.bootique.jdbc.junit.derby.DerbyTester;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import io.bootique.junit.BQTestTool;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class CompactResultSerializerIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table2.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:serialization.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void roundTrip() throws Exception {
+
+        ResultSerializer serializer = new CompactResultSerializer(
+                () -> cayenne.getRuntime().getDataDomain().getEntityResolver(),
+                true,
+                64);
+
+        List<Object> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            DataRow row = new DataRow(2);
+            row.setEntityName("Table2");
+            row.put("id", (long) i);
+            row.put("name", i % 10 == 0 ? null : "name" + i);
+            rows.add(row);
+        }
+        rows.add(null);
+        rows.add(new Object[]{"x", 5});
+
+        byte[] bytes = serializer.serialize(rows);
+        List<?> restored = serializer.deserialize(bytes);
+
+        assertEquals(rows.size(), restored.size());
+        assertEquals(rows.subList(0, 101), restored.subList(0, 101));
+        assertArrayEquals((Object[]) rows.get(101), (Object[]) restored.get(101));
+        assertEquals("Table2", ((DataRow) restored.get(5)).getEntityName());
+
+        ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(javaBytes)) {
+            out.writeObject(rows);
+        }
+
+        assertTrue(bytes.length < javaBytes.size() / 2, bytes.length + " vs. " + javaBytes.size());
+    }
+
+    @Test
+    public void deserialize_TruncatedCompressed() throws Exception {
+
+        ResultSerializer serializer = new CompactResultSerializer(
+                () -> cayenne.getRuntime().getDataDomain().getEntityResolver(),
+                true,
+                64);
+
+        List<Object> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add("value" + i);
+        }
+
+        byte[] bytes = serializer.serialize(rows);
+        assertEquals(CompactResultSerializer.FLAG_COMPRESSED, bytes[0] & CompactResultSerializer.FLAG_COMPRESSED);
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 10);
+        assertThrows(IOException.class, () -> serializer.deserialize(truncated));
+    }
+
+    @Test
+    public void offHeapGroup() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table2> g1 = ObjectSelect.query(Table2.class).orderBy(Table2.NAME.asc()).sharedCache("g1");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, "b");
+        assertEquals(2, g1.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(3, "c");
+
+        List<Table2> cached = g1.select(cayenne.getRuntime().newContext());
+        assertEquals(2, cached.size());
+        assertEquals("a", cached.get(0).getName());
+        assertEquals("b", cached.get(1).getName());
+    }
+}
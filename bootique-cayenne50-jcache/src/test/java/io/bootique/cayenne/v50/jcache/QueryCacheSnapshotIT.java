@@ -0,0 +1,106 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.jcache.persistent.Table2;
+import io.bootique.cayenne.v50.junit.CayenneTester;
+import io.bootique.jdbc.junit.derby.DerbyTester;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import io.bootique.junit.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class QueryCacheSnapshotIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table2.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:snapshot.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void saveAndLoad() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table2> g1 = ObjectSelect.query(Table2.class).sharedCache("g1");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, null);
+        assertEquals(2, g1.select(context).size());
+
+        QueryCacheSnapshot snapshot = runtime.getInstance(QueryCacheSnapshot.class);
+        snapshot.save();
+        assertTrue(Files.isRegularFile(Path.of("target/cache-snapshot/snapshot.bin")));
+
+        Cache<String, List> jCache = runtime.getInstance(CacheManager.class).getCache("g1", String.class, List.class);
+        jCache.clear();
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(3, "c");
+        snapshot.load();
+
+        // must be served from the restored cache
+        List<Table2> restored = g1.select(cayenne.getRuntime().newContext());
+        assertEquals(2, restored.size());
+        assertTrue(restored.stream().anyMatch(o -> "a".equals(o.getName())));
+    }
+
+    @Test
+    public void invalidatedGroupNotLoaded() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table2> g2 = ObjectSelect.query(Table2.class).sharedCache("g2");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, "b");
+        assertEquals(2, g2.select(context).size());
+
+        QueryCacheSnapshot snapshot = runtime.getInstance(QueryCacheSnapshot.class);
+        snapshot.save();
+
+        // the group is invalidated after the startup, so the snapshot entries may be stale
+        db.getTable(cayenne.getTableName(Table2.class)).insert(3, "c");
+        cayenne.getRuntime().getInjector().getInstance(QueryCache.class).removeGroup("g2");
+        snapshot.load();
+
+        assertEquals(3, g2.select(cayenne.getRuntime().newContext()).size());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.jcache.persistent.Table2;
+import io.bootique.cayenne.v50.jcache.persistent.Table2Sub;
+import io.bootique.cayenne.v50.junit.CayenneTester;
+import io.bootique.jdbc.junit.derby.DerbyTester;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import io.bootique.junit.BQTestTool;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class RowInvalidationIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table2.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:rows.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .module(b -> CayenneJCacheModule.extend(b).enableRowInvalidation())
+            .createRuntime();
+
+    @Test
+    public void cacheProvider() {
+        QueryCache cache = cayenne.getRuntime().getInjector().getInstance(QueryCache.class);
+        assertTrue(cache instanceof RowIndexingQueryCache, "Unexpected cache type: " + cache.getClass().getName());
+    }
+
+    @Test
+    public void updateAndInsert() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table2> qa = ObjectSelect.query(Table2.class).where(Table2.NAME.startsWith("a")).sharedCache("g1");
+        ObjectSelect<Table2> qb = ObjectSelect.query(Table2.class).where(Table2.NAME.eq("b")).sharedCache("g1");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, "b");
+        assertEquals(1, qa.select(context).size());
+        assertEquals(1, qb.select(context).size());
+
+        // bypassing Cayenne, so the cached results must stay unchanged
+        db.getTable(cayenne.getTableName(Table2.class)).insert(3, "a2");
+        assertEquals(1, qa.select(context).size());
+
+        // an update of the row present only in "qb" must evict "qb", but not "qa"
+        ObjectContext updateContext = cayenne.getRuntime().newContext();
+        Table2 b = ObjectSelect.query(Table2.class).where(Table2.NAME.eq("b")).selectOne(updateContext);
+        b.setName("bb");
+        updateContext.commitChanges();
+
+        assertEquals(0, qb.select(context).size());
+        assertEquals(1, qa.select(context).size());
+
+        // with the EVICT_ENTITY policy, an insert must evict all Table2 results
+        Table2 c = updateContext.newObject(Table2.class);
+        c.getObjectId().getReplacementIdMap().put("id", 4L);
+        c.setName("c");
+        updateContext.commitChanges();
+
+        assertEquals(2, qa.select(context).size());
+    }
+
+    @Test
+    public void inheritance() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+
+        // the cached rows are keyed by the query root, while the committed changes carry the subentity
+        ObjectSelect<DataRow> qRows = ObjectSelect
+                .dataRowQuery(Table2.class)
+                .where(Table2.NAME.startsWith("sub"))
+                .sharedCache("g1");
+        ObjectSelect<Table2> qAll = ObjectSelect.query(Table2.class).sharedCache("g1");
+
+        db.getTable(cayenne.getTableName(Table2.class)).insert(1, "a").insert(2, "sub1");
+
+        List<DataRow> rows = qRows.select(context);
+        assertEquals(1, rows.size());
+        assertEquals("sub1", rows.get(0).get("name"));
+        assertEquals(2, qAll.select(context).size());
+
+        // an update of the subentity row must evict the result rooted in the super entity
+        ObjectContext updateContext = cayenne.getRuntime().newContext();
+        Table2 sub = ObjectSelect.query(Table2.class).where(Table2.NAME.eq("sub1")).selectOne(updateContext);
+        assertTrue(sub instanceof Table2Sub);
+        sub.setName("sub1x");
+        updateContext.commitChanges();
+
+        rows = qRows.select(context);
+        assertEquals(1, rows.size());
+        assertEquals("sub1x", rows.get(0).get("name"));
+
+        // with the EVICT_ENTITY policy, an insert of the subentity must evict the results rooted in the super entity
+        Table2Sub sub2 = updateContext.newObject(Table2Sub.class);
+        sub2.getObjectId().getReplacementIdMap().put("id", 3L);
+        sub2.setName("sub2");
+        updateContext.commitChanges();
+
+        assertEquals(3, qAll.select(context).size());
+        assertEquals(2, qRows.select(context).size());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.jcache;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.jcache.persistent.Table1;
+import io.bootique.cayenne.v50.junit.CayenneTester;
+import io.bootique.jdbc.junit.derby.DerbyTester;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import io.bootique.junit.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.Query;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class StaleWhileRevalidateQueryCacheIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:swr.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void staleWhileRevalidate() throws InterruptedException {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g1 = ObjectSelect.query(Table1.class).sharedCache("g1");
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, g1.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2).insert(44);
+
+        // still fresh
+        assertEquals(2, g1.select(context).size());
+
+        Thread.sleep(300);
+
+        // stale, but must be served from cache while being refreshed
+        assertEquals(2, g1.select(context).size());
+
+        long timeout = System.currentTimeMillis() + 5_000;
+        int size;
+        while ((size = g1.select(context).size()) != 4 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(4, size, "Stale entry was not refreshed");
+    }
+
+    @Test
+    public void refreshRunsQueryCopy() throws Exception {
+
+        EntityResolver resolver = cayenne.getRuntime().getDataDomain().getEntityResolver();
+        ObjectSelect<Table1> query = ObjectSelect.query(Table1.class).sharedCache("g1");
+        String key = query.getMetaData(resolver).getCacheKey();
+
+        Query copy = StaleWhileRevalidateQueryCache.copy(query);
+        assertNotSame(query, copy);
+
+        // the caller may change its query while the refresh is running
+        query.where(ExpressionFactory.exp("db:id = 1"));
+        assertNotEquals(key, query.getMetaData(resolver).getCacheKey());
+        assertEquals(key, copy.getMetaData(resolver).getCacheKey());
+    }
+}
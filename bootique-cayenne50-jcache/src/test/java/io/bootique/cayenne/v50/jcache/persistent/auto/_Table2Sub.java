@@ -0,0 +1,22 @@
+package io.bootique.cayenne.v50.jcache.persistent.auto;
+
+import io.bootique.cayenne.v50.jcache.persistent.Table2;
+import io.bootique.cayenne.v50.jcache.persistent.Table2Sub;
+import org.apache.cayenne.exp.property.PropertyFactory;
+import org.apache.cayenne.exp.property.SelfProperty;
+
+/**
+ * Class _Table2Sub was generated by Cayenne.
+ * It is probably a good idea to avoid changing this class manually,
+ * since it may be overwritten next time code is regenerated.
+ * If you need to make any customizations, please use subclass.
+ */
+public abstract class _Table2Sub extends Table2 {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final SelfProperty<Table2Sub> SELF = PropertyFactory.createSelf(Table2Sub.class);
+
+    public static final String ID_PK_COLUMN = "id";
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.localcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures heap-only Cayenne query cache")
+public class CayenneLocalCacheFactory {
+
+    private Map<String, LocalCacheGroupFactory> groups;
+    private LocalCacheGroupFactory defaultGroup;
+
+    @BQConfigProperty("""
+            Per-group cache policies. The keys are Cayenne cache group names. The groups not configured here use
+            the 'defaultGroup' policy.""")
+    public void setGroups(Map<String, LocalCacheGroupFactory> groups) {
+        this.groups = groups;
+    }
+
+    @BQConfigProperty("""
+            The policy of the groups not explicitly configured in 'groups', including the queries without a cache
+            group. If not set, each such group is limited to 2000 entries with no expiration.""")
+    public void setDefaultGroup(LocalCacheGroupFactory defaultGroup) {
+        this.defaultGroup = defaultGroup;
+    }
+
+    public LocalQueryCache createQueryCache() {
+
+        Map<String, LocalCacheGroupFactory> groups = this.groups != null ? this.groups : Map.of();
+        LocalCacheGroupFactory defaultGroup = this.defaultGroup != null
+                ? this.defaultGroup
+                : new LocalCacheGroupFactory();
+
+        Map<String, LocalCacheGroupFactory> policies = new HashMap<>(groups);
+        return new LocalQueryCache(g -> policies.getOrDefault(g, defaultGroup).createCache());
+    }
+}
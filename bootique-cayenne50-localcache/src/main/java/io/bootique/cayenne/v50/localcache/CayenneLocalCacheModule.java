@@ -0,0 +1,103 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.localcache;
+
+import io.bootique.BQModule;
+import io.bootique.ModuleCrate;
+import io.bootique.cayenne.v50.CayenneModule;
+import io.bootique.config.ConfigurationFactory;
+import io.bootique.di.Binder;
+import io.bootique.di.Key;
+import io.bootique.di.Provides;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.invalidation.CacheInvalidationModule;
+import org.apache.cayenne.cache.invalidation.CacheInvalidationModuleExtender;
+import org.apache.cayenne.cache.invalidation.InvalidationHandler;
+
+import jakarta.inject.Qualifier;
+import jakarta.inject.Singleton;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Set;
+
+/**
+ * Bootique DI module that replaces Cayenne query cache with a heap-only W-TinyLFU cache.
+ *
+ * @since 4.0
+ */
+public class CayenneLocalCacheModule implements BQModule {
+
+    // can't use "cayenne.localcache", as "cayenne" root is owned by CayenneRuntimeFactory
+    private static final String CONFIG_PREFIX = "cayennelocalcache";
+
+    /**
+     * @param binder DI binder passed to the Module that invokes this method.
+     * @return an instance of {@link CayenneLocalCacheModuleExtender} that can be used to load Cayenne cache
+     * custom extensions.
+     */
+    public static CayenneLocalCacheModuleExtender extend(Binder binder) {
+        return new CayenneLocalCacheModuleExtender(binder);
+    }
+
+    @Override
+    public ModuleCrate crate() {
+        return ModuleCrate.of(this)
+                .description("Provides heap-only query cache for Apache Cayenne 5.0")
+                .config(CONFIG_PREFIX, CayenneLocalCacheFactory.class)
+                .build();
+    }
+
+    @Override
+    public void configure(Binder binder) {
+        extend(binder).initAllExtensions();
+
+        CayenneModule.extend(binder)
+                .addModule(Key.get(org.apache.cayenne.di.Module.class, DefinedInCayenneLocalCache.class));
+    }
+
+    @Singleton
+    @Provides
+    LocalQueryCache provideLocalQueryCache(ConfigurationFactory configFactory) {
+        return configFactory.config(CayenneLocalCacheFactory.class, CONFIG_PREFIX).createQueryCache();
+    }
+
+    @Singleton
+    @Provides
+    @DefinedInCayenneLocalCache
+    org.apache.cayenne.di.Module provideDiLocalCacheModule(
+            LocalQueryCache queryCache,
+            Set<InvalidationHandler> invalidationHandlers) {
+
+        return b -> {
+            CacheInvalidationModuleExtender extender = CacheInvalidationModule.extend(b);
+            invalidationHandlers.forEach(extender::addHandler);
+
+            b.bind(QueryCache.class).toInstance(queryCache);
+        };
+    }
+
+    @Target({ElementType.PARAMETER, ElementType.FIELD, ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    @Qualifier
+    @interface DefinedInCayenneLocalCache {
+    }
+}
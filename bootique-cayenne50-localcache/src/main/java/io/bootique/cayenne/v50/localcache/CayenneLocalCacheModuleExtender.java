@@ -0,0 +1,55 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.localcache;
+
+import io.bootique.ModuleExtender;
+import io.bootique.di.Binder;
+import io.bootique.di.SetBuilder;
+import org.apache.cayenne.cache.invalidation.InvalidationHandler;
+
+/**
+ * @since 4.0
+ */
+public class CayenneLocalCacheModuleExtender extends ModuleExtender<CayenneLocalCacheModuleExtender> {
+
+    public CayenneLocalCacheModuleExtender(Binder binder) {
+        super(binder);
+    }
+
+    @Override
+    public CayenneLocalCacheModuleExtender initAllExtensions() {
+        contributeInvalidationHandler();
+        return this;
+    }
+
+    public CayenneLocalCacheModuleExtender addInvalidationHandler(InvalidationHandler handler) {
+        contributeInvalidationHandler().addInstance(handler);
+        return this;
+    }
+
+    public CayenneLocalCacheModuleExtender addInvalidationHandler(Class<? extends InvalidationHandler> handlerType) {
+        contributeInvalidationHandler().add(handlerType);
+        return this;
+    }
+
+    protected SetBuilder<InvalidationHandler> contributeInvalidationHandler() {
+        return newSet(InvalidationHandler.class);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.localcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import io.bootique.value.Duration;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Size and expiration policy of a single Cayenne cache group")
+public class LocalCacheGroupFactory {
+
+    static final long DEFAULT_MAX_ENTRIES = 2000;
+
+    // an expected number of rows in a typical result, used to estimate the number of entries in a row-bounded cache
+    static final int AVERAGE_RESULT_ROWS = 16;
+
+    private long maxEntries;
+    private long maxWeight;
+    private Duration ttl;
+    private int concurrencyLevel;
+
+    @BQConfigProperty("The maximum number of cached query results in the group. The default is 2000.")
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @BQConfigProperty("""
+            The maximum total number of rows in the cached query results of the group. Takes precedence over
+            'maxEntries'. Useful when the result sizes vary a lot.""")
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    @BQConfigProperty("Time to live of the cached query results since they were stored, e.g. '5min'.")
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    @BQConfigProperty("""
+            The number of independently locked segments of the group cache. The default is derived from the CPU
+            count and the group size.""")
+    public void setConcurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+    }
+
+    public TinyLfuCache<String, List> createCache() {
+
+        long ttlMs = ttl != null ? ttl.getDuration().toMillis() : 0L;
+
+        if (maxWeight > 0) {
+            ToIntFunction<List> weigher = LocalCacheGroupFactory::weigh;
+            return concurrencyLevel > 0
+                    ? new TinyLfuCache<>(maxWeight, weigher, AVERAGE_RESULT_ROWS, ttlMs, concurrencyLevel)
+                    : TinyLfuCache.ofMaxWeight(maxWeight, weigher, AVERAGE_RESULT_ROWS, ttlMs);
+        }
+
+        long maxEntries = this.maxEntries > 0 ? this.maxEntries : DEFAULT_MAX_ENTRIES;
+        return concurrencyLevel > 0
+                ? new TinyLfuCache<>(maxEntries, l -> 1, ttlMs, concurrencyLevel)
+                : TinyLfuCache.ofMaxEntries(maxEntries, ttlMs);
+    }
+
+    private static int weigh(List<?> result) {
+        return Math.max(1, result.size());
+    }
+}
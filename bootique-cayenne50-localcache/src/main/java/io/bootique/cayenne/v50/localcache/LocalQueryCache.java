@@ -0,0 +1,127 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.localcache;
+
+import io.bootique.cayenne.v50.cache.TinyLfuCache;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A heap-only QueryCache, with a separate size- and TTL-bounded W-TinyLFU cache per cache group. Unlike Cayenne
+ * default map-based cache, it doesn't synchronize on a single lock, as each group cache is split into
+ * independently locked segments.
+ *
+ * @since 4.0
+ */
+public class LocalQueryCache implements QueryCache {
+
+    /**
+     * The name of the group holding the results of the queries with no explicit cache group.
+     */
+    public static final String DEFAULT_GROUP = "cayenne.default.cache";
+
+    private final ConcurrentMap<String, TinyLfuCache<String, List>> groups;
+    private final Function<String, TinyLfuCache<String, List>> groupCacheFactory;
+
+    public LocalQueryCache(Function<String, TinyLfuCache<String, List>> groupCacheFactory) {
+        this.groups = new ConcurrentHashMap<>();
+        this.groupCacheFactory = Objects.requireNonNull(groupCacheFactory);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        TinyLfuCache<String, List> cache = groups.get(cacheName(metadata));
+        return cache != null ? cache.get(metadata.getCacheKey()) : null;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        TinyLfuCache<String, List> cache = groupCache(cacheName(metadata));
+        String key = metadata.getCacheKey();
+
+        List result = cache.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        result = factory.createObject();
+        if (result == null) {
+            throw new CayenneRuntimeException("Null on cache rebuilding: %s", key);
+        }
+
+        cache.put(key, result);
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        if (results != null) {
+            groupCache(cacheName(metadata)).put(metadata.getCacheKey(), results);
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        TinyLfuCache<String, List> cache = groups.get(groupKey);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        // keys are always Strings and values are Lists
+        removeGroup(groupKey);
+    }
+
+    @Override
+    public void clear() {
+        groups.values().forEach(TinyLfuCache::clear);
+    }
+
+    /**
+     * Returns the number of the cached results in the group.
+     */
+    public long size(String group) {
+        TinyLfuCache<String, List> cache = groups.get(group);
+        return cache != null ? cache.size() : 0L;
+    }
+
+    protected TinyLfuCache<String, List> groupCache(String group) {
+
+        // "get" before "computeIfAbsent" to avoid locking a map bin on the hot path
+        TinyLfuCache<String, List> cache = groups.get(group);
+        return cache != null ? cache : groups.computeIfAbsent(group, groupCacheFactory);
+    }
+
+    protected String cacheName(QueryMetadata metadata) {
+        String cacheGroup = metadata.getCacheGroup();
+        return cacheGroup != null ? cacheGroup : DEFAULT_GROUP;
+    }
+}
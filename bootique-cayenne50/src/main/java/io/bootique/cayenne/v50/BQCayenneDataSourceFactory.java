@@ -19,23 +19,83 @@
 
 package io.bootique.cayenne.v50;
 
+import io.bootique.cayenne.v50.replica.ReplicaRoutingDataSource;
+import io.bootique.cayenne.v50.replica.ReplicaSelection;
+import io.bootique.cayenne.v50.shard.ShardRoutingDataSource;
+import io.bootique.cayenne.v50.shard.Shards;
+import io.bootique.cayenne.v50.startup.StartupTimer;
 import io.bootique.jdbc.DataSourceFactory;
 import org.apache.cayenne.configuration.DataNodeDescriptor;
 import org.apache.cayenne.configuration.runtime.DelegatingDataSourceFactory;
 
 import javax.sql.DataSource;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class BQCayenneDataSourceFactory extends DelegatingDataSourceFactory {
 
     private static final String PARAM_PREFIX = "bqds:";
+    static final String SHARDS_REF = "bqshards:";
 
     private DataSourceFactory bqDataSourceFactory;
     private String defaultDataSourceName;
+    private Map<String, List<String>> replicaDataSourceNames;
+    private ReplicaSelection replicaSelection;
+    private Shards shards;
+    private boolean lazyDataSources;
+    private StartupTimer startupTimer;
+    private final List<LazyDataSource> createdLazyDataSources = new CopyOnWriteArrayList<>();
 
     public BQCayenneDataSourceFactory(DataSourceFactory bqDataSourceFactory, String defaultDataSourceName) {
+        this(bqDataSourceFactory, defaultDataSourceName, Map.of(), ReplicaSelection.ROUND_ROBIN, null);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public BQCayenneDataSourceFactory(
+            DataSourceFactory bqDataSourceFactory,
+            String defaultDataSourceName,
+            Map<String, List<String>> replicaDataSourceNames,
+            ReplicaSelection replicaSelection,
+            Shards shards) {
+
         this.bqDataSourceFactory = bqDataSourceFactory;
         this.defaultDataSourceName = defaultDataSourceName;
+        this.replicaDataSourceNames = replicaDataSourceNames;
+        this.replicaSelection = replicaSelection;
+        this.shards = shards;
+    }
+
+    /**
+     * Sets whether the lookup of Bootique DataSources (and the startup of their connection pools) should be deferred
+     * until the first connection request.
+     *
+     * @since 4.0
+     */
+    public void setLazyDataSources(boolean lazyDataSources) {
+        this.lazyDataSources = lazyDataSources;
+    }
+
+    /**
+     * Sets an optional timer to measure DataSource resolution for each DataNode as a startup phase.
+     *
+     * @since 4.0
+     */
+    public void setStartupTimer(StartupTimer startupTimer) {
+        this.startupTimer = startupTimer;
+    }
+
+    /**
+     * Returns lazy DataSources created by this factory so far.
+     *
+     * @since 4.0
+     */
+    public List<LazyDataSource> getLazyDataSources() {
+        return createdLazyDataSources;
     }
 
     static String encodeDataSourceRef(String bqDataSource) {
@@ -48,6 +108,51 @@ public class BQCayenneDataSourceFactory extends DelegatingDataSourceFactory {
 
     @Override
     public DataSource getDataSource(DataNodeDescriptor nodeDescriptor) {
+        return startupTimer != null
+                ? startupTimer.call("dataSource:" + nodeDescriptor.getName(), () -> resolveDataSource(nodeDescriptor))
+                : resolveDataSource(nodeDescriptor);
+    }
+
+    /**
+     * @since 4.0
+     */
+    protected DataSource resolveDataSource(DataNodeDescriptor nodeDescriptor) {
+
+        if (SHARDS_REF.equals(nodeDescriptor.getParameters())) {
+            return shardRoutingDataSource();
+        }
+
+        DataSource primary = primaryDataSource(nodeDescriptor);
+        List<String> replicas = replicaDataSourceNames.get(nodeDescriptor.getName());
+        return replicas != null && !replicas.isEmpty() ? replicaRoutingDataSource(primary, replicas) : primary;
+    }
+
+    /**
+     * @since 4.0
+     */
+    protected DataSource replicaRoutingDataSource(DataSource primary, List<String> replicas) {
+        List<DataSource> replicaDataSources = replicas.stream().map(this::mappedBootiqueDataSource).toList();
+        return new ReplicaRoutingDataSource(primary, replicaDataSources, replicaSelection);
+    }
+
+    /**
+     * @since 4.0
+     */
+    protected DataSource shardRoutingDataSource() {
+
+        if (shards == null) {
+            throw new IllegalStateException("Sharded DataNode is present, but 'cayenne.sharding' is not configured");
+        }
+
+        Map<String, DataSource> shardDataSources = new LinkedHashMap<>();
+        shards.getNames().forEach(n -> shardDataSources.put(n, mappedBootiqueDataSource(n)));
+        return new ShardRoutingDataSource(shardDataSources);
+    }
+
+    /**
+     * @since 4.0
+     */
+    protected DataSource primaryDataSource(DataNodeDescriptor nodeDescriptor) {
 
         DataSource dataSource;
 
@@ -124,6 +229,22 @@ public class BQCayenneDataSourceFactory extends DelegatingDataSourceFactory {
             return null;
         }
 
+        if (lazyDataSources) {
+
+            // still validate the name eagerly, as this doesn't require starting the DataSource
+            if (!bqDataSourceFactory.allNames().contains(datasource)) {
+                throw new IllegalStateException("Unknown 'defaultDataSourceName': " + datasource);
+            }
+
+            LazyDataSource ds = new LazyDataSource(datasource, () -> startedBootiqueDataSource(datasource));
+            createdLazyDataSources.add(ds);
+            return ds;
+        }
+
+        return startedBootiqueDataSource(datasource);
+    }
+
+    private DataSource startedBootiqueDataSource(String datasource) {
         DataSource ds = bqDataSourceFactory.forName(datasource);
         if (ds == null) {
             throw new IllegalStateException("Unknown 'defaultDataSourceName': " + datasource);
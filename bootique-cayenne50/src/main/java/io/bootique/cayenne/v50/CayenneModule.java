@@ -21,9 +21,15 @@ package io.bootique.cayenne.v50;
 
 import io.bootique.BQModule;
 import io.bootique.ModuleCrate;
+import io.bootique.cayenne.v50.commitlog.AsyncCommitLogMetrics;
+import io.bootique.cayenne.v50.metrics.CommitMetrics;
+import io.bootique.cayenne.v50.metrics.QueryMetrics;
+import io.bootique.cayenne.v50.shard.ScatterGather;
+import io.bootique.cayenne.v50.shard.ShardingFactory;
 import io.bootique.config.ConfigurationFactory;
 import io.bootique.di.Binder;
 import io.bootique.di.Provides;
+import io.bootique.shutdown.ShutdownManager;
 import org.apache.cayenne.runtime.CayenneRuntime;
 
 import jakarta.inject.Singleton;
@@ -64,6 +70,36 @@ public class CayenneModule implements BQModule {
         return new CayenneConfigMerger();
     }
 
+    @Provides
+    @Singleton
+    QueryMetrics provideQueryMetrics() {
+        return new QueryMetrics();
+    }
+
+    @Provides
+    @Singleton
+    CommitMetrics provideCommitMetrics() {
+        return new CommitMetrics();
+    }
+
+    @Provides
+    @Singleton
+    AsyncCommitLogMetrics provideAsyncCommitLogMetrics() {
+        return new AsyncCommitLogMetrics();
+    }
+
+    @Provides
+    @Singleton
+    ScatterGather provideScatterGather(
+            ConfigurationFactory configFactory,
+            CayenneRuntime runtime,
+            ShutdownManager shutdownManager) {
+
+        return configFactory
+                .config(ShardingFactory.class, CONFIG_PREFIX + ".sharding")
+                .createScatterGather(runtime, shutdownManager);
+    }
+
     @Provides
     @Singleton
     CayenneRuntime createCayenneRuntime(ConfigurationFactory configFactory) {
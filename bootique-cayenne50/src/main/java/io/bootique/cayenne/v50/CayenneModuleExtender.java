@@ -21,8 +21,11 @@ package io.bootique.cayenne.v50;
 
 import io.bootique.ModuleExtender;
 import io.bootique.cayenne.v50.annotation.CayenneListener;
+import io.bootique.cayenne.v50.commitlog.CommitLogSubscription;
 import io.bootique.cayenne.v50.commitlog.MappedCommitLogListener;
 import io.bootique.cayenne.v50.commitlog.MappedCommitLogListenerType;
+import io.bootique.cayenne.v50.replica.ReplicaLagProbe;
+import io.bootique.cayenne.v50.shard.ShardKeyResolver;
 import io.bootique.cayenne.v50.syncfilter.MappedDataChannelSyncFilter;
 import io.bootique.cayenne.v50.syncfilter.MappedDataChannelSyncFilterType;
 import io.bootique.di.Binder;
@@ -45,6 +48,8 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
     private static final Logger LOGGER = LoggerFactory.getLogger(CayenneModuleExtender.class);
 
     static final String COMMIT_LOG_ANNOTATION = CayenneModuleExtender.class.getPackageName() + ".commit_log_annotation";
+    static final String QUERY_METRICS = CayenneModuleExtender.class.getPackageName() + ".query_metrics";
+    static final String COMMIT_METRICS = CayenneModuleExtender.class.getPackageName() + ".commit_metrics";
 
     private SetBuilder<MappedDataChannelSyncFilter> syncFilters;
     private SetBuilder<MappedDataChannelSyncFilterType> syncFilterTypes;
@@ -53,6 +58,7 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
     private SetBuilder<String> locations;
     private SetBuilder<Module> modules;
     private SetBuilder<CayenneStartupListener> startupListeners;
+    private SetBuilder<CayenneStartupTimingListener> startupTimingListeners;
     private SetBuilder<MappedCommitLogListener> commitLogListeners;
     private SetBuilder<MappedCommitLogListenerType> commitLogListenerTypes;
     private SetBuilder<ExtendedType> extendedType;
@@ -71,6 +77,7 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         contributeModules();
         contributeLocations();
         contributeStartupListeners();
+        contributeStartupTimingListeners();
         contributeCommitLogListeners();
         contributeCommitLogListenerTypes();
         contributeExtendedTypes();
@@ -88,6 +95,27 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         return this;
     }
 
+    /**
+     * Adds a listener that receives a breakdown of the Cayenne stack startup time by phase. Since the DataDomain is
+     * created lazily, the report is delivered once both the CayenneRuntime and its DataDomain are created, i.e.
+     * usually on the first query. The report includes the project loading, DataSource resolution, EntityResolver
+     * indexing and, if 'cayenne.createSchema' is set, the schema creation.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender addStartupTimingListener(CayenneStartupTimingListener listener) {
+        contributeStartupTimingListeners().addInstance(listener);
+        return this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public CayenneModuleExtender addStartupTimingListener(Class<? extends CayenneStartupTimingListener> listenerType) {
+        contributeStartupTimingListeners().add(listenerType);
+        return this;
+    }
+
     public CayenneModuleExtender addSyncFilter(DataChannelSyncFilter filter, boolean includeInTransaction) {
         contributeSyncFilters().addInstance(new MappedDataChannelSyncFilter(filter, includeInTransaction));
         return this;
@@ -98,6 +126,56 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         return this;
     }
 
+    /**
+     * Enables a sync filter that records commit latency, the number of inserted, updated and deleted objects, and
+     * rollbacks, broken down by DataNode. The metrics are available via injectable
+     * {@link io.bootique.cayenne.v50.metrics.CommitMetrics} object.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender enableCommitMetrics() {
+        binder.bind(Key.get(Boolean.class, COMMIT_METRICS)).toInstance(Boolean.TRUE);
+        return this;
+    }
+
+    /**
+     * Sets a probe of replication lag used by the read-your-writes consistency of the replica-routed reads to release
+     * the reads to the replicas as soon as they catch up with a commit.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender setReplicaLagProbe(ReplicaLagProbe probe) {
+        binder.bind(ReplicaLagProbe.class).toInstance(probe);
+        return this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public CayenneModuleExtender setReplicaLagProbe(Class<? extends ReplicaLagProbe> probeType) {
+        binder.bind(ReplicaLagProbe.class).to(probeType).inSingletonScope();
+        return this;
+    }
+
+    /**
+     * Sets a strategy to determine shard keys of queries and commits when 'cayenne.sharding' is configured. If not
+     * set, the key is taken from the ObjectContext user property.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender setShardKeyResolver(ShardKeyResolver resolver) {
+        binder.bind(ShardKeyResolver.class).toInstance(resolver);
+        return this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public CayenneModuleExtender setShardKeyResolver(Class<? extends ShardKeyResolver> resolverType) {
+        binder.bind(ShardKeyResolver.class).to(resolverType).inSingletonScope();
+        return this;
+    }
+
     public CayenneModuleExtender addQueryFilter(DataChannelQueryFilter filter) {
         contributeQueryFilters().addInstance(filter);
         return this;
@@ -108,6 +186,18 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         return this;
     }
 
+    /**
+     * Enables a query filter that records latency histograms of all queries, broken down by root entity, query type
+     * and query cache hit vs. miss. The metrics are available via injectable
+     * {@link io.bootique.cayenne.v50.metrics.QueryMetrics} object.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender enableQueryMetrics() {
+        binder.bind(Key.get(Boolean.class, QUERY_METRICS)).toInstance(Boolean.TRUE);
+        return this;
+    }
+
     public CayenneModuleExtender addListener(Object listener) {
         contributeListeners().addInstance(listener);
         return this;
@@ -179,6 +269,44 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         return this;
     }
 
+    /**
+     * Adds a commit log listener that is only notified about the changes to the entities matching the subscription.
+     * The listener is skipped for the commits that have no such changes.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender addCommitLogListener(CommitLogListener listener, boolean includeInTransaction, CommitLogSubscription subscription) {
+        contributeCommitLogListeners().addInstance(new MappedCommitLogListener(listener, includeInTransaction, null, subscription));
+        return this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public CayenneModuleExtender addCommitLogListener(CommitLogListener listener, boolean includeInTransaction, Class<? extends CommitLogListener> after, CommitLogSubscription subscription) {
+        contributeCommitLogListeners().addInstance(new MappedCommitLogListener(listener, includeInTransaction, after, subscription));
+        return this;
+    }
+
+    /**
+     * Adds a commit log listener type that is only notified about the changes to the entities matching the
+     * subscription. The listener is skipped for the commits that have no such changes.
+     *
+     * @since 4.0
+     */
+    public CayenneModuleExtender addCommitLogListener(Class<? extends CommitLogListener> listenerType, boolean includeInTransaction, CommitLogSubscription subscription) {
+        contributeCommitLogListenerTypes().addInstance(new MappedCommitLogListenerType(listenerType, includeInTransaction, null, subscription));
+        return this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public CayenneModuleExtender addCommitLogListener(Class<? extends CommitLogListener> listenerType, boolean includeInTransaction, Class<? extends CommitLogListener> after, CommitLogSubscription subscription) {
+        contributeCommitLogListenerTypes().addInstance(new MappedCommitLogListenerType(listenerType, includeInTransaction, after, subscription));
+        return this;
+    }
+
     /**
      * Enables entity filtering and change event preprocessing for commit log events. If called, Cayenne will be
      * configured to respect {@link org.apache.cayenne.commitlog.CommitLog} annotation on entities. This annotation
@@ -238,6 +366,12 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         return startupListeners != null ? startupListeners : (startupListeners = newSet(CayenneStartupListener.class));
     }
 
+    SetBuilder<CayenneStartupTimingListener> contributeStartupTimingListeners() {
+        return startupTimingListeners != null
+                ? startupTimingListeners
+                : (startupTimingListeners = newSet(CayenneStartupTimingListener.class));
+    }
+
     SetBuilder<MappedCommitLogListener> contributeCommitLogListeners() {
         return commitLogListeners != null ? commitLogListeners : (commitLogListeners = newSet(MappedCommitLogListener.class));
     }
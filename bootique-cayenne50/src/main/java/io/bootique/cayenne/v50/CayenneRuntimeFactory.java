@@ -22,9 +22,35 @@ package io.bootique.cayenne.v50;
 import io.bootique.annotation.BQConfig;
 import io.bootique.annotation.BQConfigProperty;
 import io.bootique.cayenne.v50.annotation.CayenneListener;
+import io.bootique.cayenne.v50.commitlog.AsyncCommitLogDispatcher;
+import io.bootique.cayenne.v50.commitlog.AsyncCommitLogFactory;
+import io.bootique.cayenne.v50.commitlog.AsyncCommitLogMetrics;
 import io.bootique.cayenne.v50.commitlog.CommitLogModuleBuilder;
 import io.bootique.cayenne.v50.commitlog.MappedCommitLogListener;
 import io.bootique.cayenne.v50.commitlog.MappedCommitLogListenerType;
+import io.bootique.cayenne.v50.commitlog.ParallelCommitLogFactory;
+import io.bootique.cayenne.v50.commitlog.journal.CommitLogJournal;
+import io.bootique.cayenne.v50.commitlog.journal.CommitLogJournalFactory;
+import io.bootique.cayenne.v50.commitlog.journal.JournalCommitLogListener;
+import io.bootique.cayenne.v50.metrics.CommitMetrics;
+import io.bootique.cayenne.v50.metrics.CacheLoadTrackingQueryCache;
+import io.bootique.cayenne.v50.metrics.CommitMetricsFilter;
+import io.bootique.cayenne.v50.metrics.QueryMetrics;
+import io.bootique.cayenne.v50.metrics.QueryMetricsFilter;
+import io.bootique.cayenne.v50.replica.ReadYourWrites;
+import io.bootique.cayenne.v50.replica.ReadYourWritesFactory;
+import io.bootique.cayenne.v50.replica.ReadYourWritesSyncFilter;
+import io.bootique.cayenne.v50.replica.ReplicaLagProbe;
+import io.bootique.cayenne.v50.replica.ReplicaRoutingFilter;
+import io.bootique.cayenne.v50.replica.ReplicaSelection;
+import io.bootique.cayenne.v50.shard.ContextShardKeyResolver;
+import io.bootique.cayenne.v50.shard.ShardKeyResolver;
+import io.bootique.cayenne.v50.shard.ShardRoutingFilter;
+import io.bootique.cayenne.v50.shard.ShardedCreateIfNoSchemaStrategy;
+import io.bootique.cayenne.v50.shard.Shards;
+import io.bootique.cayenne.v50.shard.ShardingFactory;
+import io.bootique.cayenne.v50.startup.StartupReport;
+import io.bootique.cayenne.v50.startup.StartupTimer;
 import io.bootique.cayenne.v50.syncfilter.MappedDataChannelSyncFilter;
 import io.bootique.cayenne.v50.syncfilter.MappedDataChannelSyncFilterType;
 import io.bootique.di.Injector;
@@ -34,24 +60,31 @@ import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import org.apache.cayenne.DataChannelQueryFilter;
 import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.dbsync.CreateIfNoSchemaStrategy;
 import org.apache.cayenne.access.dbsync.SchemaUpdateStrategyFactory;
 import org.apache.cayenne.access.types.ExtendedType;
 import org.apache.cayenne.access.types.ValueObjectType;
+import org.apache.cayenne.cache.QueryCache;
 import org.apache.cayenne.configuration.runtime.CoreModule;
 import org.apache.cayenne.configuration.runtime.CoreModuleExtender;
 import org.apache.cayenne.di.Module;
+import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.resource.ResourceLocator;
 import org.apache.cayenne.runtime.CayenneRuntime;
 import org.apache.cayenne.runtime.CayenneRuntimeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @BQConfig("Configures Cayenne stack, providing injectable CayenneRuntime.")
 public class CayenneRuntimeFactory {
@@ -68,6 +101,7 @@ public class CayenneRuntimeFactory {
     private final Set<MappedDataChannelSyncFilter> syncFilters;
     private final Set<MappedDataChannelSyncFilterType> syncFilterTypes;
     private final Set<CayenneStartupListener> startupCallbacks;
+    private final Set<CayenneStartupTimingListener> startupTimingListeners;
     private final Set<MappedCommitLogListener> commitLogListeners;
     private final Set<MappedCommitLogListenerType> commitLogListenerTypes;
     private final Set<ExtendedType> extendedTypes;
@@ -78,6 +112,21 @@ public class CayenneRuntimeFactory {
     private boolean createSchema;
     private List<String> locations;
     private Map<String, String> mapDatasources;
+    private Map<String, List<String>> replicaDatasources;
+    private ReplicaSelection replicaSelection;
+    private ReadYourWritesFactory readYourWrites;
+    private ReadYourWrites readYourWritesTracker;
+    private ShardingFactory sharding;
+    private Shards shards;
+    private ShardRoutingFilter shardRoutingFilter;
+    private boolean lazyDatasources;
+    private boolean prewarmDatasources;
+    private BQCayenneDataSourceFactory cayenneDataSourceFactory;
+    private StartupTimer startupTimer;
+    private AtomicInteger startupStepsLeft;
+    private AsyncCommitLogFactory asyncCommitLog;
+    private ParallelCommitLogFactory parallelCommitLog;
+    private CommitLogJournalFactory commitLogJournal;
 
     @Inject
     public CayenneRuntimeFactory(
@@ -91,6 +140,7 @@ public class CayenneRuntimeFactory {
             Set<MappedDataChannelSyncFilter> syncFilters,
             Set<MappedDataChannelSyncFilterType> syncFilterTypes,
             Set<CayenneStartupListener> startupCallbacks,
+            Set<CayenneStartupTimingListener> startupTimingListeners,
             Set<MappedCommitLogListener> commitLogListeners,
             Set<MappedCommitLogListenerType> commitLogListenerTypes,
             Set<ExtendedType> extendedTypes,
@@ -107,6 +157,7 @@ public class CayenneRuntimeFactory {
         this.syncFilters = syncFilters;
         this.syncFilterTypes = syncFilterTypes;
         this.startupCallbacks = startupCallbacks;
+        this.startupTimingListeners = startupTimingListeners;
         this.commitLogListeners = commitLogListeners;
         this.commitLogListenerTypes = commitLogListenerTypes;
         this.extendedTypes = extendedTypes;
@@ -131,6 +182,70 @@ public class CayenneRuntimeFactory {
         this.mapDatasources = mapDatasources;
     }
 
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            A map of Cayenne DataNode names to lists of Bootique DataSource names of read-only replicas of the node
+            DataSource. Read-only queries executed outside an explicit transaction are sent to one of the replicas.
+            Writes and all queries within a transaction stay on the node's primary DataSource. DataNodes created from
+            'cayenne.mapDatasources' or 'cayenne.datasource' are named after their DataSources.""")
+    public void setReplicaDatasources(Map<String, List<String>> replicaDatasources) {
+        this.replicaDatasources = replicaDatasources;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            How a replica from 'cayenne.replicaDatasources' is picked for each read. Either 'ROUND_ROBIN' (default)
+            or 'LEAST_LOADED'.""")
+    public void setReplicaSelection(ReplicaSelection replicaSelection) {
+        this.replicaSelection = replicaSelection;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If set, and 'cayenne.replicaDatasources' are configured, the reads of the ObjectContexts that have
+            recently committed are sent to the primary DataSource, so that they see their own writes.""")
+    public void setReadYourWrites(ReadYourWritesFactory readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If set, the listed DataMaps are backed by multiple databases (shards), and each query and commit is
+            routed to a shard based on a key returned by the ShardKeyResolver. By default, the key is taken from
+            the ObjectContext 'ContextShardKeyResolver.SHARD_KEY_PROPERTY' user property.""")
+    public void setSharding(ShardingFactory sharding) {
+        this.sharding = sharding;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If 'true', the lookup of each Bootique DataSource used by Cayenne, and the startup of its connection
+            pool, are deferred until the DataSource is first asked for a connection. Useful for apps with many
+            databases, not all of which are used by every app run. The default is 'false'.""")
+    public void setLazyDatasources(boolean lazyDatasources) {
+        this.lazyDatasources = lazyDatasources;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If 'true' and 'lazyDatasources' is enabled, all Cayenne DataSources are started in the background right
+            after the Cayenne stack is created, without blocking the startup. The default is 'false'.""")
+    public void setPrewarmDatasources(boolean prewarmDatasources) {
+        this.prewarmDatasources = prewarmDatasources;
+    }
+
     @BQConfigProperty("** Deprecated and ignored. Use 'cayenne.locations' instead")
     @Deprecated(since = "4.0", forRemoval = true)
     public void setConfigs(Collection<String> configs) {
@@ -187,29 +302,122 @@ public class CayenneRuntimeFactory {
         this.createSchema = createSchema;
     }
 
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If set, post-commit CommitLog listeners (i.e. those not included in transaction) are invoked
+            asynchronously from a bounded queue instead of the committing thread.""")
+    public void setAsyncCommitLog(AsyncCommitLogFactory asyncCommitLog) {
+        this.asyncCommitLog = asyncCommitLog;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If set, post-commit CommitLog listeners are grouped by their "after" dependencies into levels, with the
+            listeners within each level invoked in parallel. The next level starts when the current one is
+            finished.""")
+    public void setParallelCommitLog(ParallelCommitLogFactory parallelCommitLog) {
+        this.parallelCommitLog = parallelCommitLog;
+    }
+
+    /**
+     * @since 4.0
+     */
+    @BQConfigProperty("""
+            If set, each committed change set is appended to a local memory-mapped journal, that can be tailed or
+            replayed with 'JournalReader'.""")
+    public void setCommitLogJournal(CommitLogJournalFactory commitLogJournal) {
+        this.commitLogJournal = commitLogJournal;
+    }
+
     public CayenneRuntime create() {
 
+        // JFR events are recorded for each phase regardless of the presence of the timing listeners
+        StartupTimer timer = new StartupTimer(name != null ? name : "cayenne");
+        this.startupTimer = timer;
+
+        // the startup is complete once both the runtime and its lazily created DataDomain are built, in any order
+        this.startupStepsLeft = new AtomicInteger(2);
+
         CayenneRuntimeBuilder builder = CayenneRuntime.builder(name);
 
-        addCreateSchema(builder);
-        addBootiqueExtensions(builder);
-        builder.addModules(customModules);
-        addExtendedTypes(builder);
-        addValueObjectTypes(builder);
-        addQueryFilters(builder);
-        addSyncFilters(builder);
-        addCommitLog(builder);
-        addListeners(builder);
+        timer.run("schemaStrategy", () -> addCreateSchema(builder));
+        timer.run("bootiqueExtensions", () -> addBootiqueExtensions(builder));
+        timer.run("customModules", () -> builder.addModules(customModules));
+        timer.run("extendedTypes", () -> addExtendedTypes(builder));
+        timer.run("valueObjectTypes", () -> addValueObjectTypes(builder));
+        timer.run("queryFilters", () -> addQueryFilters(builder));
+        timer.run("syncFilters", () -> addSyncFilters(builder));
+        timer.run("commitLog", () -> addCommitLog(builder));
+        timer.run("listeners", () -> addListeners(builder));
 
-        addLocations(builder);
-        CayenneRuntime runtime = builder.build();
+        timer.run("locations", () -> addLocations(builder));
+        CayenneRuntime runtime = timer.call("build", builder::build);
 
         shutdownManager.onShutdown(runtime, CayenneRuntime::shutdown);
-        startupCallbacks.forEach(c -> c.onRuntimeCreated(runtime));
+
+        timer.run("prewarm", () -> startPrewarm(runtime));
+        timer.run("startupListeners", () -> startupCallbacks.forEach(c -> c.onRuntimeCreated(runtime)));
+
+        this.startupTimer = null;
+        completeStartupStep(timer);
 
         return runtime;
     }
 
+    void onDataDomainCreated(StartupTimer timer, DataDomain domain) {
+
+        // the DataDomain is created lazily, and the metrics are registered with it, before any query can reach the
+        // metrics filters
+        timer.run("metrics", () -> registerMetrics(domain));
+
+        // the extra work below is done only to be measured, so skip it if nobody reads the report
+        if (!startupTimingListeners.isEmpty()) {
+
+            // class descriptors are compiled lazily on the first access to each entity. Compile them all to measure
+            // the full cost of the mapping indexing
+            timer.run("entityResolver", () -> {
+                EntityResolver resolver = domain.getEntityResolver();
+                resolver.getObjEntities().forEach(e -> resolver.getClassDescriptor(e.getName()));
+            });
+
+            // the schema is otherwise updated on the first query to each node. The strategies run only once, so the
+            // later queries won't repeat this
+            if (createSchema) {
+                timer.run("createSchema", () -> domain.getDataNodes().forEach(this::updateSchema));
+            }
+        }
+
+        completeStartupStep(timer);
+    }
+
+    private void completeStartupStep(StartupTimer timer) {
+
+        if (startupStepsLeft.decrementAndGet() != 0) {
+            return;
+        }
+
+        // the lazily initialized parts of the stack keep a reference to the timer, so it must stop recording, and
+        // the phases they run after this point are not reported as "startup"
+        timer.stop();
+
+        if (!startupTimingListeners.isEmpty()) {
+            StartupReport report = timer.report();
+            startupTimingListeners.forEach(l -> l.onStartupReport(report));
+        }
+    }
+
+    private void updateSchema(DataNode node) {
+        try {
+            node.getSchemaUpdateStrategy().updateSchema(node);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create schema for DataNode '" + node.getName() + "'", e);
+        }
+    }
+
     String defaultDataSourceName() {
 
         if (datasource != null) {
@@ -226,14 +434,33 @@ public class CayenneRuntimeFactory {
 
     void addCreateSchema(CayenneRuntimeBuilder builder) {
         if (createSchema) {
-            builder.addModule(b -> b.bind(SchemaUpdateStrategyFactory.class).toInstance(descriptor -> new CreateIfNoSchemaStrategy()));
+
+            // the sharded DataNode needs the schema created on each shard, not just on the first accessed one
+            builder.addModule(b -> b.bind(SchemaUpdateStrategyFactory.class).toInstance(
+                    descriptor -> BQCayenneDataSourceFactory.SHARDS_REF.equals(descriptor.getParameters())
+                            ? new ShardedCreateIfNoSchemaStrategy()
+                            : new CreateIfNoSchemaStrategy()));
         }
     }
 
     void addBootiqueExtensions(CayenneRuntimeBuilder builder) {
         String defaultDS = defaultDataSourceName();
-        var ddProvider = new SyntheticNodeDataDomainProvider(defaultDS, mapDatasources != null ? mapDatasources : Map.of());
-        var dsFactory = new BQCayenneDataSourceFactory(dataSourceFactory, datasource);
+        StartupTimer timer = startupTimer;
+        var ddProvider = new SyntheticNodeDataDomainProvider(
+                defaultDS,
+                mapDatasources != null ? mapDatasources : Map.of(),
+                sharding != null ? new HashSet<>(sharding.getMaps()) : Set.of(),
+                timer,
+                d -> onDataDomainCreated(timer, d));
+        var dsFactory = new BQCayenneDataSourceFactory(
+                dataSourceFactory,
+                datasource,
+                replicaDatasources != null ? replicaDatasources : Map.of(),
+                replicaSelection != null ? replicaSelection : ReplicaSelection.ROUND_ROBIN,
+                shards());
+        dsFactory.setLazyDataSources(lazyDatasources);
+        dsFactory.setStartupTimer(startupTimer);
+        this.cayenneDataSourceFactory = dsFactory;
 
         builder.addModule(b -> {
             b.bind(ResourceLocator.class).to(BQResourceLocator.class);
@@ -261,19 +488,105 @@ public class CayenneRuntimeFactory {
     }
 
     void addQueryFilters(CayenneRuntimeBuilder builder) {
+
+        // metrics filter goes first, so that the time spent in other filters is included in the measurement
+        DataChannelQueryFilter metricsFilter = isEnabled(CayenneModuleExtender.QUERY_METRICS)
+                ? new QueryMetricsFilter(injector.getInstance(QueryMetrics.class))
+                : null;
+
         builder.addModule(b -> {
             CoreModuleExtender e = CoreModule.extend(b);
+
+            if (metricsFilter != null) {
+                e.addQueryFilter(metricsFilter);
+
+                // tells the shared cache hits from the misses for the metrics filter
+                b.decorate(QueryCache.class).after(CacheLoadTrackingQueryCache.class);
+            }
+
             queryFilters.forEach(e::addQueryFilter);
+
+            // routing filter goes last, so that any transactions started by the custom filters are respected
+            if (hasReplicas()) {
+                e.addQueryFilter(new ReplicaRoutingFilter(readYourWritesTracker()));
+            }
+
+            ShardRoutingFilter shardFilter = shardRoutingFilter();
+            if (shardFilter != null) {
+                e.addQueryFilter(shardFilter);
+            }
         });
     }
 
+    private boolean hasReplicas() {
+        return replicaDatasources != null
+                && replicaDatasources.values().stream().anyMatch(l -> l != null && !l.isEmpty());
+    }
+
+    private ReadYourWrites readYourWritesTracker() {
+
+        if (readYourWritesTracker == null && readYourWrites != null && hasReplicas()) {
+            ReplicaLagProbe lagProbe = injector.hasProvider(ReplicaLagProbe.class)
+                    ? injector.getInstance(ReplicaLagProbe.class)
+                    : null;
+            readYourWritesTracker = readYourWrites.createReadYourWrites(lagProbe);
+        }
+
+        return readYourWritesTracker;
+    }
+
+    private Shards shards() {
+        if (shards == null && sharding != null) {
+            shards = sharding.createShards();
+        }
+
+        return shards;
+    }
+
+    private ShardRoutingFilter shardRoutingFilter() {
+
+        if (shardRoutingFilter == null && shards() != null) {
+            ShardKeyResolver keyResolver = injector.hasProvider(ShardKeyResolver.class)
+                    ? injector.getInstance(ShardKeyResolver.class)
+                    : new ContextShardKeyResolver();
+            shardRoutingFilter = new ShardRoutingFilter(shards(), keyResolver);
+        }
+
+        return shardRoutingFilter;
+    }
+
     void addSyncFilters(CayenneRuntimeBuilder builder) {
 
-        if (syncFilters.isEmpty() && syncFilterTypes.isEmpty()) {
+        boolean commitMetrics = isEnabled(CayenneModuleExtender.COMMIT_METRICS);
+        ReadYourWrites readYourWrites = readYourWritesTracker();
+        ShardRoutingFilter shardFilter = shardRoutingFilter();
+        if (syncFilters.isEmpty()
+                && syncFilterTypes.isEmpty()
+                && !commitMetrics
+                && readYourWrites == null
+                && shardFilter == null) {
             return;
         }
 
-        List<MappedDataChannelSyncFilter> combined = new ArrayList<>(syncFilters.size() + syncFilterTypes.size());
+        List<MappedDataChannelSyncFilter> combined = new ArrayList<>(syncFilters.size() + syncFilterTypes.size() + 3);
+
+        // metrics filter is outside the transaction, so that the measured time includes the DB commit
+        if (commitMetrics) {
+            combined.add(new MappedDataChannelSyncFilter(
+                    new CommitMetricsFilter(injector.getInstance(CommitMetrics.class)),
+                    false));
+        }
+
+        // commit tracking is outside the transaction, so that only the successful commits are recorded
+        if (readYourWrites != null) {
+            combined.add(new MappedDataChannelSyncFilter(new ReadYourWritesSyncFilter(readYourWrites), false));
+        }
+
+        // shard routing is outside the transaction, so that the transaction connection is opened on the right shard
+        if (shardFilter != null) {
+            combined.add(new MappedDataChannelSyncFilter(shardFilter, false));
+        }
+
         combined.addAll(syncFilters);
         syncFilterTypes.stream()
                 .map(t -> new MappedDataChannelSyncFilter(injector.getInstance(t.getFilterType()), t.isIncludeInTransaction()))
@@ -287,7 +600,7 @@ public class CayenneRuntimeFactory {
 
     void addCommitLog(CayenneRuntimeBuilder builder) {
 
-        if (commitLogListeners.isEmpty() && commitLogListenerTypes.isEmpty()) {
+        if (commitLogListeners.isEmpty() && commitLogListenerTypes.isEmpty() && commitLogJournal == null) {
             return;
         }
 
@@ -295,13 +608,67 @@ public class CayenneRuntimeFactory {
         commitLogListeners.forEach(clmBuilder::add);
         commitLogListenerTypes.forEach(t -> clmBuilder.add(t.resolve(injector)));
 
-        if (injector.hasProvider(io.bootique.di.Key.get(Boolean.class, CayenneModuleExtender.COMMIT_LOG_ANNOTATION))) {
+        if (commitLogJournal != null) {
+            CommitLogJournal journal = commitLogJournal.createJournal();
+            shutdownManager.onShutdown(journal, CommitLogJournal::close);
+            clmBuilder.add(new MappedCommitLogListener(new JournalCommitLogListener(journal), false, null));
+        }
+
+        if (isEnabled(CayenneModuleExtender.COMMIT_LOG_ANNOTATION)) {
             clmBuilder.applyCommitLogAnnotation();
         }
 
+        if (parallelCommitLog != null) {
+            ExecutorService executor = parallelCommitLog.createExecutor();
+            shutdownManager.onShutdown(executor, ExecutorService::shutdown);
+            clmBuilder.invokePostTxInParallel(executor);
+        }
+
+        if (asyncCommitLog != null) {
+            AsyncCommitLogDispatcher dispatcher = asyncCommitLog.createDispatcher(injector.getInstance(AsyncCommitLogMetrics.class));
+            shutdownManager.onShutdown(dispatcher, AsyncCommitLogDispatcher::shutdown);
+            clmBuilder.dispatchPostTxAsync(dispatcher);
+        }
+
         clmBuilder.addModules(builder);
     }
 
+    void registerMetrics(DataDomain domain) {
+        if (isEnabled(CayenneModuleExtender.QUERY_METRICS)) {
+            injector.getInstance(QueryMetrics.class).registerEntities(domain.getEntityResolver());
+        }
+
+        if (isEnabled(CayenneModuleExtender.COMMIT_METRICS)) {
+            injector.getInstance(CommitMetrics.class).registerNodes(domain);
+        }
+    }
+
+    void startPrewarm(CayenneRuntime runtime) {
+
+        if (!lazyDatasources || !prewarmDatasources) {
+            return;
+        }
+
+        Thread prewarm = new Thread(() -> {
+            try {
+                // building the DataDomain creates the (lazy) DataSources of all nodes
+                runtime.getDataDomain();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to prewarm DataSources", e);
+                return;
+            }
+
+            cayenneDataSourceFactory.getLazyDataSources().forEach(LazyDataSource::prewarm);
+        }, "bootique-cayenne-prewarm");
+
+        prewarm.setDaemon(true);
+        prewarm.start();
+    }
+
+    private boolean isEnabled(String flag) {
+        return injector.hasProvider(io.bootique.di.Key.get(Boolean.class, flag));
+    }
+
     void addListeners(CayenneRuntimeBuilder builder) {
         builder.addModule(b -> {
             CoreModuleExtender e = CoreModule.extend(b);
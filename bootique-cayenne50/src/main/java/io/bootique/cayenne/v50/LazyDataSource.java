@@ -0,0 +1,131 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource proxy that defers the lookup (and the startup of the connection pool) of the underlying Bootique
+ * DataSource until the first connection is requested or until it is explicitly prewarmed.
+ *
+ * @since 4.0
+ */
+public class LazyDataSource implements DataSource {
+
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(LazyDataSource.class);
+
+    private final String name;
+    private final Supplier<DataSource> resolver;
+    private volatile DataSource delegate;
+
+    public LazyDataSource(String name, Supplier<DataSource> resolver) {
+        this.name = Objects.requireNonNull(name);
+        this.resolver = Objects.requireNonNull(resolver);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isInitialized() {
+        return delegate != null;
+    }
+
+    /**
+     * Resolves the underlying DataSource and opens and closes a single connection to start its pool. Failures are
+     * logged and otherwise ignored, as the DataSource will be retried on the first use.
+     */
+    public void prewarm() {
+        try (Connection c = getConnection()) {
+            LOGGER.debug("Prewarmed DataSource '{}'", name);
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.warn("Failed to prewarm DataSource '{}'", name, e);
+        }
+    }
+
+    protected DataSource delegate() {
+        DataSource ds = delegate;
+        if (ds == null) {
+            synchronized (this) {
+                ds = delegate;
+                if (ds == null) {
+                    ds = Objects.requireNonNull(resolver.get(), () -> "Null DataSource resolved for " + name);
+                    delegate = ds;
+                }
+            }
+        }
+
+        return ds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return delegate().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return delegate().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate().setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate().setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate().getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : delegate().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate().isWrapperFor(iface);
+    }
+}
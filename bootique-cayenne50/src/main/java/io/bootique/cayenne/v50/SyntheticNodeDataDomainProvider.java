@@ -19,6 +19,8 @@
 
 package io.bootique.cayenne.v50;
 
+import io.bootique.cayenne.v50.startup.StartupTimer;
+import org.apache.cayenne.access.DataDomain;
 import org.apache.cayenne.configuration.DataChannelDescriptor;
 import org.apache.cayenne.configuration.DataNodeDescriptor;
 import org.apache.cayenne.configuration.runtime.DataDomainProvider;
@@ -29,20 +31,54 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class SyntheticNodeDataDomainProvider extends DataDomainProvider {
 
+    /**
+     * @since 4.0
+     */
+    public static final String SHARDED_NODE_NAME = "shards";
+
     private final String defaultDatasourceName;
     private final Map<String, String> mapsToDatasources;
+    private final Set<String> shardedMaps;
+    private final StartupTimer startupTimer;
+    private final Consumer<DataDomain> onCreated;
 
     public SyntheticNodeDataDomainProvider(String defaultDatasourceName, Map<String, String> mapsToDatasources) {
+        this(defaultDatasourceName, mapsToDatasources, Set.of(), null, d -> {});
+    }
+
+    /**
+     * @since 4.0
+     */
+    public SyntheticNodeDataDomainProvider(
+            String defaultDatasourceName,
+            Map<String, String> mapsToDatasources,
+            Set<String> shardedMaps,
+            StartupTimer startupTimer,
+            Consumer<DataDomain> onCreated) {
+
         this.defaultDatasourceName = defaultDatasourceName;
         this.mapsToDatasources = mapsToDatasources;
+        this.shardedMaps = shardedMaps;
+        this.startupTimer = startupTimer;
+        this.onCreated = Objects.requireNonNull(onCreated);
+    }
+
+    @Override
+    public DataDomain get() {
+        DataDomain domain = startupTimer != null ? startupTimer.call("dataDomain", super::get) : super.get();
+        onCreated.accept(domain);
+        return domain;
     }
 
     @Override
     protected DataChannelDescriptor loadDescriptor() {
-        DataChannelDescriptor d = super.loadDescriptor();
+        DataChannelDescriptor d = startupTimer != null
+                ? startupTimer.call("loadDescriptor", super::loadDescriptor)
+                : super.loadDescriptor();
         return updateDataNodes(d);
     }
 
@@ -68,6 +104,18 @@ public class SyntheticNodeDataDomainProvider extends DataDomainProvider {
             }
         }
 
+        // sharded maps share a single node, whose DataSource routes connections to the shards
+        DataNodeDescriptor shardedNode = null;
+        for (String mapName : shardedMaps) {
+            if (cd.getDataMap(mapName) != null) {
+                if (shardedNode == null) {
+                    shardedNode = addShardedNodeDescriptor(cd);
+                }
+
+                relinkDataMapToNode(cd, mapName, shardedNode.getName());
+            }
+        }
+
         // any remaining stray maps should be linked to the default DataSource if it exists
         if (defaultDatasourceName != null) {
             Set<String> unresolvedMaps = new HashSet<>();
@@ -110,6 +158,15 @@ public class SyntheticNodeDataDomainProvider extends DataDomainProvider {
         return nd;
     }
 
+    private DataNodeDescriptor addShardedNodeDescriptor(DataChannelDescriptor cd) {
+        DataNodeDescriptor nd = new DataNodeDescriptor(uniqueNodeName(cd, SHARDED_NODE_NAME));
+        nd.setDataChannelDescriptor(cd);
+        nd.setParameters(BQCayenneDataSourceFactory.SHARDS_REF);
+
+        cd.getNodeDescriptors().add(nd);
+        return nd;
+    }
+
     private void relinkDataMapToNode(DataChannelDescriptor cd, String dataMapName, String targetDataNodeName) {
         DataNodeDescriptor targetNd = cd.getNodeDescriptor(targetDataNodeName);
         cd.getNodeDescriptors().stream().filter(nd -> nd != targetNd).forEach(nd -> nd.getDataMapNames().remove(dataMapName));
@@ -0,0 +1,516 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded in-memory cache with W-TinyLFU eviction. New entries are placed in a small LRU "window", and when they
+ * are pushed out of it, they are only admitted to the segmented LRU "main" area if they were historically accessed
+ * more often than the main area eviction victim. Access frequencies are tracked by an approximate
+ * {@link FrequencySketch}. This keeps one-off entries from flushing out the popular ones.
+ * <p>
+ * The capacity is accounted by weight, computed for each value by the provided weigher. To bound the cache by the
+ * number of entries, use a weigher that returns 1. The frequency sketch is sized by the number of entries, which for
+ * the weighted caches is estimated from the expected average weight of a value. The cache is split into
+ * independently locked segments to reduce contention. Null keys and values are not supported.
+ *
+ * @since 4.0
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final ToIntFunction<? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final LongAdder evictions;
+
+    /**
+     * Creates a cache bounded by the number of entries.
+     */
+    public static <K, V> TinyLfuCache<K, V> ofMaxEntries(long maxEntries, long expireAfterWriteMs) {
+        return new TinyLfuCache<>(maxEntries, v -> 1, expireAfterWriteMs, defaultSegments(maxEntries));
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of the values.
+     *
+     * @param averageWeight expected average weight of a value, used to estimate the number of entries
+     */
+    public static <K, V> TinyLfuCache<K, V> ofMaxWeight(
+            long maxWeight,
+            ToIntFunction<? super V> weigher,
+            int averageWeight,
+            long expireAfterWriteMs) {
+
+        int segments = defaultSegments(expectedEntries(maxWeight, averageWeight));
+        return new TinyLfuCache<>(maxWeight, weigher, averageWeight, expireAfterWriteMs, segments);
+    }
+
+    private static long expectedEntries(long maxWeight, int averageWeight) {
+        return Math.max(1, maxWeight / Math.max(1, averageWeight));
+    }
+
+    private static int defaultSegments(long expectedEntries) {
+
+        // avoid tiny segments, as the eviction quality suffers when each segment only holds a handful of entries
+        int bySize = (int) Math.max(1, Math.min(expectedEntries / 256, Integer.MAX_VALUE));
+        int byCpu = Runtime.getRuntime().availableProcessors() * 2;
+        return Integer.highestOneBit(Math.min(bySize, byCpu));
+    }
+
+    /**
+     * Creates a cache with the frequency sketch sized for the values of weight 1.
+     *
+     * @param maxWeight          maximum total weight of the cached values
+     * @param weigher            a function to calculate the weight of each value
+     * @param expireAfterWriteMs how long the entries are kept after they were stored. Zero or negative means no
+     *                           expiration.
+     * @param segments           the number of independently locked segments. Rounded down to a power of 2.
+     */
+    public TinyLfuCache(long maxWeight, ToIntFunction<? super V> weigher, long expireAfterWriteMs, int segments) {
+        this(maxWeight, weigher, 1, expireAfterWriteMs, segments);
+    }
+
+    /**
+     * @param maxWeight          maximum total weight of the cached values
+     * @param weigher            a function to calculate the weight of each value
+     * @param averageWeight      expected average weight of a value, used to estimate the number of entries that the
+     *                           frequency sketch should track. E.g., for the byte-weighted values, the typical value
+     *                           size in bytes.
+     * @param expireAfterWriteMs how long the entries are kept after they were stored. Zero or negative means no
+     *                           expiration.
+     * @param segments           the number of independently locked segments. Rounded down to a power of 2.
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(
+            long maxWeight,
+            ToIntFunction<? super V> weigher,
+            int averageWeight,
+            long expireAfterWriteMs,
+            int segments) {
+
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache max weight must be positive: " + maxWeight);
+        }
+
+        int segmentCount = Integer.highestOneBit(Math.max(1, segments));
+
+        this.weigher = Objects.requireNonNull(weigher);
+        this.expireAfterWriteNanos = expireAfterWriteMs > 0 ? expireAfterWriteMs * 1_000_000L : 0L;
+        this.evictions = new LongAdder();
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+
+        long segmentWeight = Math.max(1, maxWeight / segmentCount);
+        long segmentEntries = expectedEntries(segmentWeight, averageWeight);
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment<>(segmentWeight, segmentEntries, evictions);
+        }
+    }
+
+    public V get(K key) {
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(value);
+
+        int hash = spread(key.hashCode());
+        long expiresAt = expireAfterWriteNanos > 0 ? System.nanoTime() + expireAfterWriteNanos : 0L;
+        segmentFor(hash).put(key, hash, value, weigher.applyAsInt(value), expiresAt);
+    }
+
+    public void remove(K key) {
+        int hash = spread(key.hashCode());
+        segmentFor(hash).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> s : segments) {
+            s.clear();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache, including those that have expired, but were not yet removed.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> s : segments) {
+            size += s.size();
+        }
+        return size;
+    }
+
+    public long weightedSize() {
+        long weight = 0;
+        for (Segment<K, V> s : segments) {
+            weight += s.weightedSize();
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the number of entries removed because of the capacity limit since the cache creation.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // the memory taken by the frequency sketches of all segments, in bytes
+    long sketchBytes() {
+        long bytes = 0;
+        for (Segment<K, V> s : segments) {
+            bytes += s.sketch.bytes();
+        }
+        return bytes;
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+
+        // using the high bits, as the low bits are used to index within the segment hash map
+        return segments[(hash >>> 16) & segmentMask];
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        h ^= h >>> 11;
+        h *= 0xac4c1b51;
+        h ^= h >>> 15;
+        return h;
+    }
+
+    static final byte WINDOW = 0;
+    static final byte PROBATION = 1;
+    static final byte PROTECTED = 2;
+
+    static class Node<K, V> {
+
+        final K key;
+        final int hash;
+        V value;
+        int weight;
+        long expiresAt;
+        byte queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, int hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    static class NodeList<K, V> {
+
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+
+    static class Segment<K, V> {
+
+        private final ReentrantLock lock;
+        private final Map<K, Node<K, V>> map;
+        private final FrequencySketch sketch;
+        private final NodeList<K, V> window;
+        private final NodeList<K, V> probation;
+        private final NodeList<K, V> protectedList;
+        private final LongAdder evictions;
+
+        private final long maxWeight;
+        private final long maxWindowWeight;
+        private final long maxProtectedWeight;
+
+        private long weight;
+        private long windowWeight;
+        private long protectedWeight;
+
+        Segment(long maxWeight, long expectedEntries, LongAdder evictions) {
+            this.lock = new ReentrantLock();
+            this.map = new HashMap<>();
+            this.sketch = new FrequencySketch(expectedEntries);
+            this.window = new NodeList<>();
+            this.probation = new NodeList<>();
+            this.protectedList = new NodeList<>();
+            this.evictions = evictions;
+
+            this.maxWeight = maxWeight;
+            this.maxWindowWeight = Math.max(1, maxWeight * WINDOW_PERCENT / 100);
+            this.maxProtectedWeight = (maxWeight - maxWindowWeight) * PROTECTED_PERCENT / 100;
+        }
+
+        V get(K key, int hash) {
+            lock.lock();
+            try {
+                Node<K, V> node = map.get(key);
+                if (node == null) {
+                    return null;
+                }
+
+                if (node.expiresAt != 0L && node.expiresAt - System.nanoTime() <= 0) {
+                    removeNode(node);
+                    return null;
+                }
+
+                sketch.increment(hash);
+                onHit(node);
+                return node.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(K key, int hash, V value, int valueWeight, long expiresAt) {
+            lock.lock();
+            try {
+                Node<K, V> node = map.get(key);
+
+                // an entry that can never fit is rejected, also removing the outdated value
+                if (valueWeight > maxWeight) {
+                    if (node != null) {
+                        removeNode(node);
+                    }
+                    return;
+                }
+
+                sketch.increment(hash);
+
+                if (node != null) {
+                    int delta = valueWeight - node.weight;
+                    node.value = value;
+                    node.weight = valueWeight;
+                    node.expiresAt = expiresAt;
+                    weight += delta;
+                    if (node.queue == WINDOW) {
+                        windowWeight += delta;
+                    } else if (node.queue == PROTECTED) {
+                        protectedWeight += delta;
+                    }
+
+                    onHit(node);
+                } else {
+                    node = new Node<>(key, hash);
+                    node.value = value;
+                    node.weight = valueWeight;
+                    node.expiresAt = expiresAt;
+                    node.queue = WINDOW;
+                    map.put(key, node);
+                    window.addLast(node);
+                    windowWeight += valueWeight;
+                    weight += valueWeight;
+                }
+
+                evict();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(K key) {
+            lock.lock();
+            try {
+                Node<K, V> node = map.get(key);
+                if (node != null) {
+                    removeNode(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                map.clear();
+                window.clear();
+                probation.clear();
+                protectedList.clear();
+                weight = 0;
+                windowWeight = 0;
+                protectedWeight = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long weightedSize() {
+            lock.lock();
+            try {
+                return weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onHit(Node<K, V> node) {
+            switch (node.queue) {
+                case WINDOW:
+                    window.moveToLast(node);
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    node.queue = PROTECTED;
+                    protectedList.addLast(node);
+                    protectedWeight += node.weight;
+                    demoteProtected();
+                    break;
+                default:
+                    protectedList.moveToLast(node);
+                    break;
+            }
+        }
+
+        private void demoteProtected() {
+            while (protectedWeight > maxProtectedWeight && protectedList.head != null) {
+                Node<K, V> demoted = protectedList.head;
+                protectedList.remove(demoted);
+                protectedWeight -= demoted.weight;
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        }
+
+        private void evict() {
+
+            // entries pushed out of the window become admission candidates at the probation tail
+            Node<K, V> candidate = null;
+            while (windowWeight > maxWindowWeight && window.head != null) {
+                Node<K, V> moved = window.head;
+                window.remove(moved);
+                windowWeight -= moved.weight;
+                moved.queue = PROBATION;
+                probation.addLast(moved);
+
+                if (candidate == null) {
+                    candidate = moved;
+                }
+            }
+
+            while (weight > maxWeight) {
+                Node<K, V> victim = probation.head != null ? probation.head
+                        : protectedList.head != null ? protectedList.head
+                        : window.head;
+
+                if (victim == null) {
+                    return;
+                }
+
+                if (candidate == null) {
+                    evictNode(victim);
+                    continue;
+                }
+
+                // the victim wins the ties, as it has a proven value, while the candidate may be a one-hit wonder
+                Node<K, V> nextCandidate = candidate.next;
+                if (candidate != victim && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                    evictNode(victim);
+                } else {
+                    evictNode(candidate);
+                }
+
+                candidate = nextCandidate;
+            }
+        }
+
+        private void evictNode(Node<K, V> node) {
+            removeNode(node);
+            evictions.increment();
+        }
+
+        private void removeNode(Node<K, V> node) {
+            map.remove(node.key);
+            weight -= node.weight;
+
+            switch (node.queue) {
+                case WINDOW:
+                    window.remove(node);
+                    windowWeight -= node.weight;
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    break;
+                default:
+                    protectedList.remove(node);
+                    protectedWeight -= node.weight;
+                    break;
+            }
+        }
+    }
+}
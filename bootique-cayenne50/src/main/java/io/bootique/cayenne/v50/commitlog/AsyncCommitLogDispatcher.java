@@ -0,0 +1,212 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Invokes post-commit listeners outside the committing thread. Change sets are placed in a bounded queue and
+ * processed by a single worker thread (platform or virtual), in the order of commits. Within each change set, the
+ * listeners are invoked in the order produced by {@link CommitLogListenerGraph}. So both per-listener ordering and
+ * the "after" dependencies are preserved.
+ *
+ * @since 4.0
+ */
+public class AsyncCommitLogDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncCommitLogDispatcher.class);
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final BlockingQueue<Runnable> queue;
+    private final CommitLogOverflowPolicy overflowPolicy;
+    private final AsyncCommitLogMetrics metrics;
+    private final long shutdownTimeoutMs;
+    private final Thread worker;
+
+    // guards the "running" flag transition against the concurrent enqueueing, so that no change set is queued after
+    // the worker has stopped
+    private final ReadWriteLock stateLock;
+
+    private volatile boolean running;
+
+    public AsyncCommitLogDispatcher(
+            int queueSize,
+            CommitLogOverflowPolicy overflowPolicy,
+            boolean virtualThreads,
+            long shutdownTimeoutMs,
+            AsyncCommitLogMetrics metrics) {
+
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.overflowPolicy = overflowPolicy;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.metrics = metrics;
+        this.stateLock = new ReentrantReadWriteLock();
+
+        Thread.Builder threadBuilder = virtualThreads
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        this.worker = threadBuilder.name("bootique-cayenne-commitlog").unstarted(this::drain);
+
+        metrics.bindQueue(queue::size);
+    }
+
+    public AsyncCommitLogDispatcher start() {
+        running = true;
+        worker.start();
+        return this;
+    }
+
+    /**
+     * Stops accepting new change sets, and waits for the queued ones to be processed, up to the configured shutdown
+     * timeout. If the worker has exited before processing all the change sets (e.g. was interrupted), the remaining
+     * ones are processed on the calling thread.
+     */
+    public void shutdown() {
+
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // the worker is still busy after the timeout, can't process the rest without breaking the commit order
+        if (!worker.isAlive()) {
+            runQueued();
+        }
+
+        if (!queue.isEmpty()) {
+            LOGGER.warn("CommitLog dispatcher stopped with {} undelivered change set(s)", queue.size());
+        }
+    }
+
+    /**
+     * Returns a listener that dispatches each change set to the provided sorted listeners via this dispatcher.
+     */
+    public CommitLogListener dispatchTo(List<CommitLogListener> sortedListeners) {
+        return (context, changes) -> submit(() -> invoke(sortedListeners, context, changes));
+    }
+
+    void submit(Runnable task) {
+
+        boolean queued;
+        stateLock.readLock().lock();
+        try {
+            queued = running && enqueue(task);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        if (queued) {
+            metrics.onSubmitted(queue.size());
+        } else {
+            metrics.onCallerRuns();
+            task.run();
+        }
+    }
+
+    // returns false if the task must be run by the caller
+    private boolean enqueue(Runnable task) {
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+
+                    // waiting in intervals, so that a dead worker doesn't block the committing thread forever
+                    while (!queue.offer(task, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                        if (!worker.isAlive()) {
+                            return false;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // don't lose the change set if the committing thread is interrupted
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                return true;
+            case DROP_OLDEST:
+                while (!queue.offer(task)) {
+                    if (queue.poll() != null) {
+                        metrics.onDropped();
+                    }
+                }
+                return true;
+            case CALLER_RUNS:
+                return queue.offer(task);
+            default:
+                throw new IllegalStateException("Unsupported overflow policy: " + overflowPolicy);
+        }
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+
+            Runnable task;
+            try {
+                task = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+
+    private void runQueued() {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void invoke(List<CommitLogListener> listeners, ObjectContext context, ChangeMap changes) {
+        for (CommitLogListener l : listeners) {
+            try {
+                l.onPostCommit(context, changes);
+            } catch (RuntimeException e) {
+                metrics.onListenerError();
+                LOGGER.error("CommitLog listener failed: " + l.getClass().getName(), e);
+            }
+        }
+
+        metrics.onCompleted();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures asynchronous invocation of post-commit CommitLog listeners")
+public class AsyncCommitLogFactory {
+
+    private static final int DEFAULT_QUEUE_SIZE = 10_000;
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private int queueSize;
+    private CommitLogOverflowPolicy overflowPolicy;
+    private boolean virtualThreads;
+    private Duration shutdownTimeout;
+
+    @BQConfigProperty("The maximum number of change sets waiting for dispatch. The default is 10000.")
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    @BQConfigProperty("""
+            What to do when the queue is full. One of 'BLOCK', 'DROP_OLDEST' or 'CALLER_RUNS'. The default is
+            'BLOCK'.""")
+    public void setOverflowPolicy(CommitLogOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @BQConfigProperty("Whether to process change sets on a virtual thread. The default is 'false'.")
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @BQConfigProperty("""
+            How long to wait on shutdown for the queued change sets to be processed. The default is 10s.""")
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public AsyncCommitLogDispatcher createDispatcher(AsyncCommitLogMetrics metrics) {
+        return new AsyncCommitLogDispatcher(
+                queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE,
+                overflowPolicy != null ? overflowPolicy : CommitLogOverflowPolicy.BLOCK,
+                virtualThreads,
+                shutdownTimeout != null ? shutdownTimeout.getDuration().toMillis() : DEFAULT_SHUTDOWN_TIMEOUT_MS,
+                metrics).start();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Queue depth and throughput metrics of the asynchronous post-commit listener dispatch. Injectable, and only
+ * populated when "cayenne.asyncCommitLog" is configured.
+ *
+ * @since 4.0
+ */
+public class AsyncCommitLogMetrics {
+
+    private final LongAdder submitted;
+    private final LongAdder completed;
+    private final LongAdder dropped;
+    private final LongAdder callerRuns;
+    private final LongAdder listenerErrors;
+    private final LongAccumulator maxQueueDepth;
+    private volatile IntSupplier queueDepth;
+
+    public AsyncCommitLogMetrics() {
+        this.submitted = new LongAdder();
+        this.completed = new LongAdder();
+        this.dropped = new LongAdder();
+        this.callerRuns = new LongAdder();
+        this.listenerErrors = new LongAdder();
+        this.maxQueueDepth = new LongAccumulator(Math::max, 0);
+        this.queueDepth = () -> 0;
+    }
+
+    void bindQueue(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void onSubmitted(int depthAfterSubmit) {
+        submitted.increment();
+        maxQueueDepth.accumulate(depthAfterSubmit);
+    }
+
+    void onCompleted() {
+        completed.increment();
+    }
+
+    void onDropped() {
+        dropped.increment();
+    }
+
+    void onCallerRuns() {
+        callerRuns.increment();
+    }
+
+    void onListenerError() {
+        listenerErrors.increment();
+    }
+
+    /**
+     * Returns the current number of change sets waiting for dispatch.
+     */
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /**
+     * Returns the largest queue depth observed since startup.
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Returns the number of change sets discarded per {@link CommitLogOverflowPolicy#DROP_OLDEST} policy.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of change sets processed on the committing thread because the queue was full (per
+     * {@link CommitLogOverflowPolicy#CALLER_RUNS} policy) or the dispatcher was shut down.
+     */
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    public long getListenerErrors() {
+        return listenerErrors.sum();
+    }
+}
@@ -37,17 +37,42 @@ class CommitLogListenerGraph {
         }
 
         // separately handling the case of no sorting (because of the sorting limitations below)
-        boolean hasSort = false;
+        if (!hasSort(unsorted)) {
+            return unsorted.stream().map(MappedCommitLogListener::getListener).collect(Collectors.toList());
+        }
+
+        return resolve(unsorted).topSort();
+    }
+
+    /**
+     * Groups listeners into dependency levels. Listeners within each level do not depend on each other, and
+     * every listener is placed in a level after all the listeners it depends on.
+     *
+     * @since 4.0
+     */
+    static List<List<CommitLogListener>> resolveAndGroup(List<MappedCommitLogListener> unsorted) {
+        if (unsorted.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (unsorted.size() == 1 || !hasSort(unsorted)) {
+            return List.of(unsorted.stream().map(MappedCommitLogListener::getListener).collect(Collectors.toList()));
+        }
+
+        return resolve(unsorted).topSortLevels();
+    }
+
+    private static boolean hasSort(List<MappedCommitLogListener> unsorted) {
         for (MappedCommitLogListener listener : unsorted) {
             if (listener.getAfter() != null) {
-                hasSort = true;
-                break;
+                return true;
             }
         }
 
-        if (!hasSort) {
-            return unsorted.stream().map(MappedCommitLogListener::getListener).collect(Collectors.toList());
-        }
+        return false;
+    }
+
+    private static CommitLogListenerGraph resolve(List<MappedCommitLogListener> unsorted) {
 
         // Second-guessing the DI-resolved "after" instances. "After" types may not be declared as singletons, but we
         // need to resolve them to the List listeners... This will only work as long as each listener is of a unique
@@ -68,7 +93,7 @@ class CommitLogListenerGraph {
                 .filter(l -> listenersByType.get(l.getAfter()) != null)
                 .forEach(l -> graph.add(l.getListener(), listenersByType.get(l.getAfter())));
 
-        return graph.topSort();
+        return graph;
     }
 
     private final Map<CommitLogListener, List<CommitLogListener>> neighbors;
@@ -145,4 +170,35 @@ class CommitLogListenerGraph {
         Collections.reverse(result);
         return result;
     }
+
+    /**
+     * Return the vertices grouped by dependency level, preserving the topological sort order within each level.
+     * Throws an exception if cycles are detected.
+     *
+     * @since 4.0
+     */
+    List<List<CommitLogListener>> topSortLevels() {
+
+        // in the sorted list, each vertex follows all the vertices it depends on
+        List<CommitLogListener> sorted = topSort();
+
+        Map<CommitLogListener, Integer> levels = new HashMap<>();
+        List<List<CommitLogListener>> result = new ArrayList<>();
+
+        for (CommitLogListener v : sorted) {
+            int level = 0;
+            for (CommitLogListener dependency : neighbors.get(v)) {
+                level = Math.max(level, levels.get(dependency) + 1);
+            }
+
+            levels.put(v, level);
+            if (result.size() == level) {
+                result.add(new ArrayList<>());
+            }
+
+            result.get(level).add(v);
+        }
+
+        return result;
+    }
 }
@@ -21,7 +21,6 @@ package io.bootique.cayenne.v50.commitlog;
 import org.apache.cayenne.DataChannel;
 import org.apache.cayenne.commitlog.CommitLogFilter;
 import org.apache.cayenne.commitlog.CommitLogListener;
-import org.apache.cayenne.commitlog.meta.AnnotationCommitLogEntityFactory;
 import org.apache.cayenne.commitlog.meta.CommitLogEntityFactory;
 import org.apache.cayenne.commitlog.meta.IncludeAllCommitLogEntityFactory;
 import org.apache.cayenne.configuration.runtime.CoreModule;
@@ -33,8 +32,12 @@ import org.apache.cayenne.runtime.CayenneRuntimeBuilder;
 import org.apache.cayenne.tx.TransactionFilter;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * A helper to conditionally build extensions related to Cayenne CommitLog module.
@@ -44,6 +47,9 @@ import java.util.Objects;
 public class CommitLogModuleBuilder {
 
     private boolean applyCommitLogAnnotation;
+    private AsyncCommitLogDispatcher postTxDispatcher;
+    private Executor postTxExecutor;
+    private volatile IndexedCommitLogEntityFactory annotationEntityFactory;
     private List<MappedCommitLogListener> preTx;
     private List<MappedCommitLogListener> postTx;
 
@@ -64,6 +70,25 @@ public class CommitLogModuleBuilder {
         this.applyCommitLogAnnotation = true;
     }
 
+    /**
+     * Configures post-commit listeners to be invoked via the provided dispatcher instead of the committing thread.
+     *
+     * @since 4.0
+     */
+    public void dispatchPostTxAsync(AsyncCommitLogDispatcher dispatcher) {
+        this.postTxDispatcher = dispatcher;
+    }
+
+    /**
+     * Configures post-commit listeners to be split into dependency levels, with the listeners within each level
+     * invoked in parallel on the provided executor. The next level starts only when the current one is finished.
+     *
+     * @since 4.0
+     */
+    public void invokePostTxInParallel(Executor executor) {
+        this.postTxExecutor = executor;
+    }
+
     public void add(MappedCommitLogListener mappedListener) {
         get(mappedListener.isIncludeInTransaction()).add(mappedListener);
     }
@@ -114,11 +139,96 @@ public class CommitLogModuleBuilder {
     }
 
     private CommitLogEntityFactory createEntityFactory(Provider<DataChannel> dataChannelProvider) {
+
+        // both pre- and post-commit filters share a single annotation index
         return applyCommitLogAnnotation
-                ? new AnnotationCommitLogEntityFactory(dataChannelProvider)
+                ? id -> annotationEntityFactory(dataChannelProvider).getEntity(id)
                 : new IncludeAllCommitLogEntityFactory();
     }
 
+    // the filters are created together with the DataDomain, so the index is built on the first commit, when the
+    // DataChannel is available. This keeps the DataDomain lazy
+    private IndexedCommitLogEntityFactory annotationEntityFactory(Provider<DataChannel> dataChannelProvider) {
+
+        IndexedCommitLogEntityFactory factory = this.annotationEntityFactory;
+        if (factory == null) {
+            synchronized (this) {
+                factory = this.annotationEntityFactory;
+                if (factory == null) {
+                    factory = this.annotationEntityFactory =
+                            new IndexedCommitLogEntityFactory(dataChannelProvider.get().getEntityResolver());
+                }
+            }
+        }
+
+        return factory;
+    }
+
+    private static LeveledCommitLogListener leveledListener(List<MappedCommitLogListener> mapped, Executor executor) {
+
+        List<List<CommitLogListener>> levels = CommitLogListenerGraph.resolveAndGroup(mapped);
+        List<List<CommitLogListener>> subscribed = subscribeLevels(mapped, levels);
+
+        // the dependencies must refer to the invoked (i.e. subscribed) listeners
+        Map<CommitLogListener, CommitLogListener> invoked = new IdentityHashMap<>();
+        for (int i = 0; i < levels.size(); i++) {
+            for (int j = 0; j < levels.get(i).size(); j++) {
+                invoked.put(levels.get(i).get(j), subscribed.get(i).get(j));
+            }
+        }
+
+        // same as CommitLogListenerGraph, relying on each listener being of a unique type
+        Map<Class<?>, CommitLogListener> byType = new HashMap<>();
+        mapped.forEach(m -> byType.putIfAbsent(m.getListener().getClass(), m.getListener()));
+
+        Map<CommitLogListener, CommitLogListener> dependencies = new IdentityHashMap<>();
+        for (MappedCommitLogListener m : mapped) {
+            CommitLogListener after = m.getAfter() != null ? byType.get(m.getAfter()) : null;
+            if (after != null) {
+                dependencies.put(invoked.get(m.getListener()), invoked.get(after));
+            }
+        }
+
+        return new LeveledCommitLogListener(subscribed, dependencies, executor);
+    }
+
+    private static List<List<CommitLogListener>> subscribeLevels(
+            List<MappedCommitLogListener> mapped,
+            List<List<CommitLogListener>> levels) {
+
+        List<List<CommitLogListener>> subscribed = new ArrayList<>(levels.size());
+        for (List<CommitLogListener> level : levels) {
+            subscribed.add(subscribe(mapped, level));
+        }
+
+        return subscribed;
+    }
+
+    // wrapping the listeners with subscriptions after sorting, as the sorting relies on the listener classes
+    private static List<CommitLogListener> subscribe(
+            List<MappedCommitLogListener> mapped,
+            List<CommitLogListener> sorted) {
+
+        Map<CommitLogListener, CommitLogSubscription> subscriptions = new IdentityHashMap<>();
+        for (MappedCommitLogListener m : mapped) {
+            if (m.getSubscription() != null) {
+                subscriptions.put(m.getListener(), m.getSubscription());
+            }
+        }
+
+        if (subscriptions.isEmpty()) {
+            return sorted;
+        }
+
+        List<CommitLogListener> subscribed = new ArrayList<>(sorted.size());
+        for (CommitLogListener l : sorted) {
+            CommitLogSubscription subscription = subscriptions.get(l);
+            subscribed.add(subscription != null ? new SubscribedCommitLogListener(l, subscription) : l);
+        }
+
+        return subscribed;
+    }
+
     // TODO: We need 4 classes to create what are essentially two instances of CommitLogFilter, because the filter
     //  factory code needs access to both this Builder ivars and "Provider<DataChannel> dataChannelProvider" from the
     //  Cayenne injection stack. So aside from moving this logic to Cayenne, Cayenne DI should do a better job bridging
@@ -135,7 +245,7 @@ public class CommitLogModuleBuilder {
 
             return new PreTxCommitLogFilter(
                     createEntityFactory(dataChannelProvider),
-                    CommitLogListenerGraph.resolveAndSort(preTx));
+                    subscribe(preTx, CommitLogListenerGraph.resolveAndSort(preTx)));
         }
     }
 
@@ -148,9 +258,13 @@ public class CommitLogModuleBuilder {
         public PostTxCommitLogFilter get() throws DIRuntimeException {
             Objects.requireNonNull(dataChannelProvider);
 
+            List<CommitLogListener> listeners = postTxExecutor != null
+                    ? List.of(leveledListener(postTx, postTxExecutor))
+                    : subscribe(postTx, CommitLogListenerGraph.resolveAndSort(postTx));
+
             return new PostTxCommitLogFilter(
                     createEntityFactory(dataChannelProvider),
-                    CommitLogListenerGraph.resolveAndSort(postTx));
+                    postTxDispatcher != null ? List.of(postTxDispatcher.dispatchTo(listeners)) : listeners);
         }
     }
 
@@ -0,0 +1,44 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+/**
+ * Defines what happens when a post-commit change set is dispatched asynchronously, but the dispatch queue is full.
+ *
+ * @since 4.0
+ */
+public enum CommitLogOverflowPolicy {
+
+    /**
+     * The committing thread is blocked until there's space in the queue.
+     */
+    BLOCK,
+
+    /**
+     * The oldest change set in the queue is discarded to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Listeners are invoked on the committing thread. Note that this may cause the change set to be processed before
+     * the older change sets that are still in the queue.
+     */
+    CALLER_RUNS
+}
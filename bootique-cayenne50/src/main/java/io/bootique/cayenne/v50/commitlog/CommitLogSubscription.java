@@ -0,0 +1,85 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjEntity;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Defines a subset of entities a commit log listener is interested in. A subscribed listener is only invoked when
+ * at least one object of a matching entity was changed, and it only sees the changes of the matching entities.
+ *
+ * @since 4.0
+ */
+public class CommitLogSubscription {
+
+    private final Predicate<ObjEntity> entityPredicate;
+
+    protected CommitLogSubscription(Predicate<ObjEntity> entityPredicate) {
+        this.entityPredicate = Objects.requireNonNull(entityPredicate);
+    }
+
+    /**
+     * Creates a subscription to the changes of the entities mapped to the specified Java classes.
+     */
+    public static CommitLogSubscription of(Class<?>... entityTypes) {
+        Set<String> typeNames = new HashSet<>();
+        for (Class<?> type : entityTypes) {
+            typeNames.add(type.getName());
+        }
+
+        return new CommitLogSubscription(e -> typeNames.contains(e.getJavaClassName()));
+    }
+
+    /**
+     * Creates a subscription to the changes of the entities with the specified names.
+     */
+    public static CommitLogSubscription ofEntities(String... entityNames) {
+        Set<String> names = Set.of(entityNames);
+        return new CommitLogSubscription(e -> names.contains(e.getName()));
+    }
+
+    /**
+     * Creates a subscription to the changes of the entities matching a custom predicate. The predicate is evaluated
+     * once per entity when the listener receives its first change, not on every commit.
+     */
+    public static CommitLogSubscription matching(Predicate<ObjEntity> entityPredicate) {
+        return new CommitLogSubscription(entityPredicate);
+    }
+
+    /**
+     * Resolves this subscription against the mapping, returning the names of all the matching entities.
+     */
+    public Set<String> resolveEntityNames(EntityResolver resolver) {
+        Set<String> names = new HashSet<>();
+        for (ObjEntity e : resolver.getObjEntities()) {
+            if (entityPredicate.test(e)) {
+                names.add(e.getName());
+            }
+        }
+
+        return Set.copyOf(names);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.CommitLog;
+import org.apache.cayenne.commitlog.meta.CommitLogEntity;
+import org.apache.cayenne.commitlog.meta.CommitLogEntityFactory;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.map.ObjRelationship;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CommitLogEntityFactory} that processes {@link CommitLog} annotations of all the entities in one pass and
+ * stores the resulting inclusion flags and property masks in an immutable index. After the index is built, the
+ * commit path does no reflection, no per-entity descriptor creation and no locking, only a plain hash lookup. The
+ * index is built when the factory is created.
+ *
+ * @since 4.0
+ */
+class IndexedCommitLogEntityFactory implements CommitLogEntityFactory {
+
+    private static final CommitLogEntity EXCLUDED = new IndexedCommitLogEntity(false, Set.of(), Set.of());
+
+    private final Map<String, CommitLogEntity> index;
+
+    IndexedCommitLogEntityFactory(EntityResolver resolver) {
+        this.index = Map.copyOf(buildIndex(resolver));
+    }
+
+    @Override
+    public CommitLogEntity getEntity(ObjectId id) {
+        CommitLogEntity entity = index.get(id.getEntityName());
+        return entity != null ? entity : EXCLUDED;
+    }
+
+    static Map<String, CommitLogEntity> buildIndex(EntityResolver resolver) {
+
+        Map<String, CommitLogEntity> index = new HashMap<>();
+        for (ObjEntity e : resolver.getObjEntities()) {
+            index.put(e.getName(), createEntity(e, resolver.getClassDescriptor(e.getName()).getObjectClass()));
+        }
+
+        return index;
+    }
+
+    static CommitLogEntity createEntity(ObjEntity entity, Class<?> type) {
+
+        CommitLog a = type.getAnnotation(CommitLog.class);
+        if (a == null) {
+            return EXCLUDED;
+        }
+
+        Set<String> ignored = new HashSet<>(Set.of(a.ignoredProperties()));
+
+        if (a.ignoreAttributes()) {
+            for (ObjAttribute attribute : entity.getAttributes()) {
+                ignored.add(attribute.getName());
+            }
+        }
+
+        for (ObjRelationship r : entity.getRelationships()) {
+            if (r.isToMany() ? a.ignoreToManyRelationships() : a.ignoreToOneRelationships()) {
+                ignored.add(r.getName());
+            }
+        }
+
+        return new IndexedCommitLogEntity(true, Set.copyOf(ignored), Set.of(a.confidential()));
+    }
+
+    static class IndexedCommitLogEntity implements CommitLogEntity {
+
+        private final boolean included;
+        private final Set<String> ignoredProperties;
+        private final Set<String> confidentialProperties;
+
+        IndexedCommitLogEntity(boolean included, Set<String> ignoredProperties, Set<String> confidentialProperties) {
+            this.included = included;
+            this.ignoredProperties = ignoredProperties;
+            this.confidentialProperties = confidentialProperties;
+        }
+
+        @Override
+        public boolean isIncluded() {
+            return included;
+        }
+
+        @Override
+        public boolean isIncluded(String property) {
+            return included && !ignoredProperties.contains(property);
+        }
+
+        @Override
+        public boolean isConfidential(String property) {
+            return confidentialProperties.contains(property);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A composite listener that invokes listener dependency levels one after another, and the listeners within each
+ * level in parallel. The calling thread takes part in the processing of each level. Same as with the serial
+ * invocation, a listener failure is logged and does not affect the other listeners, except for those that depend on
+ * the failed listener (directly or transitively), which are skipped.
+ *
+ * @since 4.0
+ */
+class LeveledCommitLogListener implements CommitLogListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeveledCommitLogListener.class);
+
+    private final List<List<CommitLogListener>> levels;
+    private final Map<CommitLogListener, CommitLogListener> dependencies;
+    private final Executor executor;
+
+    /**
+     * @param levels       listener dependency levels
+     * @param dependencies a map of listeners to the listeners they must be invoked after
+     * @param executor     an executor to run the listeners of the same level
+     */
+    LeveledCommitLogListener(
+            List<List<CommitLogListener>> levels,
+            Map<CommitLogListener, CommitLogListener> dependencies,
+            Executor executor) {
+
+        this.levels = levels;
+        this.dependencies = dependencies;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+
+        Set<CommitLogListener> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<CommitLogListener> level : levels) {
+            invokeLevel(level, originatingContext, changes, failed);
+        }
+    }
+
+    private void invokeLevel(
+            List<CommitLogListener> level,
+            ObjectContext originatingContext,
+            ChangeMap changes,
+            Set<CommitLogListener> failed) {
+
+        List<CommitLogListener> invoked = new ArrayList<>(level.size());
+        for (CommitLogListener l : level) {
+            if (failed.contains(dependencies.get(l))) {
+                LOGGER.warn("Skipping CommitLog listener, as the listener it depends on has failed: {}",
+                        l.getClass().getName());
+                failed.add(l);
+            } else {
+                invoked.add(l);
+            }
+        }
+
+        int len = invoked.size();
+        if (len == 0) {
+            return;
+        }
+
+        if (len == 1) {
+            if (!invoke(invoked.get(0), originatingContext, changes)) {
+                failed.add(invoked.get(0));
+            }
+            return;
+        }
+
+        List<CompletableFuture<Boolean>> forked = new ArrayList<>(len - 1);
+        for (int i = 1; i < len; i++) {
+            CommitLogListener l = invoked.get(i);
+            forked.add(CompletableFuture.supplyAsync(() -> invoke(l, originatingContext, changes), executor));
+        }
+
+        // the first listener runs on the calling thread. Waiting for the forked ones, so that the next level (and the
+        // next commit) does not overlap with this one
+        if (!invoke(invoked.get(0), originatingContext, changes)) {
+            failed.add(invoked.get(0));
+        }
+
+        for (int i = 1; i < len; i++) {
+            if (!forked.get(i - 1).join()) {
+                failed.add(invoked.get(i));
+            }
+        }
+    }
+
+    private static boolean invoke(CommitLogListener listener, ObjectContext originatingContext, ChangeMap changes) {
+        try {
+            listener.onPostCommit(originatingContext, changes);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.error("CommitLog listener failed: " + listener.getClass().getName(), e);
+            return false;
+        }
+    }
+}
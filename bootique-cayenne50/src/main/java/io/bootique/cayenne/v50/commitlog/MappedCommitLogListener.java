@@ -28,11 +28,25 @@ public class MappedCommitLogListener {
     private final CommitLogListener listener;
     private final boolean includeInTransaction;
     private final Class<? extends CommitLogListener> after;
+    private final CommitLogSubscription subscription;
 
     public MappedCommitLogListener(CommitLogListener listener, boolean includeInTransaction, Class<? extends CommitLogListener> after) {
+        this(listener, includeInTransaction, after, null);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public MappedCommitLogListener(
+            CommitLogListener listener,
+            boolean includeInTransaction,
+            Class<? extends CommitLogListener> after,
+            CommitLogSubscription subscription) {
+
         this.listener = listener;
         this.includeInTransaction = includeInTransaction;
         this.after = after;
+        this.subscription = subscription;
     }
 
     public Class<? extends CommitLogListener> getAfter() {
@@ -46,4 +60,14 @@ public class MappedCommitLogListener {
     public boolean isIncludeInTransaction() {
         return includeInTransaction;
     }
+
+    /**
+     * Returns an optional subscription limiting the entities this listener is notified about. If null, the listener
+     * receives all the changes.
+     *
+     * @since 4.0
+     */
+    public CommitLogSubscription getSubscription() {
+        return subscription;
+    }
 }
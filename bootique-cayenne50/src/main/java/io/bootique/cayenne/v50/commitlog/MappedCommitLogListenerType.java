@@ -29,19 +29,32 @@ public class MappedCommitLogListenerType {
     private final Class<? extends CommitLogListener> listenerType;
     private final boolean includeInTransaction;
     private final Class<? extends CommitLogListener> after;
+    private final CommitLogSubscription subscription;
 
     public MappedCommitLogListenerType(
             Class<? extends CommitLogListener> listenerType,
             boolean includeInTransaction,
             Class<? extends CommitLogListener> after) {
+        this(listenerType, includeInTransaction, after, null);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public MappedCommitLogListenerType(
+            Class<? extends CommitLogListener> listenerType,
+            boolean includeInTransaction,
+            Class<? extends CommitLogListener> after,
+            CommitLogSubscription subscription) {
 
         this.listenerType = listenerType;
         this.includeInTransaction = includeInTransaction;
         this.after = after;
+        this.subscription = subscription;
     }
 
     public MappedCommitLogListener resolve(Injector listenerResolver) {
         CommitLogListener listener = listenerResolver.getInstance(listenerType);
-        return new MappedCommitLogListener(listener, includeInTransaction, after);
+        return new MappedCommitLogListener(listener, includeInTransaction, after, subscription);
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures parallel invocation of independent post-commit CommitLog listeners")
+public class ParallelCommitLogFactory {
+
+    private boolean virtualThreads;
+    private int parallelism;
+
+    @BQConfigProperty("""
+            Whether to invoke listeners on virtual threads. If 'false' (default), a ForkJoinPool is used.""")
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @BQConfigProperty("""
+            ForkJoinPool parallelism. Ignored if 'virtualThreads' is 'true'. The default is the number of
+            available processors.""")
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public ExecutorService createExecutor() {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        return parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+    }
+}
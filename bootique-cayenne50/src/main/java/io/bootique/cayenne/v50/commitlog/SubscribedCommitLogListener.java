@@ -0,0 +1,131 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A listener wrapper that skips the commits that have no changes to the subscribed entities, and passes the
+ * delegate a view of the ChangeMap that only includes the subscribed entities.
+ *
+ * @since 4.0
+ */
+class SubscribedCommitLogListener implements CommitLogListener {
+
+    private final CommitLogListener delegate;
+    private final CommitLogSubscription subscription;
+    private volatile Set<String> entityNames;
+
+    SubscribedCommitLogListener(CommitLogListener delegate, CommitLogSubscription subscription) {
+        this.delegate = delegate;
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+
+        Set<String> entityNames = entityNames(originatingContext);
+
+        List<ObjectChange> matched = null;
+        List<? extends ObjectChange> unique = changes.getUniqueChanges();
+        int len = unique.size();
+        for (int i = 0; i < len; i++) {
+            ObjectChange c = unique.get(i);
+            if (entityNames.contains(id(c).getEntityName())) {
+
+                // defer the allocation until there is a match, as no match is the most common outcome
+                if (matched == null) {
+                    matched = new ArrayList<>(len - i);
+                }
+
+                matched.add(c);
+            }
+        }
+
+        if (matched == null) {
+            return;
+        }
+
+        delegate.onPostCommit(originatingContext, matched.size() == len ? changes : new FilteredChangeMap(matched));
+    }
+
+    private Set<String> entityNames(ObjectContext context) {
+
+        // the resolver is the same for all the contexts of the runtime, so resolving only once
+        Set<String> names = this.entityNames;
+        if (names == null) {
+            names = this.entityNames = subscription.resolveEntityNames(context.getEntityResolver());
+        }
+
+        return names;
+    }
+
+    // deleted objects may have no post-commit id
+    private static ObjectId id(ObjectChange change) {
+        return change.getPostCommitId() != null ? change.getPostCommitId() : change.getPreCommitId();
+    }
+
+    static class FilteredChangeMap implements ChangeMap {
+
+        private final List<ObjectChange> uniqueChanges;
+        private Map<ObjectId, ObjectChange> changes;
+
+        FilteredChangeMap(List<ObjectChange> uniqueChanges) {
+            this.uniqueChanges = uniqueChanges;
+        }
+
+        @Override
+        public List<? extends ObjectChange> getUniqueChanges() {
+            return uniqueChanges;
+        }
+
+        @Override
+        public Map<ObjectId, ? extends ObjectChange> getChanges() {
+
+            // lazily building, as most listeners only need the unique changes
+            if (changes == null) {
+                Map<ObjectId, ObjectChange> changes = new HashMap<>((int) (uniqueChanges.size() * 2 / 0.75) + 1);
+                for (ObjectChange c : uniqueChanges) {
+                    if (c.getPostCommitId() != null) {
+                        changes.put(c.getPostCommitId(), c);
+                    }
+
+                    if (c.getPreCommitId() != null) {
+                        changes.put(c.getPreCommitId(), c);
+                    }
+                }
+
+                this.changes = changes;
+            }
+
+            return changes;
+        }
+    }
+}
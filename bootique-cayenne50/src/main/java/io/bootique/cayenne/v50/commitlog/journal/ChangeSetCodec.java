@@ -0,0 +1,230 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.model.AttributeChange;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes commit change sets in a compact binary format. Each change set is written as a timestamp, followed by
+ * the list of object changes. Each change contains a type, an entity name, an ID snapshot and new values of the
+ * changed attributes. Values of the common types are written in their native binary form, everything else is
+ * written as a String.
+ *
+ * @since 4.0
+ */
+class ChangeSetCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte BYTES = 6;
+    private static final byte DECIMAL = 7;
+    private static final byte OTHER = 8;
+
+    private static final byte TYPE_INSERT = 'I';
+    private static final byte TYPE_UPDATE = 'U';
+    private static final byte TYPE_DELETE = 'D';
+
+    static byte[] encode(long timestamp, ChangeMap changes) {
+
+        List<? extends ObjectChange> objectChanges = changes.getUniqueChanges();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + objectChanges.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeLong(timestamp);
+            out.writeInt(objectChanges.size());
+
+            for (ObjectChange c : objectChanges) {
+                ObjectId id = c.getPostCommitId() != null ? c.getPostCommitId() : c.getPreCommitId();
+
+                out.writeByte(encodeType(c.getType()));
+                writeString(out, id.getEntityName());
+
+                Map<String, Object> idSnapshot = id.getIdSnapshot();
+                out.writeInt(idSnapshot.size());
+                for (Map.Entry<String, Object> e : idSnapshot.entrySet()) {
+                    writeString(out, e.getKey());
+                    writeValue(out, e.getValue());
+                }
+
+                Map<String, ? extends AttributeChange> attributes = c.getAttributeChanges();
+                out.writeInt(attributes.size());
+                for (Map.Entry<String, ? extends AttributeChange> e : attributes.entrySet()) {
+                    writeString(out, e.getKey());
+                    writeValue(out, e.getValue().getNewValue());
+                }
+            }
+
+            out.flush();
+        } catch (IOException e) {
+            // unexpected with an in-memory stream
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(JournalPosition position, ByteBuffer in) {
+
+        long timestamp = in.getLong();
+        int len = in.getInt();
+
+        List<JournalChange> changes = new ArrayList<>(len);
+        for (int i = 0; i < len; i++) {
+            ObjectChangeType type = decodeType(in.get());
+            String entityName = readString(in);
+
+            int idLen = in.getInt();
+            Map<String, Object> id = new LinkedHashMap<>((int) (idLen / 0.75) + 1);
+            for (int j = 0; j < idLen; j++) {
+                id.put(readString(in), readValue(in));
+            }
+
+            int valuesLen = in.getInt();
+            Map<String, Object> values = new LinkedHashMap<>((int) (valuesLen / 0.75) + 1);
+            for (int j = 0; j < valuesLen; j++) {
+                values.put(readString(in), readValue(in));
+            }
+
+            changes.add(new JournalChange(type, entityName, id, values));
+        }
+
+        return new JournalRecord(position, timestamp, changes);
+    }
+
+    private static byte encodeType(ObjectChangeType type) {
+        switch (type) {
+            case INSERT:
+                return TYPE_INSERT;
+            case UPDATE:
+                return TYPE_UPDATE;
+            case DELETE:
+                return TYPE_DELETE;
+            default:
+                throw new IllegalArgumentException("Unexpected change type: " + type);
+        }
+    }
+
+    private static ObjectChangeType decodeType(byte type) {
+        switch (type) {
+            case TYPE_INSERT:
+                return ObjectChangeType.INSERT;
+            case TYPE_UPDATE:
+                return ObjectChangeType.UPDATE;
+            case TYPE_DELETE:
+                return ObjectChangeType.DELETE;
+            default:
+                throw new IllegalStateException("Corrupted journal record. Unexpected change type: " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof BigDecimal d) {
+            out.writeByte(DECIMAL);
+            writeString(out, d.toString());
+        } else {
+            out.writeByte(OTHER);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+            case OTHER:
+                return readString(in);
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case BOOLEAN:
+                return in.get() != 0;
+            case BYTES:
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                return bytes;
+            case DECIMAL:
+                return new BigDecimal(readString(in));
+            default:
+                throw new IllegalStateException("Corrupted journal record. Unexpected value tag: " + tag);
+        }
+    }
+}
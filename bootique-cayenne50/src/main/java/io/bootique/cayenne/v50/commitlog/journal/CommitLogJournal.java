@@ -0,0 +1,227 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of binary records stored in segmented memory-mapped files. Appends are thread-safe. There
+ * should be a single writer per journal directory, while any number of {@link JournalReader} instances can read it
+ * concurrently. With the {@link JournalFsyncPolicy#PERIODIC} policy, the journal starts a background thread that
+ * forces the tail of the journal when no appends are coming.
+ *
+ * @since 4.0
+ */
+public class CommitLogJournal implements AutoCloseable {
+
+    private final Path dir;
+    private final int segmentSize;
+    private final JournalFsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ScheduledExecutorService fsyncTimer;
+
+    private int segment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int unforcedFrom;
+    private long lastForced;
+
+    public CommitLogJournal(Path dir, int segmentSize, JournalFsyncPolicy fsyncPolicy, long fsyncIntervalMs) {
+
+        if (segmentSize <= JournalSegments.RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncIntervalMs * 1_000_000;
+
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int last = JournalSegments.lastSegment(dir);
+        openSegment(Math.max(last, 0));
+        this.lastForced = System.nanoTime();
+        this.fsyncTimer = fsyncPolicy == JournalFsyncPolicy.PERIODIC ? startFsyncTimer(fsyncIntervalMs) : null;
+    }
+
+    private ScheduledExecutorService startFsyncTimer(long fsyncIntervalMs) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bootique-cayenne-journal-fsync");
+            t.setDaemon(true);
+            return t;
+        });
+
+        timer.scheduleWithFixedDelay(this::forceIfDue, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        return timer;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Appends a record to the journal, returning its position.
+     */
+    public synchronized JournalPosition append(byte[] payload) {
+
+        if (buffer == null) {
+            throw new IllegalStateException("Journal is closed");
+        }
+
+        int recordSize = JournalSegments.RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException(
+                    "Record of " + payload.length + " bytes does not fit in a segment of " + segmentSize + " bytes");
+        }
+
+        if (position + recordSize > segmentSize) {
+            rollover();
+        }
+
+        int offset = position;
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        // the length is written last, as it marks the record as complete for the readers
+        buffer.put(offset + JournalSegments.RECORD_HEADER_SIZE, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+
+        position += recordSize;
+        maybeForce();
+
+        return new JournalPosition(segment, offset);
+    }
+
+    /**
+     * Forces all the appended data to the storage device.
+     */
+    public synchronized void force() {
+        if (buffer != null && position > unforcedFrom) {
+            buffer.force(unforcedFrom, position - unforcedFrom);
+            unforcedFrom = position;
+        }
+
+        lastForced = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fsyncTimer != null) {
+            fsyncTimer.shutdown();
+        }
+
+        if (buffer != null) {
+            force();
+            closeChannel();
+        }
+    }
+
+    private synchronized void forceIfDue() {
+        if (System.nanoTime() - lastForced >= fsyncIntervalNanos) {
+            force();
+        }
+    }
+
+    private void maybeForce() {
+        switch (fsyncPolicy) {
+            case ALWAYS:
+                force();
+                break;
+            case PERIODIC:
+                forceIfDue();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void rollover() {
+
+        // "NEVER" policy still leaves the segment to the OS, other policies must not lose the tail of the segment
+        if (fsyncPolicy != JournalFsyncPolicy.NEVER) {
+            force();
+        }
+
+        closeChannel();
+        openSegment(segment + 1);
+    }
+
+    private void openSegment(int segment) {
+        try {
+            this.channel = FileChannel.open(
+                    JournalSegments.segmentPath(dir, segment),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            this.segment = segment;
+            this.position = recoverPosition();
+            this.unforcedFrom = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int recoverPosition() {
+
+        int offset = 0;
+        int len;
+        while ((len = JournalSegments.validRecordLength(buffer, offset)) > 0) {
+            offset += JournalSegments.RECORD_HEADER_SIZE + len;
+        }
+
+        // discard a torn record left by a crash, if any
+        if (offset + JournalSegments.RECORD_HEADER_SIZE <= segmentSize) {
+            buffer.putInt(offset, 0);
+        }
+
+        return offset;
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            channel = null;
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures a local memory-mapped journal of committed change sets")
+public class CommitLogJournalFactory {
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long DEFAULT_FSYNC_INTERVAL_MS = 1000;
+
+    private String dir;
+    private int segmentSize;
+    private JournalFsyncPolicy fsyncPolicy;
+    private Duration fsyncInterval;
+
+    @BQConfigProperty("A directory where journal segment files are stored. Required.")
+    public void setDir(String dir) {
+        this.dir = dir;
+    }
+
+    @BQConfigProperty("The size of a single segment file in bytes. The default is 64MB.")
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @BQConfigProperty("When to force the written data to disk. One of 'NEVER', 'ALWAYS' or 'PERIODIC' (default).")
+    public void setFsyncPolicy(JournalFsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    @BQConfigProperty("Minimal interval between forced writes for the 'PERIODIC' policy. The default is 1s.")
+    public void setFsyncInterval(Duration fsyncInterval) {
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    public CommitLogJournal createJournal() {
+        return new CommitLogJournal(
+                Path.of(Objects.requireNonNull(dir, "'dir' is not set for the CommitLog journal")),
+                segmentSize > 0 ? segmentSize : DEFAULT_SEGMENT_SIZE,
+                fsyncPolicy != null ? fsyncPolicy : JournalFsyncPolicy.PERIODIC,
+                fsyncInterval != null ? fsyncInterval.getDuration().toMillis() : DEFAULT_FSYNC_INTERVAL_MS);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+
+import java.util.Map;
+
+/**
+ * A single object change read from the journal.
+ *
+ * @since 4.0
+ */
+public class JournalChange {
+
+    private final ObjectChangeType type;
+    private final String entityName;
+    private final Map<String, Object> id;
+    private final Map<String, Object> values;
+
+    public JournalChange(ObjectChangeType type, String entityName, Map<String, Object> id, Map<String, Object> values) {
+        this.type = type;
+        this.entityName = entityName;
+        this.id = id;
+        this.values = values;
+    }
+
+    public ObjectChangeType getType() {
+        return type;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Returns the ID snapshot of the changed object.
+     */
+    public Map<String, Object> getId() {
+        return id;
+    }
+
+    /**
+     * Returns new values of the changed attributes.
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+}
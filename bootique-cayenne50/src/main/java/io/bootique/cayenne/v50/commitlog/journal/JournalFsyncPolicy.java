@@ -0,0 +1,44 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+/**
+ * Defines when the journal forces the appended data to the storage device.
+ *
+ * @since 4.0
+ */
+public enum JournalFsyncPolicy {
+
+    /**
+     * Never force explicitly, relying on the OS to write memory-mapped pages to disk. Survives process crashes, but
+     * not the OS crashes or power loss.
+     */
+    NEVER,
+
+    /**
+     * Force after each appended change set. The most durable and the slowest option.
+     */
+    ALWAYS,
+
+    /**
+     * Force on append if the configured interval has passed since the previous force.
+     */
+    PERIODIC
+}
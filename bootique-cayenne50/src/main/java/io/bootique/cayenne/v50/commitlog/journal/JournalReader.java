@@ -0,0 +1,156 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads change sets from a {@link CommitLogJournal} directory, starting from a given position. Can be used to replay
+ * the journal, as well as to tail it, polling for new records appended by the writer. A reader is not thread-safe.
+ *
+ * @since 4.0
+ */
+public class JournalReader implements AutoCloseable {
+
+    private final Path dir;
+
+    private int segment;
+    private int offset;
+    private MappedByteBuffer buffer;
+
+    public JournalReader(Path dir) {
+        this(dir, JournalPosition.START);
+    }
+
+    public JournalReader(Path dir, JournalPosition start) {
+        this.dir = dir;
+        this.segment = start.getSegment();
+        this.offset = start.getOffset();
+    }
+
+    /**
+     * Returns the position of the next record to be read.
+     */
+    public JournalPosition getPosition() {
+        return new JournalPosition(segment, offset);
+    }
+
+    /**
+     * Returns the next record, or null if the reader has reached the end of the data written so far. Calling this
+     * method again after a null result will return the records appended since then.
+     */
+    public JournalRecord next() {
+
+        while (true) {
+
+            if (buffer == null && !map()) {
+                return null;
+            }
+
+            int len = JournalSegments.validRecordLength(buffer, offset);
+            if (len > 0) {
+                return read(len);
+            }
+
+            // No record at the current offset. The segment may have been mapped between its file creation and
+            // extension by the writer, in which case it needs to be mapped again
+            if (remapIfGrown()) {
+                continue;
+            }
+
+            // If the writer has moved on to the next segment, the current one is final. Still must check the offset
+            // again, as the record may have been written (or the file extended) after our first check.
+            if (!Files.exists(JournalSegments.segmentPath(dir, segment + 1))) {
+                return null;
+            }
+
+            if (remapIfGrown()) {
+                continue;
+            }
+
+            len = JournalSegments.validRecordLength(buffer, offset);
+            if (len > 0) {
+                return read(len);
+            }
+
+            segment++;
+            offset = 0;
+            buffer = null;
+        }
+    }
+
+    /**
+     * Passes all the records available at the moment to the consumer, returning the number of processed records.
+     */
+    public int replay(Consumer<JournalRecord> consumer) {
+        int count = 0;
+        JournalRecord r;
+        while ((r = next()) != null) {
+            consumer.accept(r);
+            count++;
+        }
+
+        return count;
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private JournalRecord read(int len) {
+        JournalPosition position = new JournalPosition(segment, offset);
+        ByteBuffer payload = buffer.slice(offset + JournalSegments.RECORD_HEADER_SIZE, len);
+        offset += JournalSegments.RECORD_HEADER_SIZE + len;
+        return ChangeSetCodec.decode(position, payload);
+    }
+
+    private boolean remapIfGrown() {
+        try {
+            return Files.size(JournalSegments.segmentPath(dir, segment)) > buffer.capacity() && map();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean map() {
+
+        Path path = JournalSegments.segmentPath(dir, segment);
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        // the channel can be closed right after mapping, the mapping stays valid
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
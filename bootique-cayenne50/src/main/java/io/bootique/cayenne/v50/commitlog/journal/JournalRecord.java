@@ -0,0 +1,55 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import java.util.List;
+
+/**
+ * A change set of a single commit read from the journal.
+ *
+ * @since 4.0
+ */
+public class JournalRecord {
+
+    private final JournalPosition position;
+    private final long timestamp;
+    private final List<JournalChange> changes;
+
+    public JournalRecord(JournalPosition position, long timestamp, List<JournalChange> changes) {
+        this.position = position;
+        this.timestamp = timestamp;
+        this.changes = changes;
+    }
+
+    public JournalPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the time of the commit in milliseconds since epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public List<JournalChange> getChanges() {
+        return changes;
+    }
+}
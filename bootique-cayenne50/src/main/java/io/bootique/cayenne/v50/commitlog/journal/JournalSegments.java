@@ -0,0 +1,91 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal file layout shared by the writer and the readers. A journal is a directory of fixed-size segment files.
+ * Each segment contains a sequence of records, each record being a 4-byte payload length, a 4-byte CRC32 of the
+ * payload, and the payload itself. A zero length marks the end of the data written to a segment so far.
+ *
+ * @since 4.0
+ */
+class JournalSegments {
+
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".cjl";
+
+    static Path segmentPath(Path dir, int segment) {
+        return dir.resolve(String.format("%s%010d%s", PREFIX, segment, SUFFIX));
+    }
+
+    /**
+     * Returns the index of the last segment in the directory or -1 if there are no segments.
+     */
+    static int lastSegment(Path dir) {
+
+        if (!Files.isDirectory(dir)) {
+            return -1;
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                    .mapToInt(n -> Integer.parseInt(n.substring(PREFIX.length(), n.length() - SUFFIX.length())))
+                    .max()
+                    .orElse(-1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the payload length of a complete and valid record at the offset, or -1 if there's no such record.
+     */
+    static int validRecordLength(ByteBuffer segment, int offset) {
+
+        if (offset + RECORD_HEADER_SIZE > segment.limit()) {
+            return -1;
+        }
+
+        int len = segment.getInt(offset);
+        if (len <= 0 || offset + RECORD_HEADER_SIZE + len > segment.limit()) {
+            return -1;
+        }
+
+        return crc(segment, offset + RECORD_HEADER_SIZE, len) == segment.getInt(offset + 4) ? len : -1;
+    }
+
+    static int crc(ByteBuffer buffer, int offset, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, len));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.DataContext;
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.AttributeChange;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.Transaction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CommitLog listener that writes each change set to an "outbox" table in the same transaction as the commit. Must
+ * be registered as a pre-commit listener (i.e. with "includeInTransaction" set to "true"). All changes of a commit
+ * are saved with a single multi-row INSERT (split into chunks for very large commits). The outbox table is expected
+ * to exist and have the following structure (the ID column type should be adjusted for the target DB):
+ *
+ * <pre>
+ * CREATE TABLE cayenne_outbox (
+ *     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+ *     entity_name VARCHAR(200) NOT NULL,
+ *     object_id VARCHAR(1000) NOT NULL,
+ *     change_type VARCHAR(10) NOT NULL,
+ *     payload CLOB,
+ *     created_at TIMESTAMP NOT NULL
+ * )
+ * </pre>
+ * <p>
+ * The table can be drained with {@link OutboxPoller}.
+ *
+ * @since 4.0
+ */
+public class OutboxCommitLogListener implements CommitLogListener {
+
+    static final String DEFAULT_TABLE_NAME = "cayenne_outbox";
+    static final int DEFAULT_ROWS_PER_STATEMENT = 500;
+
+    private static final String COLUMNS = "(entity_name, object_id, change_type, payload, created_at)";
+    private static final String VALUES_ROW = "(?, ?, ?, ?, ?)";
+
+    private final String tableName;
+    private final String nodeName;
+    private final int rowsPerStatement;
+    private final ObjectMapper jsonMapper;
+
+    public OutboxCommitLogListener() {
+        this(DEFAULT_TABLE_NAME, null, DEFAULT_ROWS_PER_STATEMENT);
+    }
+
+    /**
+     * @param tableName        the name of the outbox table
+     * @param nodeName         the name of the DataNode whose DB has the outbox table. If null, the default node is
+     *                         used.
+     * @param rowsPerStatement the maximum number of rows in a single INSERT statement
+     */
+    public OutboxCommitLogListener(String tableName, String nodeName, int rowsPerStatement) {
+        this.tableName = tableName;
+        this.nodeName = nodeName;
+        this.rowsPerStatement = rowsPerStatement;
+        this.jsonMapper = new ObjectMapper();
+    }
+
+    @Override
+    public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+
+        List<? extends ObjectChange> objectChanges = changes.getUniqueChanges();
+        if (objectChanges.isEmpty()) {
+            return;
+        }
+
+        Transaction tx = BaseTransaction.getThreadTransaction();
+        if (tx == null) {
+            throw new CayenneRuntimeException(
+                    "No transaction is in progress. %s must be registered as a pre-commit listener",
+                    getClass().getSimpleName());
+        }
+
+        DataNode node = outboxNode(originatingContext);
+        Connection connection = tx.getOrCreateConnection(node.getName(), node.getDataSource());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        try {
+            insert(connection, objectChanges, now);
+        } catch (SQLException e) {
+            throw new CayenneRuntimeException("Error writing to the outbox table '%s'", e, tableName);
+        }
+    }
+
+    private DataNode outboxNode(ObjectContext context) {
+
+        if (!(context instanceof DataContext dc)) {
+            throw new CayenneRuntimeException("Unsupported context type: %s", context.getClass().getName());
+        }
+
+        DataDomain domain = dc.getParentDataDomain();
+        DataNode node = nodeName != null ? domain.getDataNode(nodeName) : domain.getDefaultNode();
+        if (node == null) {
+            throw nodeName != null
+                    ? new CayenneRuntimeException("No DataNode named '%s' for the outbox table", nodeName)
+                    : new CayenneRuntimeException("No default DataNode for the outbox table");
+        }
+
+        return node;
+    }
+
+    private void insert(Connection connection, List<? extends ObjectChange> changes, Timestamp now) throws SQLException {
+
+        int len = changes.size();
+        for (int from = 0; from < len; from += rowsPerStatement) {
+            int to = Math.min(len, from + rowsPerStatement);
+            insertChunk(connection, changes.subList(from, to), now);
+        }
+    }
+
+    private void insertChunk(Connection connection, List<? extends ObjectChange> chunk, Timestamp now) throws SQLException {
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(tableName).append(' ').append(COLUMNS).append(" VALUES ");
+
+        int rows = chunk.size();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(VALUES_ROW);
+        }
+
+        try (PreparedStatement st = connection.prepareStatement(sql.toString())) {
+
+            int p = 1;
+            for (ObjectChange change : chunk) {
+                ObjectId id = change.getPostCommitId() != null ? change.getPostCommitId() : change.getPreCommitId();
+                st.setString(p++, id.getEntityName());
+                st.setString(p++, toJson(id.getIdSnapshot()));
+                st.setString(p++, change.getType().name());
+                st.setString(p++, toJson(payload(change)));
+                st.setTimestamp(p++, now);
+            }
+
+            st.executeUpdate();
+        }
+    }
+
+    private Map<String, Object> payload(ObjectChange change) {
+
+        Map<String, ? extends AttributeChange> attributeChanges = change.getAttributeChanges();
+        Map<String, Object> payload = new LinkedHashMap<>((int) (attributeChanges.size() / 0.75) + 1);
+        attributeChanges.forEach((k, v) -> payload.put(k, v.getNewValue()));
+        return payload;
+    }
+
+    private static Object jsonValue(Object value) {
+
+        // keep JSON-native values as is, and use the String form for everything else to avoid serialization
+        // surprises with arbitrary value objects
+        return value == null || value instanceof Number || value instanceof Boolean || value instanceof String
+                ? value
+                : String.valueOf(value);
+    }
+
+    private String toJson(Map<String, Object> map) {
+
+        Map<String, Object> converted = new LinkedHashMap<>((int) (map.size() / 0.75) + 1);
+        map.forEach((k, v) -> converted.put(k, jsonValue(v)));
+
+        try {
+            return jsonMapper.writeValueAsString(converted);
+        } catch (JsonProcessingException e) {
+            throw new CayenneRuntimeException("Error converting outbox data to JSON", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single row of the outbox table.
+ *
+ * @since 4.0
+ */
+public class OutboxEntry {
+
+    private final long id;
+    private final String entityName;
+    private final String objectId;
+    private final String changeType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public OutboxEntry(
+            long id,
+            String entityName,
+            String objectId,
+            String changeType,
+            String payload,
+            LocalDateTime createdAt) {
+
+        this.id = id;
+        this.entityName = entityName;
+        this.objectId = objectId;
+        this.changeType = changeType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Returns a JSON representation of the changed object ID.
+     */
+    public String getObjectId() {
+        return objectId;
+    }
+
+    /**
+     * Returns one of "INSERT", "UPDATE" or "DELETE".
+     */
+    public String getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Returns a JSON object with the new values of changed attributes.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.outbox;
+
+import org.apache.cayenne.CayenneRuntimeException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Drains the outbox table populated by {@link OutboxCommitLogListener} in batches. Each batch is read, passed to the
+ * consumer and deleted in a single transaction, so if the consumer throws, the batch stays in the table and will be
+ * returned again by the next poll. Scheduling the polls is up to the caller (e.g. a periodic job).
+ *
+ * @since 4.0
+ */
+public class OutboxPoller {
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final int batchSize;
+
+    public OutboxPoller(DataSource dataSource, int batchSize) {
+        this(dataSource, OutboxCommitLogListener.DEFAULT_TABLE_NAME, batchSize);
+    }
+
+    public OutboxPoller(DataSource dataSource, String tableName, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Processes a single batch of the oldest outbox entries, returning the number of processed entries.
+     */
+    public int pollOnce(Consumer<List<OutboxEntry>> consumer) {
+
+        try (Connection c = dataSource.getConnection()) {
+
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                List<OutboxEntry> batch = read(c);
+                if (!batch.isEmpty()) {
+                    consumer.accept(batch);
+                    delete(c, batch);
+                }
+
+                c.commit();
+                return batch.size();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+
+        } catch (SQLException e) {
+            throw new CayenneRuntimeException("Error polling the outbox table '%s'", e, tableName);
+        }
+    }
+
+    /**
+     * Processes outbox entries in batches until the table is empty, returning the total number of processed
+     * entries.
+     */
+    public int drain(Consumer<List<OutboxEntry>> consumer) {
+        int total = 0;
+        int processed;
+        while ((processed = pollOnce(consumer)) > 0) {
+            total += processed;
+        }
+
+        return total;
+    }
+
+    private List<OutboxEntry> read(Connection c) throws SQLException {
+
+        String sql = "SELECT id, entity_name, object_id, change_type, payload, created_at FROM "
+                + tableName + " ORDER BY id";
+
+        try (PreparedStatement st = c.prepareStatement(sql)) {
+            st.setMaxRows(batchSize);
+
+            List<OutboxEntry> batch = new ArrayList<>(batchSize);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    batch.add(new OutboxEntry(
+                            rs.getLong(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            rs.getString(4),
+                            rs.getString(5),
+                            rs.getTimestamp(6).toLocalDateTime()));
+                }
+            }
+
+            return batch;
+        }
+    }
+
+    private void delete(Connection c, List<OutboxEntry> batch) throws SQLException {
+
+        // Deleting by explicit IDs instead of "id <= max", as the IDs of concurrently committed transactions may
+        // interleave with the IDs in this batch
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(tableName).append(" WHERE id IN (");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        sql.append(")");
+
+        try (PreparedStatement st = c.prepareStatement(sql.toString())) {
+            for (int i = 0; i < batch.size(); i++) {
+                st.setLong(i + 1, batch.get(i).getId());
+            }
+
+            st.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A QueryCache decorator that flags the current thread whenever a cached query result is loaded from the database,
+ * allowing {@link QueryMetricsFilter} to tell the shared cache hits from the misses without reading the cache
+ * itself.
+ *
+ * @since 4.0
+ */
+public class CacheLoadTrackingQueryCache implements QueryCache {
+
+    private static final ThreadLocal<Boolean> LOADED = new ThreadLocal<>();
+
+    private final QueryCache delegate;
+
+    public CacheLoadTrackingQueryCache(@Inject QueryCache delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * Starts tracking the cache loads on the current thread, returning the state of the enclosing tracking (if any)
+     * to be passed to {@link #stopTracking(Boolean)}.
+     */
+    static Boolean startTracking() {
+        Boolean outer = LOADED.get();
+        LOADED.set(Boolean.FALSE);
+        return outer;
+    }
+
+    /**
+     * Stops tracking the cache loads on the current thread, restoring the enclosing tracking state. Returns whether
+     * any results were loaded since the matching {@link #startTracking()} call.
+     */
+    static boolean stopTracking(Boolean outer) {
+        boolean loaded = Boolean.TRUE.equals(LOADED.get());
+
+        if (outer != null) {
+            LOADED.set(outer);
+        } else {
+            LOADED.remove();
+        }
+
+        return loaded;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+        return delegate.get(metadata, () -> {
+
+            // only flagging the threads that are tracked, so that no thread state is left behind
+            if (LOADED.get() != null) {
+                LOADED.set(Boolean.TRUE);
+            }
+
+            return factory.createObject();
+        });
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.ObjEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates commit latency, commit object counts and rollbacks, broken down by DataNode. Populated by
+ * {@link CommitMetricsFilter} when commit metrics are enabled via
+ * {@link io.bootique.cayenne.v50.CayenneModuleExtender#enableCommitMetrics()}. The set of metrics buckets is fixed
+ * when the DataDomain is created, so memory usage is bounded by the number of DataNodes. Metrics reporters can poll
+ * the accumulated data via {@link #snapshot()}.
+ *
+ * @since 4.0
+ */
+public class CommitMetrics {
+
+    /**
+     * A pseudo-node name used for the objects whose entities are not mapped to any known DataNode.
+     */
+    public static final String NO_NODE = "";
+
+    private final NodeCommitMetrics unmapped;
+
+    // replaced as a whole on registration, and is read-only otherwise
+    private volatile Map<String, NodeCommitMetrics> byNode;
+    private volatile Map<String, NodeCommitMetrics> byEntity;
+
+    public CommitMetrics() {
+        this.unmapped = new NodeCommitMetrics(NO_NODE);
+        this.byNode = Map.of();
+        this.byEntity = Map.of();
+    }
+
+    /**
+     * Precomputes metrics buckets for all DataNodes of the domain, as well as an index of entities to the nodes.
+     */
+    public void registerNodes(DataDomain domain) {
+
+        Map<String, NodeCommitMetrics> byNode = new LinkedHashMap<>(this.byNode);
+        Map<String, NodeCommitMetrics> byEntity = new HashMap<>(this.byEntity);
+
+        for (DataNode node : domain.getDataNodes()) {
+            NodeCommitMetrics nm = byNode.computeIfAbsent(node.getName(), NodeCommitMetrics::new);
+            for (DataMap map : node.getDataMaps()) {
+                for (ObjEntity e : map.getObjEntities()) {
+                    byEntity.put(e.getName(), nm);
+                }
+            }
+        }
+
+        this.byNode = byNode;
+        this.byEntity = byEntity;
+    }
+
+    NodeCommitMetrics forEntity(String entityName) {
+        if (entityName == null) {
+            return unmapped;
+        }
+
+        NodeCommitMetrics nm = byEntity.get(entityName);
+        return nm != null ? nm : unmapped;
+    }
+
+    /**
+     * Returns a point-in-time copy of metrics of all the nodes that had any commits.
+     */
+    public List<CommitStats> snapshot() {
+
+        List<CommitStats> stats = new ArrayList<>(byNode.size() + 1);
+        for (NodeCommitMetrics nm : byNode.values()) {
+            appendSnapshot(stats, nm);
+        }
+
+        appendSnapshot(stats, unmapped);
+        return stats;
+    }
+
+    private static void appendSnapshot(List<CommitStats> stats, NodeCommitMetrics nm) {
+        CommitStats s = nm.snapshot();
+        if (s.getCommits() > 0 || s.getRollbacks() > 0) {
+            stats.add(s);
+        }
+    }
+
+    static class NodeCommitMetrics {
+
+        final String nodeName;
+        final LatencyHistogram latency;
+        final LongAdder rollbacks;
+        final LongAdder inserted;
+        final LongAdder updated;
+        final LongAdder deleted;
+
+        NodeCommitMetrics(String nodeName) {
+            this.nodeName = nodeName;
+            this.latency = new LatencyHistogram();
+            this.rollbacks = new LongAdder();
+            this.inserted = new LongAdder();
+            this.updated = new LongAdder();
+            this.deleted = new LongAdder();
+        }
+
+        void recordCommit(long nanos, int inserted, int updated, int deleted) {
+            this.latency.record(nanos);
+            this.inserted.add(inserted);
+            this.updated.add(updated);
+            this.deleted.add(deleted);
+        }
+
+        void recordRollback() {
+            this.rollbacks.increment();
+        }
+
+        CommitStats snapshot() {
+            return new CommitStats(
+                    nodeName,
+                    latency.snapshot(),
+                    rollbacks.sum(),
+                    inserted.sum(),
+                    updated.sum(),
+                    deleted.sum());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelSyncFilter;
+import org.apache.cayenne.DataChannelSyncFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.graph.ArcId;
+import org.apache.cayenne.graph.GraphChangeHandler;
+import org.apache.cayenne.graph.GraphDiff;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A sync filter that records commit latency and object counts into {@link CommitMetrics}. Should be installed
+ * outside the transaction, so that the measured time includes the DB commit.
+ *
+ * @since 4.0
+ */
+public class CommitMetricsFilter implements DataChannelSyncFilter {
+
+    private static final int INSERTED = 0;
+    private static final int UPDATED = 1;
+    private static final int DELETED = 2;
+
+    private final CommitMetrics metrics;
+
+    public CommitMetricsFilter(CommitMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public GraphDiff onSync(
+            ObjectContext originatingContext,
+            GraphDiff changes,
+            int syncType,
+            DataChannelSyncFilterChain filterChain) {
+
+        if (syncType != DataChannel.FLUSH_CASCADE_SYNC || changes == null) {
+            return filterChain.onSync(originatingContext, changes, syncType);
+        }
+
+        Map<CommitMetrics.NodeCommitMetrics, int[]> counts = countByNode(changes);
+
+        long t0 = System.nanoTime();
+        GraphDiff result;
+        try {
+            result = filterChain.onSync(originatingContext, changes, syncType);
+        } catch (RuntimeException e) {
+            counts.keySet().forEach(CommitMetrics.NodeCommitMetrics::recordRollback);
+            throw e;
+        }
+
+        long nanos = System.nanoTime() - t0;
+        counts.forEach((nm, c) -> nm.recordCommit(nanos, c[INSERTED], c[UPDATED], c[DELETED]));
+        return result;
+    }
+
+    private Map<CommitMetrics.NodeCommitMetrics, int[]> countByNode(GraphDiff changes) {
+
+        ChangeCollector collector = new ChangeCollector();
+        changes.apply(collector);
+
+        // most commits involve a single node
+        Map<CommitMetrics.NodeCommitMetrics, int[]> counts = new IdentityHashMap<>(2);
+
+        for (Object id : collector.created) {
+            if (!collector.removed.contains(id)) {
+                count(counts, id, INSERTED);
+            }
+        }
+
+        for (Object id : collector.removed) {
+            if (!collector.created.contains(id)) {
+                count(counts, id, DELETED);
+            }
+        }
+
+        for (Object id : collector.modified) {
+            if (!collector.created.contains(id) && !collector.removed.contains(id)) {
+                count(counts, id, UPDATED);
+            }
+        }
+
+        return counts;
+    }
+
+    private void count(Map<CommitMetrics.NodeCommitMetrics, int[]> counts, Object id, int op) {
+        String entityName = id instanceof ObjectId oid ? oid.getEntityName() : null;
+        CommitMetrics.NodeCommitMetrics nm = metrics.forEntity(entityName);
+        counts.computeIfAbsent(nm, k -> new int[3])[op]++;
+    }
+
+    static class ChangeCollector implements GraphChangeHandler {
+
+        final Set<Object> created = new HashSet<>();
+        final Set<Object> removed = new HashSet<>();
+        final Set<Object> modified = new HashSet<>();
+
+        @Override
+        public void nodeIdChanged(Object nodeId, Object newId) {
+            // ignore
+        }
+
+        @Override
+        public void nodeCreated(Object nodeId) {
+            created.add(nodeId);
+        }
+
+        @Override
+        public void nodeRemoved(Object nodeId) {
+            removed.add(nodeId);
+        }
+
+        @Override
+        public void nodePropertyChanged(Object nodeId, String property, Object oldValue, Object newValue) {
+            modified.add(nodeId);
+        }
+
+        @Override
+        public void arcCreated(Object nodeId, Object targetNodeId, ArcId arcId) {
+            modified.add(nodeId);
+        }
+
+        @Override
+        public void arcDeleted(Object nodeId, Object targetNodeId, ArcId arcId) {
+            modified.add(nodeId);
+        }
+    }
+}
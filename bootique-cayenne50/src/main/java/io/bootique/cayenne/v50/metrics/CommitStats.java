@@ -0,0 +1,85 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+/**
+ * A snapshot of commit stats for a single DataNode.
+ *
+ * @since 4.0
+ */
+public class CommitStats {
+
+    private final String nodeName;
+    private final LatencyHistogram.Snapshot latency;
+    private final long rollbacks;
+    private final long inserted;
+    private final long updated;
+    private final long deleted;
+
+    public CommitStats(
+            String nodeName,
+            LatencyHistogram.Snapshot latency,
+            long rollbacks,
+            long inserted,
+            long updated,
+            long deleted) {
+
+        this.nodeName = nodeName;
+        this.latency = latency;
+        this.rollbacks = rollbacks;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    /**
+     * Returns the number of successful commits that involved this node.
+     */
+    public long getCommits() {
+        return latency.getCount();
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the number of commits involving this node that failed and were rolled back.
+     */
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+}
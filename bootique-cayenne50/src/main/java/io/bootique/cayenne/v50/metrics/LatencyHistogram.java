@@ -0,0 +1,147 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with fixed exponential buckets. Bucket "i" counts latencies in the
+ * [2^(i-1), 2^i) microseconds range, bucket 0 counts sub-microsecond latencies, and the last bucket is open-ended.
+ * Recording a value does not allocate and is safe to call concurrently from any number of threads.
+ *
+ * @since 4.0
+ */
+public class LatencyHistogram {
+
+    // the last bounded bucket ends at 2^26 µs (~67 sec)
+    static final int BUCKETS = 28;
+
+    private final LongAdder[] buckets;
+    private final LongAdder totalNanos;
+    private final LongAccumulator maxNanos;
+
+    public LatencyHistogram() {
+        this.buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new LongAccumulator(Long::max, 0);
+    }
+
+    static int bucketIndex(long nanos) {
+        long micros = nanos / 1000;
+        int i = micros <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(i, BUCKETS - 1);
+    }
+
+    /**
+     * Returns an exclusive upper bound of the bucket in microseconds, or {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long bucketUpperBoundMicros(int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    public void record(long nanos) {
+        buckets[bucketIndex(nanos)].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Returns a point-in-time copy of the histogram. As recording is not blocked while the snapshot is taken, the
+     * snapshot may be slightly inconsistent (e.g., include a bucket increment, but not the matching total time).
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+
+        return new Snapshot(counts, totalNanos.sum(), maxNanos.get());
+    }
+
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Snapshot(long[] counts, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+
+            long count = 0;
+            for (long c : counts) {
+                count += c;
+            }
+            this.count = count;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return count > 0 ? totalNanos / count : 0;
+        }
+
+        /**
+         * Returns per-bucket counts. See {@link LatencyHistogram#bucketUpperBoundMicros(int)} for bucket boundaries.
+         */
+        public long[] getBucketCounts() {
+            return counts.clone();
+        }
+
+        /**
+         * Returns an upper bound in microseconds of the bucket containing the requested percentile of recorded
+         * values. The percentile is specified as a number between 0 and 1.
+         */
+        public long getPercentileMicros(double percentile) {
+
+            if (count == 0) {
+                return 0;
+            }
+
+            long threshold = (long) Math.ceil(count * Math.min(Math.max(percentile, 0.), 1.));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= threshold && seen > 0) {
+                    return bucketUpperBoundMicros(i);
+                }
+            }
+
+            return bucketUpperBoundMicros(counts.length - 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+/**
+ * Describes how a query interacted with the Cayenne query cache.
+ *
+ * @since 4.0
+ */
+public enum QueryCacheOutcome {
+
+    /**
+     * The query has no cache strategy and was always executed.
+     */
+    NONE,
+
+    /**
+     * The query result was read from the shared cache.
+     */
+    HIT,
+
+    /**
+     * The query is cacheable, but was executed against the database.
+     */
+    MISS
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Accumulates query latency histograms, broken down by root entity, query type and query cache outcome. Populated
+ * by {@link QueryMetricsFilter} when query metrics are enabled via
+ * {@link io.bootique.cayenne.v50.CayenneModuleExtender#enableQueryMetrics()}. Metrics reporters can poll the
+ * accumulated data via {@link #snapshot()}.
+ *
+ * @since 4.0
+ */
+public class QueryMetrics {
+
+    /**
+     * A pseudo-entity name used for queries that have no root entity (e.g. SQLTemplate without a root).
+     */
+    public static final String NO_ENTITY = "";
+
+    private final ConcurrentMap<String, EntityQueryMetrics> byEntity;
+
+    public QueryMetrics() {
+        this.byEntity = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Precomputes metrics buckets for all entities known to the resolver, so that the recording path for those
+     * entities never has to create any new objects.
+     */
+    public void registerEntities(EntityResolver resolver) {
+        for (ObjEntity e : resolver.getObjEntities()) {
+            byEntity.computeIfAbsent(e.getName(), EntityQueryMetrics::new);
+        }
+    }
+
+    public void record(String entityName, Class<?> queryType, QueryCacheOutcome cacheOutcome, long nanos) {
+
+        // "get" before "computeIfAbsent" to avoid locking a map bin on the hot path
+        EntityQueryMetrics em = byEntity.get(entityName);
+        if (em == null) {
+            em = byEntity.computeIfAbsent(entityName, EntityQueryMetrics::new);
+        }
+
+        em.histogram(queryType, cacheOutcome).record(nanos);
+    }
+
+    /**
+     * Returns a point-in-time copy of all non-empty metrics.
+     */
+    public List<QueryStats> snapshot() {
+
+        List<QueryStats> stats = new ArrayList<>();
+        for (EntityQueryMetrics em : byEntity.values()) {
+            for (Map.Entry<Class<?>, LatencyHistogram[]> e : em.byQueryType.entrySet()) {
+
+                LatencyHistogram[] histograms = e.getValue();
+                for (QueryCacheOutcome outcome : QueryCacheOutcome.values()) {
+                    LatencyHistogram.Snapshot latency = histograms[outcome.ordinal()].snapshot();
+                    if (latency.getCount() > 0) {
+                        stats.add(new QueryStats(em.entityName, e.getKey(), outcome, latency));
+                    }
+                }
+            }
+        }
+
+        return stats;
+    }
+
+    static class EntityQueryMetrics {
+
+        private static final QueryCacheOutcome[] OUTCOMES = QueryCacheOutcome.values();
+
+        final String entityName;
+        final ConcurrentMap<Class<?>, LatencyHistogram[]> byQueryType;
+
+        EntityQueryMetrics(String entityName) {
+            this.entityName = entityName;
+
+            // the number of distinct query types is normally small
+            this.byQueryType = new ConcurrentHashMap<>(8);
+        }
+
+        LatencyHistogram histogram(Class<?> queryType, QueryCacheOutcome cacheOutcome) {
+            LatencyHistogram[] histograms = byQueryType.get(queryType);
+            if (histograms == null) {
+                histograms = byQueryType.computeIfAbsent(queryType, t -> createHistograms());
+            }
+
+            return histograms[cacheOutcome.ordinal()];
+        }
+
+        private static LatencyHistogram[] createHistograms() {
+            LatencyHistogram[] histograms = new LatencyHistogram[OUTCOMES.length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+            return histograms;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.FluentSelect;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A query filter that records latency of each query into {@link QueryMetrics}. Shared cache hits are told from the
+ * misses by {@link CacheLoadTrackingQueryCache} that must decorate the Cayenne QueryCache. For the fluent selects,
+ * the root entity and the cache strategy are read from the query itself, with the entity of each root class resolved
+ * only once. The other queries have their metadata resolved.
+ *
+ * @since 4.0
+ */
+public class QueryMetricsFilter implements DataChannelQueryFilter {
+
+    private final QueryMetrics metrics;
+    private final ConcurrentMap<Class<?>, String> entityNamesByType;
+
+    public QueryMetricsFilter(QueryMetrics metrics) {
+        this.metrics = metrics;
+        this.entityNamesByType = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+
+        Boolean outerTracking = CacheLoadTrackingQueryCache.startTracking();
+
+        long t0 = System.nanoTime();
+        try {
+            return filterChain.onQuery(originatingContext, query);
+        } finally {
+            long nanos = System.nanoTime() - t0;
+            boolean loaded = CacheLoadTrackingQueryCache.stopTracking(outerTracking);
+            record(originatingContext, query, loaded, nanos);
+        }
+    }
+
+    private void record(ObjectContext originatingContext, Query query, boolean loaded, long nanos) {
+
+        // without a context, there's no EntityResolver to resolve the entity or to read the query metadata
+        if (originatingContext == null) {
+            metrics.record(QueryMetrics.NO_ENTITY, query.getClass(), QueryCacheOutcome.NONE, nanos);
+            return;
+        }
+
+        // a shortcut for the most common queries, avoiding the metadata resolution on each call
+        if (query instanceof FluentSelect<?> select) {
+            metrics.record(
+                    entityName(select, originatingContext.getEntityResolver()),
+                    query.getClass(),
+                    cacheOutcome(select.getCacheStrategy(), loaded),
+                    nanos);
+            return;
+        }
+
+        QueryMetadata md = query.getMetaData(originatingContext.getEntityResolver());
+        metrics.record(entityName(md), query.getClass(), cacheOutcome(md, loaded), nanos);
+    }
+
+    private String entityName(FluentSelect<?> select, EntityResolver resolver) {
+
+        Class<?> type = select.getEntityType();
+        if (type != null) {
+
+            // "get" before "computeIfAbsent" to avoid locking a map bin on the hot path
+            String name = entityNamesByType.get(type);
+            return name != null ? name : entityNamesByType.computeIfAbsent(type, t -> entityName(resolver, t));
+        }
+
+        if (select.getEntityName() != null) {
+            return select.getEntityName();
+        }
+
+        return select.getDbEntityName() != null ? select.getDbEntityName() : QueryMetrics.NO_ENTITY;
+    }
+
+    private static String entityName(EntityResolver resolver, Class<?> type) {
+        ObjEntity oe = resolver.getObjEntity(type);
+        return oe != null ? oe.getName() : QueryMetrics.NO_ENTITY;
+    }
+
+    static String entityName(QueryMetadata md) {
+        ObjEntity oe = md.getObjEntity();
+        if (oe != null) {
+            return oe.getName();
+        }
+
+        DbEntity de = md.getDbEntity();
+        return de != null ? de.getName() : QueryMetrics.NO_ENTITY;
+    }
+
+    static QueryCacheOutcome cacheOutcome(QueryMetadata md, boolean loaded) {
+        return md.getCacheKey() != null ? cacheOutcome(md.getCacheStrategy(), loaded) : QueryCacheOutcome.NONE;
+    }
+
+    static QueryCacheOutcome cacheOutcome(QueryCacheStrategy strategy, boolean loaded) {
+
+        if (strategy == null || strategy == QueryCacheStrategy.NO_CACHE) {
+            return QueryCacheOutcome.NONE;
+        }
+
+        // Local cache hits are resolved by the ObjectContext and never reach the DataDomain filters. So only the
+        // shared cache can be hit here. A result not loaded from the DB during the query was read from the cache.
+        if (strategy == QueryCacheStrategy.SHARED_CACHE && !loaded) {
+            return QueryCacheOutcome.HIT;
+        }
+
+        return QueryCacheOutcome.MISS;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.metrics;
+
+/**
+ * A snapshot of latency stats for a single combination of root entity, query type and cache outcome.
+ *
+ * @since 4.0
+ */
+public class QueryStats {
+
+    private final String entityName;
+    private final Class<?> queryType;
+    private final QueryCacheOutcome cacheOutcome;
+    private final LatencyHistogram.Snapshot latency;
+
+    public QueryStats(
+            String entityName,
+            Class<?> queryType,
+            QueryCacheOutcome cacheOutcome,
+            LatencyHistogram.Snapshot latency) {
+
+        this.entityName = entityName;
+        this.queryType = queryType;
+        this.cacheOutcome = cacheOutcome;
+        this.latency = latency;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Class<?> getQueryType() {
+        return queryType;
+    }
+
+    public QueryCacheOutcome getCacheOutcome() {
+        return cacheOutcome;
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency;
+    }
+}
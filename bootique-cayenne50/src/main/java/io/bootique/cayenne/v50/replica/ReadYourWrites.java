@@ -0,0 +1,147 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.replica;
+
+import org.apache.cayenne.ObjectContext;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the last commit time of each ObjectContext and of each request token, and decides whether the subsequent
+ * reads of the same context (or the same token) must be pinned to the primary DataSource to see their own writes.
+ * A token is an arbitrary string (e.g. a session id) stored in the context under {@link #TOKEN_PROPERTY} user
+ * property. It allows to share the pinning between different contexts used by the same client.
+ *
+ * @since 4.0
+ */
+public class ReadYourWrites {
+
+    /**
+     * The name of an ObjectContext user property holding a request token.
+     */
+    public static final String TOKEN_PROPERTY = ReadYourWrites.class.getName() + ".token";
+
+    private static final long NO_COMMIT = Long.MIN_VALUE;
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final long windowMs;
+    private final ReplicaLagProbe lagProbe;
+    private final Map<ObjectContext, Long> contextCommits;
+    private final Map<String, Long> tokenCommits;
+    private final AtomicInteger commitsSincePurge;
+
+    public ReadYourWrites(long windowMs, ReplicaLagProbe lagProbe) {
+        this.windowMs = windowMs;
+        this.lagProbe = lagProbe;
+
+        // weak keys, so that the abandoned contexts are not retained
+        this.contextCommits = Collections.synchronizedMap(new WeakHashMap<>());
+        this.tokenCommits = new ConcurrentHashMap<>();
+        this.commitsSincePurge = new AtomicInteger();
+    }
+
+    public void recordCommit(ObjectContext context) {
+
+        // queries and commits may be run via the DataDomain directly, with no context
+        if (context == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        contextCommits.put(context, now);
+
+        String token = token(context);
+        if (token != null) {
+            tokenCommits.put(token, now);
+        }
+
+        if (commitsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            commitsSincePurge.set(0);
+            purge(now);
+        }
+    }
+
+    /**
+     * Returns whether reads of the context must go to the primary DataSource, as the context (or another context
+     * with the same token) has committed recently, and the replicas may not have caught up with that commit yet.
+     */
+    public boolean requiresPrimary(ObjectContext context) {
+
+        long lastCommit = lastCommit(context);
+        if (lastCommit == NO_COMMIT) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastCommit >= windowMs) {
+            return false;
+        }
+
+        if (lagProbe != null) {
+            Duration lag = lagProbe.getLag();
+
+            // the replicas contain everything committed before "now - lag"
+            if (lag != null && now - lag.toMillis() > lastCommit) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected long lastCommit(ObjectContext context) {
+
+        if (context == null) {
+            return NO_COMMIT;
+        }
+
+        Long contextCommit = contextCommits.get(context);
+        long lastCommit = contextCommit != null ? contextCommit : NO_COMMIT;
+
+        String token = token(context);
+        if (token != null) {
+            Long tokenCommit = tokenCommits.get(token);
+            if (tokenCommit != null && tokenCommit > lastCommit) {
+                lastCommit = tokenCommit;
+            }
+        }
+
+        return lastCommit;
+    }
+
+    private String token(ObjectContext context) {
+        Object token = context.getUserProperty(TOKEN_PROPERTY);
+        return token != null ? token.toString() : null;
+    }
+
+    private void purge(long now) {
+        long expired = now - windowMs;
+        tokenCommits.values().removeIf(t -> t <= expired);
+        synchronized (contextCommits) {
+            contextCommits.values().removeIf(t -> t <= expired);
+        }
+    }
+}
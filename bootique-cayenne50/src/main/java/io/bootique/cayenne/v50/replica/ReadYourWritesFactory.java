@@ -0,0 +1,49 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.replica;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures read-your-writes consistency of the replica-routed reads")
+public class ReadYourWritesFactory {
+
+    private static final long DEFAULT_WINDOW_MS = 5_000;
+
+    private Duration window;
+
+    @BQConfigProperty("""
+            For how long after a commit the reads of the committing ObjectContext (or of any context with the same
+            request token) are sent to the primary DataSource instead of the replicas. If a ReplicaLagProbe is
+            configured, the reads are released earlier, as soon as the replicas catch up with the commit. The
+            default is 5s.""")
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public ReadYourWrites createReadYourWrites(ReplicaLagProbe lagProbe) {
+        long windowMs = window != null ? window.getDuration().toMillis() : DEFAULT_WINDOW_MS;
+        return new ReadYourWrites(windowMs, lagProbe);
+    }
+}
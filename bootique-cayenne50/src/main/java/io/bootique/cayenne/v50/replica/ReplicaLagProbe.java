@@ -0,0 +1,38 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.replica;
+
+import java.time.Duration;
+
+/**
+ * A pluggable check of how far read replicas are behind the primary database. Used by {@link ReadYourWrites} to
+ * release reads to the replicas before the end of the configured pinning window. Called on the query thread, so
+ * implementations that need to hit the database should cache their measurements.
+ *
+ * @since 4.0
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+
+    /**
+     * Returns the current replication lag of the slowest replica, or null if the lag is unknown.
+     */
+    Duration getLag();
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.replica;
+
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource of a single DataNode that hands out connections to one of the read replicas when the current thread is
+ * executing a replica-routed query (see {@link ReplicaRoutingFilter}), and to the primary DataSource otherwise. If
+ * none of the replicas can provide a connection, the primary is used.
+ *
+ * @since 4.0
+ */
+public class ReplicaRoutingDataSource implements DataSource {
+
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final Replica[] replicas;
+    private final ReplicaSelection selection;
+    private final AtomicInteger next;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaSelection selection) {
+
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("No replicas provided");
+        }
+
+        this.primary = Objects.requireNonNull(primary);
+        this.replicas = replicas.stream().map(Replica::new).toArray(Replica[]::new);
+        this.selection = Objects.requireNonNull(selection);
+        this.next = new AtomicInteger();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Returns the number of connections currently checked out from each replica via this DataSource. Only tracked
+     * for the {@link ReplicaSelection#LEAST_LOADED} selection, and is all zeros otherwise.
+     */
+    public int[] getActiveReplicaConnections() {
+        int[] active = new int[replicas.length];
+        for (int i = 0; i < replicas.length; i++) {
+            active[i] = replicas[i].active.get();
+        }
+
+        return active;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return ReplicaRoutingFilter.isReplicaRead()
+                ? replicaConnection(null, null)
+                : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return ReplicaRoutingFilter.isReplicaRead()
+                ? replicaConnection(username, password)
+                : primary.getConnection(username, password);
+    }
+
+    protected Connection replicaConnection(String username, String password) throws SQLException {
+
+        int first = firstReplica();
+        for (int i = 0; i < replicas.length; i++) {
+            Replica r = replicas[(first + i) % replicas.length];
+
+            try {
+                return r.connect(username, password);
+            } catch (SQLException e) {
+                LOGGER.warn("Failed to connect to a read replica, will try another one", e);
+            }
+        }
+
+        LOGGER.warn("No read replicas are available, falling back to the primary DataSource");
+        return username != null ? primary.getConnection(username, password) : primary.getConnection();
+    }
+
+    private int firstReplica() {
+
+        if (selection == ReplicaSelection.LEAST_LOADED) {
+            int best = 0;
+            int bestActive = Integer.MAX_VALUE;
+
+            // start the scan from a rotating offset, so that the ties are spread between the replicas
+            int offset = Math.floorMod(next.getAndIncrement(), replicas.length);
+            for (int i = 0; i < replicas.length; i++) {
+                int ri = (offset + i) % replicas.length;
+                int active = replicas[ri].active.get();
+                if (active < bestActive) {
+                    best = ri;
+                    bestActive = active;
+                }
+            }
+
+            return best;
+        }
+
+        return Math.floorMod(next.getAndIncrement(), replicas.length);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    private class Replica {
+
+        final DataSource dataSource;
+        final AtomicInteger active;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = Objects.requireNonNull(dataSource);
+            this.active = new AtomicInteger();
+        }
+
+        Connection connect(String username, String password) throws SQLException {
+            Connection c = username != null
+                    ? dataSource.getConnection(username, password)
+                    : dataSource.getConnection();
+
+            return selection == ReplicaSelection.LEAST_LOADED ? tracked(c) : c;
+        }
+
+        private Connection tracked(Connection c) {
+
+            active.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+
+                        if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                            active.decrementAndGet();
+                        }
+
+                        try {
+                            return method.invoke(c, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
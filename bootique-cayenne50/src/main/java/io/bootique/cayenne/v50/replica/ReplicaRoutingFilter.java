@@ -0,0 +1,99 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.replica;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.query.ObjectIdQuery;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.RelationshipQuery;
+import org.apache.cayenne.query.Select;
+import org.apache.cayenne.tx.BaseTransaction;
+
+/**
+ * A query filter that marks read-only queries executed outside an explicit transaction, so that
+ * {@link ReplicaRoutingDataSource} would serve them from a read replica. Writes, as well as any queries run within a
+ * transaction bound to the current thread, are left on the primary DataSource. So are the reads of the contexts that
+ * have recently committed, if {@link ReadYourWrites} consistency is enabled.
+ *
+ * @since 4.0
+ */
+public class ReplicaRoutingFilter implements DataChannelQueryFilter {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingFilter() {
+        this(null);
+    }
+
+    /**
+     * Creates a routing filter that sends the reads to the primary DataSource when required by the read-your-writes
+     * consistency.
+     *
+     * @param readYourWrites commit tracker. May be null, in which case all eligible reads go to the replicas.
+     */
+    public ReplicaRoutingFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * Returns whether the current thread is executing a query that can be served by a read replica.
+     */
+    public static boolean isReplicaRead() {
+        return REPLICA_READ.get() != null;
+    }
+
+    @Override
+    public QueryResponse onQuery(
+            ObjectContext originatingContext,
+            Query query,
+            DataChannelQueryFilterChain filterChain) {
+
+        if (isReplicaRead() || !routeToReplica(originatingContext, query)) {
+            return filterChain.onQuery(originatingContext, query);
+        }
+
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return filterChain.onQuery(originatingContext, query);
+        } finally {
+            REPLICA_READ.remove();
+        }
+    }
+
+    protected boolean routeToReplica(ObjectContext originatingContext, Query query) {
+
+        // a thread-bound transaction is started by the caller (e.g. "performInTransaction") and may include writes,
+        // so all its queries must see the primary
+        return BaseTransaction.getThreadTransaction() == null
+                && isReadOnly(query)
+                && (readYourWrites == null || !readYourWrites.requiresPrimary(originatingContext));
+    }
+
+    protected boolean isReadOnly(Query query) {
+        return query instanceof Select
+                || query instanceof ObjectIdQuery
+                || query instanceof RelationshipQuery;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.replica;
+
+/**
+ * Defines how a read replica is picked for each replica-routed connection request.
+ *
+ * @since 4.0
+ */
+public enum ReplicaSelection {
+
+    /**
+     * Replicas are picked in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * A replica with the smallest number of connections currently checked out via Cayenne is picked.
+     */
+    LEAST_LOADED
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A default {@link ShardKeyResolver} that takes the shard key from the {@link #SHARD_KEY_PROPERTY} user property of
+ * the ObjectContext.
+ *
+ * @since 4.0
+ */
+public class ContextShardKeyResolver implements ShardKeyResolver {
+
+    /**
+     * The name of an ObjectContext user property holding a shard key.
+     */
+    public static final String SHARD_KEY_PROPERTY = ContextShardKeyResolver.class.getName() + ".key";
+
+    @Override
+    public Object resolve(ObjectContext context, Query query) {
+        return context != null ? context.getUserProperty(SHARD_KEY_PROPERTY) : null;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ColumnSelect;
+import org.apache.cayenne.query.FluentSelect;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.Ordering;
+import org.apache.cayenne.runtime.CayenneRuntime;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs queries against all shards in parallel and merges the results. Since query objects are mutable and are not
+ * thread-safe, the queries are passed as suppliers that create a new query instance for each shard. Each shard query
+ * is run in its own ObjectContext, so the persistent objects in the result belong to different contexts.
+ * <p>
+ * Ordered results are merged in memory, and the merge order must match the order in which each shard DB sorted its
+ * rows. By default, the merge uses the {@link Ordering}s of an ObjectSelect, that compare the values by their Java
+ * natural order with nulls first. This matches the DB only for the columns with binary collation and no nulls (or
+ * with the DB sorting nulls first). For other orderings (e.g. locale-specific or case-insensitive collation, or
+ * nullable columns on a DB sorting nulls last), pass a comparator that reproduces the DB order. Case-insensitive
+ * orderings are rejected unless such a comparator is provided.
+ *
+ * @since 4.0
+ */
+public class ScatterGather {
+
+    private final CayenneRuntime runtime;
+    private final Shards shards;
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    public ScatterGather(CayenneRuntime runtime, Shards shards, ExecutorService executor, Duration timeout) {
+        this.runtime = runtime;
+        this.shards = shards;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Selects objects from all shards, merging them according to the query orderings, and applying the query offset
+     * and limit to the merged result.
+     */
+    public <T> List<T> select(Supplier<ObjectSelect<T>> query) {
+        return select(query, null);
+    }
+
+    /**
+     * Selects objects or columns from all shards, merging them with the provided comparator, and applying the query
+     * offset and limit to the merged result. If the comparator is null, the orderings of an ObjectSelect are used.
+     * If there are no orderings either, the shard results are concatenated.
+     *
+     * @param comparator a comparator consistent with the query ordering, as applied by the DB (including collation
+     *                   and null ordering). Required to merge ordered ColumnSelect results, as the orderings can't be
+     *                   applied to the selected columns, and the results of case-insensitive orderings.
+     */
+    public <T> List<T> select(Supplier<? extends FluentSelect<T>> query, Comparator<? super T> comparator) {
+
+        FluentSelect<T> prototype = query.get();
+        int offset = offset(prototype);
+        int limit = limit(prototype);
+        Comparator<? super T> mergeComparator = comparator != null ? comparator : orderingComparator(prototype);
+
+        // each shard must return enough rows to fill the requested page of the merged result
+        List<List<T>> results = scatter(c -> {
+            FluentSelect<T> q = query.get();
+            limitShardQuery(q, offset, limit);
+            return q.select(c);
+        });
+
+        return gather(results, mergeComparator, offset, limit);
+    }
+
+    /**
+     * Returns a total count of objects matching the query in all shards.
+     */
+    public long selectCount(Supplier<ObjectSelect<?>> query) {
+        long count = 0;
+        for (Long c : scatter(context -> query.get().selectCount(context))) {
+            count += c;
+        }
+
+        return count;
+    }
+
+    /**
+     * Runs an aggregate query returning a single value on all shards, and combines the partial results. The combined
+     * value is of the same type as the partial results. If the value doesn't fit in that type, an exception is thrown.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T selectAggregate(Supplier<ColumnSelect<T>> query, ShardAggregate aggregate) {
+
+        Object combined = null;
+        for (T partial : scatter(context -> query.get().selectOne(context))) {
+            if (partial != null) {
+                combined = combined != null ? aggregate.combine(combined, partial) : partial;
+            }
+        }
+
+        // safe, as the aggregate preserves the type of the partials
+        return (T) combined;
+    }
+
+    protected <R> List<R> scatter(Function<ObjectContext, R> shardQuery) {
+
+        List<String> names = shards.getNames();
+        List<Future<R>> futures = new ArrayList<>(names.size());
+
+        for (String shard : names) {
+            futures.add(executor.submit(() -> ShardRouting.callOnShard(
+                    shard,
+                    () -> shardQuery.apply(runtime.newContext()))));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<R> results = new ArrayList<>(names.size());
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    results.add(futures.get(i).get(remaining, TimeUnit.NANOSECONDS));
+                } catch (ExecutionException e) {
+                    throw new CayenneRuntimeException("Query failed on shard '%s'", e.getCause(), names.get(i));
+                } catch (TimeoutException e) {
+                    throw new CayenneRuntimeException("Query timed out on shard '%s'", names.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CayenneRuntimeException("Interrupted while waiting for the shard queries");
+        } finally {
+            if (results.size() < futures.size()) {
+                futures.forEach(f -> f.cancel(true));
+            }
+        }
+
+        return results;
+    }
+
+    protected <T> List<T> gather(List<List<T>> results, Comparator<? super T> comparator, int offset, int limit) {
+
+        int max = limit > 0 ? offset + limit : Integer.MAX_VALUE;
+        List<T> merged = new ArrayList<>();
+
+        if (comparator == null) {
+            for (List<T> r : results) {
+                merged.addAll(r);
+                if (merged.size() >= max) {
+                    break;
+                }
+            }
+        } else {
+
+            // k-way merge of the sorted shard results
+            PriorityQueue<Head<T>> heads = new PriorityQueue<>(
+                    Math.max(1, results.size()),
+                    (h1, h2) -> comparator.compare(h1.value, h2.value));
+
+            for (List<T> r : results) {
+                Iterator<T> it = r.iterator();
+                if (it.hasNext()) {
+                    heads.add(new Head<>(it.next(), it));
+                }
+            }
+
+            while (!heads.isEmpty() && merged.size() < max) {
+                Head<T> h = heads.poll();
+                merged.add(h.value);
+                if (h.rest.hasNext()) {
+                    heads.add(new Head<>(h.rest.next(), h.rest));
+                }
+            }
+        }
+
+        int from = Math.min(offset, merged.size());
+        int to = Math.min(max, merged.size());
+        return from == 0 && to == merged.size() ? merged : new ArrayList<>(merged.subList(from, to));
+    }
+
+    private static <T> Comparator<T> orderingComparator(FluentSelect<T> query) {
+
+        Collection<Ordering> orderings = query instanceof ObjectSelect<T> os ? os.getOrderings() : null;
+        if (orderings == null || orderings.isEmpty()) {
+            return null;
+        }
+
+        for (Ordering o : orderings) {
+            if (o.isCaseInsensitive()) {
+                throw new CayenneRuntimeException(
+                        "Can't merge shard results of a case-insensitive ordering '%s' in memory. Provide a comparator "
+                                + "matching the DB collation",
+                        o.getSortSpecString());
+            }
+        }
+
+        return (o1, o2) -> {
+            for (Ordering o : orderings) {
+                int c = o.compare(o1, o2);
+                if (c != 0) {
+                    return c;
+                }
+            }
+
+            return 0;
+        };
+    }
+
+    private static int offset(FluentSelect<?> query) {
+        if (query instanceof ObjectSelect<?> os) {
+            return os.getOffset();
+        }
+
+        return query instanceof ColumnSelect<?> cs ? cs.getOffset() : 0;
+    }
+
+    private static int limit(FluentSelect<?> query) {
+        if (query instanceof ObjectSelect<?> os) {
+            return os.getLimit();
+        }
+
+        return query instanceof ColumnSelect<?> cs ? cs.getLimit() : 0;
+    }
+
+    private static void limitShardQuery(FluentSelect<?> query, int offset, int limit) {
+        if (offset == 0) {
+            return;
+        }
+
+        int shardLimit = limit > 0 ? offset + limit : 0;
+        if (query instanceof ObjectSelect<?> os) {
+            os.offset(0).limit(shardLimit);
+        } else if (query instanceof ColumnSelect<?> cs) {
+            cs.offset(0).limit(shardLimit);
+        }
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures parallel execution of the queries run against all shards")
+public class ScatterGatherFactory {
+
+    private static final java.time.Duration DEFAULT_TIMEOUT = java.time.Duration.ofMinutes(1);
+
+    private boolean virtualThreads;
+    private int parallelism;
+    private Duration timeout;
+
+    @BQConfigProperty("""
+            Whether to run shard queries on virtual threads. If 'false' (default), a fixed thread pool is used.""")
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @BQConfigProperty("""
+            The size of the thread pool running shard queries. Ignored if 'virtualThreads' is 'true'. The default is
+            the number of shards.""")
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @BQConfigProperty("How long to wait for all shards to return the results. The default is 1min.")
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public java.time.Duration getTimeout() {
+        return timeout != null ? timeout.getDuration() : DEFAULT_TIMEOUT;
+    }
+
+    public ExecutorService createExecutor(int shardCount) {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism > 0 ? parallelism : shardCount, r -> {
+            Thread t = new Thread(r, "bootique-cayenne-scatter-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.CayenneRuntimeException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Defines how per-shard partial results of an aggregate query are combined into a single value. The combined value
+ * is of the same type as the partial results, and an exception is thrown if it doesn't fit in that type. Note that
+ * averages can't be combined from the partial averages, and should be calculated from the combined sums and counts
+ * instead.
+ *
+ * @since 4.0
+ */
+public enum ShardAggregate {
+
+    COUNT {
+        @Override
+        Object combine(Object v1, Object v2) {
+            return add(v1, v2);
+        }
+    },
+
+    SUM {
+        @Override
+        Object combine(Object v1, Object v2) {
+            return add(v1, v2);
+        }
+    },
+
+    MIN {
+        @Override
+        Object combine(Object v1, Object v2) {
+            return compare(v1, v2) <= 0 ? v1 : v2;
+        }
+    },
+
+    MAX {
+        @Override
+        Object combine(Object v1, Object v2) {
+            return compare(v1, v2) >= 0 ? v1 : v2;
+        }
+    };
+
+    /**
+     * Combines two partial results, neither of which is null. The result is of the same type as the partial results.
+     */
+    abstract Object combine(Object v1, Object v2);
+
+    static Object add(Object v1, Object v2) {
+
+        // the partials of the same query are expected to be of the same type, that is also the type of the result
+        if (v1.getClass() != v2.getClass()) {
+            throw new CayenneRuntimeException(
+                    "Can't combine shard results of different types: %s and %s",
+                    v1.getClass().getName(),
+                    v2.getClass().getName());
+        }
+
+        try {
+            if (v1 instanceof Integer i) {
+                return Math.addExact(i, (Integer) v2);
+            }
+
+            if (v1 instanceof Long l) {
+                return Math.addExact(l, (Long) v2);
+            }
+
+            if (v1 instanceof Short s) {
+                return (short) exact(s + (Short) v2, Short.MIN_VALUE, Short.MAX_VALUE);
+            }
+
+            if (v1 instanceof Byte b) {
+                return (byte) exact(b + (Byte) v2, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            }
+        } catch (ArithmeticException e) {
+            throw new CayenneRuntimeException(
+                    "Combined shard results overflow %s. Consider casting the aggregated column to a wider type",
+                    e,
+                    v1.getClass().getName());
+        }
+
+        if (v1 instanceof Double d) {
+            return d + (Double) v2;
+        }
+
+        if (v1 instanceof Float f) {
+            return f + (Float) v2;
+        }
+
+        if (v1 instanceof BigDecimal bd) {
+            return bd.add((BigDecimal) v2);
+        }
+
+        if (v1 instanceof BigInteger bi) {
+            return bi.add((BigInteger) v2);
+        }
+
+        throw new CayenneRuntimeException("Can't add shard results of type %s", v1.getClass().getName());
+    }
+
+    private static int exact(int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new ArithmeticException("overflow");
+        }
+
+        return value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Object v1, Object v2) {
+        return ((Comparable) v1).compareTo(v2);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.graph.GraphDiff;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A pluggable strategy to determine a shard key (e.g. a tenant id) of each query and commit. The key is mapped to a
+ * shard DataSource by {@link Shards}.
+ *
+ * @since 4.0
+ */
+public interface ShardKeyResolver {
+
+    /**
+     * Returns a shard key for the query, or null if the query doesn't target a specific shard.
+     */
+    Object resolve(ObjectContext context, Query query);
+
+    /**
+     * Returns a shard key for the commit, or null if the commit doesn't target a specific shard. By default returns
+     * the same key as the queries of the context.
+     */
+    default Object resolve(ObjectContext context, GraphDiff changes) {
+        return resolve(context, (Query) null);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard of the operation running on the current thread. {@link ShardRoutingDataSource} provides
+ * connections to that shard. Usually the shard is set by {@link ShardRoutingFilter}, but can also be set explicitly
+ * to run a block of code, e.g. an explicit transaction, against a given shard.
+ *
+ * @since 4.0
+ */
+public final class ShardRouting {
+
+    private static final ThreadLocal<String> CURRENT_SHARD = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    /**
+     * Returns the name of the shard bound to the current thread or null if no shard is bound.
+     */
+    public static String currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    public static void runOnShard(String shard, Runnable op) {
+        callOnShard(shard, () -> {
+            op.run();
+            return null;
+        });
+    }
+
+    public static <T> T callOnShard(String shard, Supplier<T> op) {
+
+        Objects.requireNonNull(shard);
+
+        String previous = CURRENT_SHARD.get();
+        if (previous != null && !previous.equals(shard)) {
+            throw new IllegalStateException(
+                    "Can't switch to shard '" + shard + "' within an operation on shard '" + previous + "'");
+        }
+
+        CURRENT_SHARD.set(shard);
+        try {
+            return op.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource of a sharded DataNode that provides connections to the shard bound to the current thread via
+ * {@link ShardRouting}.
+ *
+ * @since 4.0
+ */
+public class ShardRoutingDataSource implements DataSource {
+
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards) {
+
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No shards provided");
+        }
+
+        this.shards = shards;
+    }
+
+    public Map<String, DataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return currentShard().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return currentShard().getConnection(username, password);
+    }
+
+    protected DataSource currentShard() throws SQLException {
+
+        String shard = ShardRouting.currentShard();
+        if (shard == null) {
+            throw new SQLException("No shard is selected for the operation on a sharded DataNode. "
+                    + "Check that the ShardKeyResolver returns a key, or use 'ShardRouting' explicitly");
+        }
+
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null) {
+            throw new SQLException("Unknown shard: " + shard + ". Available shards: " + shards.keySet());
+        }
+
+        return dataSource;
+    }
+
+    // non-routed DataSource methods are delegated to an arbitrary shard, as the shards are expected to be configured
+    // identically
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return anyShard().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (DataSource ds : shards.values()) {
+            ds.setLogWriter(out);
+        }
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (DataSource ds : shards.values()) {
+            ds.setLoginTimeout(seconds);
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return anyShard().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return anyShard().getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private DataSource anyShard() {
+        return shards.values().iterator().next();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.DataChannelSyncFilter;
+import org.apache.cayenne.DataChannelSyncFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.graph.GraphDiff;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.Transaction;
+
+import java.lang.ref.WeakReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A query and sync filter that binds each query and commit to a shard determined by the {@link ShardKeyResolver}.
+ * The sync filter must be installed outside the transaction, so that the transaction connection is opened on the
+ * right shard. Since a transaction keeps a single connection per DataNode, switching between the shards within an
+ * explicit transaction is not allowed. Queries that use the shared cache are keyed by shard, so that the results of
+ * one shard are never returned for another.
+ *
+ * @since 4.0
+ */
+public class ShardRoutingFilter implements DataChannelQueryFilter, DataChannelSyncFilter {
+
+    private static final ThreadLocal<TransactionShard> TRANSACTION_SHARD = new ThreadLocal<>();
+
+    private final Shards shards;
+    private final ShardKeyResolver keyResolver;
+
+    public ShardRoutingFilter(Shards shards, ShardKeyResolver keyResolver) {
+        this.shards = shards;
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    public QueryResponse onQuery(
+            ObjectContext originatingContext,
+            Query query,
+            DataChannelQueryFilterChain filterChain) {
+
+        return onShard(
+                () -> keyResolver.resolve(originatingContext, query),
+                shard -> filterChain.onQuery(originatingContext, scopeToShard(originatingContext, query, shard)));
+    }
+
+    @Override
+    public GraphDiff onSync(
+            ObjectContext originatingContext,
+            GraphDiff changes,
+            int syncType,
+            DataChannelSyncFilterChain filterChain) {
+
+        if (syncType != DataChannel.FLUSH_CASCADE_SYNC) {
+            return filterChain.onSync(originatingContext, changes, syncType);
+        }
+
+        return onShard(
+                () -> keyResolver.resolve(originatingContext, changes),
+                shard -> filterChain.onSync(originatingContext, changes, syncType));
+    }
+
+    protected <T> T onShard(Supplier<Object> keySupplier, Function<String, T> op) {
+
+        // the shard may have been explicitly selected by the caller
+        String boundShard = ShardRouting.currentShard();
+        if (boundShard != null) {
+            return op.apply(boundShard);
+        }
+
+        Object key = keySupplier.get();
+        if (key == null) {
+
+            // not necessarily an error, as the operation may not involve the sharded DataNode
+            return op.apply(null);
+        }
+
+        String shard = shards.shardFor(key);
+        checkTransactionShard(shard);
+        try {
+            return ShardRouting.callOnShard(shard, () -> op.apply(shard));
+        } finally {
+
+            // once outside the transaction, forget its shard, so that pooled threads do not hold on to it
+            if (BaseTransaction.getThreadTransaction() == null) {
+                TRANSACTION_SHARD.remove();
+            }
+        }
+    }
+
+    /**
+     * Wraps a query that uses the shared cache to include the shard in the cache key. Other queries are returned
+     * unchanged, as the DataDomain handles some query types (e.g. ObjectIdQuery) based on their class.
+     */
+    protected Query scopeToShard(ObjectContext context, Query query, String shard) {
+
+        if (shard == null || context == null) {
+            return query;
+        }
+
+        QueryMetadata md = query.getMetaData(context.getEntityResolver());
+        QueryCacheStrategy strategy = md.getCacheStrategy();
+        boolean sharedCache = strategy == QueryCacheStrategy.SHARED_CACHE
+                || strategy == QueryCacheStrategy.SHARED_CACHE_REFRESH;
+
+        return sharedCache && md.getCacheKey() != null ? new ShardScopedQuery(query, shard) : query;
+    }
+
+    private void checkTransactionShard(String shard) {
+
+        Transaction tx = BaseTransaction.getThreadTransaction();
+        if (tx == null) {
+            TRANSACTION_SHARD.remove();
+            return;
+        }
+
+        TransactionShard txShard = TRANSACTION_SHARD.get();
+        if (txShard != null && txShard.transaction.get() == tx) {
+            if (!txShard.shard.equals(shard)) {
+                throw new IllegalStateException("Can't access shard '" + shard
+                        + "' in a transaction that has already accessed shard '" + txShard.shard + "'");
+            }
+
+            return;
+        }
+
+        TRANSACTION_SHARD.set(new TransactionShard(new WeakReference<>(tx), shard));
+    }
+
+    private record TransactionShard(WeakReference<Transaction> transaction, String shard) {
+    }
+}
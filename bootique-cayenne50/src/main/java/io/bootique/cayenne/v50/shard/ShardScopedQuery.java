@@ -0,0 +1,73 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.access.QueryRouter;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.QueryMetadataProxy;
+import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.SQLActionVisitor;
+
+/**
+ * A wrapper of a cacheable query that includes the shard name in the query cache key, so that the results fetched
+ * from different shards are never mixed up in the shared query cache. Cache groups are left intact, so group
+ * invalidation still applies to the results of all shards.
+ *
+ * @since 4.0
+ */
+class ShardScopedQuery implements Query {
+
+    private final Query query;
+    private final String shard;
+
+    ShardScopedQuery(Query query, String shard) {
+        this.query = query;
+        this.shard = shard;
+    }
+
+    static String scopedCacheKey(String cacheKey, String shard) {
+        return cacheKey != null ? "shard:" + shard + "/" + cacheKey : null;
+    }
+
+    @Override
+    public QueryMetadata getMetaData(EntityResolver resolver) {
+        return new QueryMetadataProxy(query.getMetaData(resolver)) {
+
+            @Override
+            public String getCacheKey() {
+                return scopedCacheKey(super.getCacheKey(), shard);
+            }
+        };
+    }
+
+    @Override
+    public void route(QueryRouter router, EntityResolver resolver, Query substitutedQuery) {
+
+        // routing the wrapped query, while making sure the results are registered for the wrapper
+        query.route(router, resolver, substitutedQuery != null ? substitutedQuery : this);
+    }
+
+    @Override
+    public SQLAction createSQLAction(SQLActionVisitor visitor) {
+        return query.createSQLAction(visitor);
+    }
+}
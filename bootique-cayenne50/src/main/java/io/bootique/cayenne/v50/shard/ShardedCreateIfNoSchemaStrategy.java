@@ -0,0 +1,54 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.dbsync.CreateIfNoSchemaStrategy;
+import org.apache.cayenne.access.dbsync.SchemaUpdateStrategy;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A schema update strategy of the sharded DataNode that creates the schema on each shard the first time the shard is
+ * accessed. The standard strategies run only once per DataNode, and would only update the first accessed shard.
+ *
+ * @since 4.0
+ */
+public class ShardedCreateIfNoSchemaStrategy implements SchemaUpdateStrategy {
+
+    private final Map<String, SchemaUpdateStrategy> shardStrategies;
+
+    public ShardedCreateIfNoSchemaStrategy() {
+        this.shardStrategies = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void updateSchema(DataNode dataNode) throws SQLException {
+
+        String shard = ShardRouting.currentShard();
+        if (shard == null) {
+            throw new SQLException("No shard is selected to update the schema of a sharded DataNode");
+        }
+
+        shardStrategies.computeIfAbsent(shard, s -> new CreateIfNoSchemaStrategy()).updateSchema(dataNode);
+    }
+}
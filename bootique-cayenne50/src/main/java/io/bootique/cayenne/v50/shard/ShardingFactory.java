@@ -0,0 +1,90 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.shutdown.ShutdownManager;
+import org.apache.cayenne.runtime.CayenneRuntime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * @since 4.0
+ */
+@BQConfig("Configures DataMaps stored in multiple identical databases (shards), each holding a subset of the data")
+public class ShardingFactory {
+
+    private List<String> maps;
+    private List<String> datasources;
+    private Map<String, String> keys;
+    private ScatterGatherFactory scatterGather;
+
+    @BQConfigProperty("""
+            Names of the sharded DataMaps. All of them are linked to a single DataNode, whose connections are routed
+            to the shards.""")
+    public void setMaps(List<String> maps) {
+        this.maps = maps;
+    }
+
+    @BQConfigProperty("""
+            Names of Bootique DataSources of the shards. Shard schemas must be identical, and the primary keys of the
+            sharded entities must be unique across the shards.""")
+    public void setDatasources(List<String> datasources) {
+        this.datasources = datasources;
+    }
+
+    @BQConfigProperty("""
+            An optional map of shard keys (e.g. tenant ids) to shard DataSource names. The keys not present in the
+            map are distributed between the shards by hash.""")
+    public void setKeys(Map<String, String> keys) {
+        this.keys = keys;
+    }
+
+    @BQConfigProperty("Configures execution of the queries run against all shards via injectable 'ScatterGather'.")
+    public void setScatterGather(ScatterGatherFactory scatterGather) {
+        this.scatterGather = scatterGather;
+    }
+
+    public List<String> getMaps() {
+        return maps != null ? maps : List.of();
+    }
+
+    public Shards createShards() {
+        if (datasources == null || datasources.isEmpty()) {
+            throw new IllegalStateException("No shard DataSources configured in 'cayenne.sharding.datasources'");
+        }
+
+        return new Shards(datasources, keys != null ? keys : Map.of());
+    }
+
+    public ScatterGather createScatterGather(CayenneRuntime runtime, ShutdownManager shutdownManager) {
+
+        Shards shards = createShards();
+        ScatterGatherFactory sgf = scatterGather != null ? scatterGather : new ScatterGatherFactory();
+
+        ExecutorService executor = sgf.createExecutor(shards.getNames().size());
+        shutdownManager.onShutdown(executor, ExecutorService::shutdownNow);
+
+        return new ScatterGather(runtime, shards, executor, sgf.getTimeout());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps shard keys to shards. Each shard is identified by the name of its Bootique DataSource. Keys explicitly
+ * assigned to a shard are mapped accordingly, and the rest are distributed between the shards by hash.
+ *
+ * @since 4.0
+ */
+public class Shards {
+
+    private final List<String> names;
+    private final Map<String, String> assignedKeys;
+
+    public Shards(List<String> names, Map<String, String> assignedKeys) {
+
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("No shards provided");
+        }
+
+        for (String shard : assignedKeys.values()) {
+            if (!names.contains(shard)) {
+                throw new IllegalArgumentException("Key is assigned to an unknown shard: " + shard);
+            }
+        }
+
+        this.names = names;
+        this.assignedKeys = assignedKeys;
+    }
+
+    /**
+     * Returns the names of all shards.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns a name of the shard for the key.
+     */
+    public String shardFor(Object key) {
+        String keyString = key.toString();
+        String shard = assignedKeys.get(keyString);
+
+        // String hash code is stable between JVMs, so the hashed keys are mapped to the same shard by all app nodes
+        return shard != null ? shard : names.get(Math.floorMod(keyString.hashCode(), names.size()));
+    }
+}
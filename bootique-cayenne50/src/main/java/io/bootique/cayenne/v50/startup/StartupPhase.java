@@ -0,0 +1,36 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.startup;
+
+/**
+ * A timed phase of the Cayenne stack startup.
+ *
+ * @param name          phase name
+ * @param parent        name of the enclosing phase, or null for the top-level phases
+ * @param startNanos    phase start time, relative to the start of the startup
+ * @param durationNanos phase duration
+ * @since 4.0
+ */
+public record StartupPhase(String name, String parent, long startNanos, long durationNanos) {
+
+    public double durationMs() {
+        return durationNanos / 1_000_000.;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.startup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A breakdown of the time spent starting the Cayenne stack by phase.
+ *
+ * @since 4.0
+ */
+public class StartupReport {
+
+    private final String runtimeName;
+    private final long totalNanos;
+    private final List<StartupPhase> phases;
+
+    public StartupReport(String runtimeName, long totalNanos, List<StartupPhase> phases) {
+        this.runtimeName = runtimeName;
+        this.totalNanos = totalNanos;
+        this.phases = phases;
+    }
+
+    public String getRuntimeName() {
+        return runtimeName;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns all phases in the order of their start, with nested phases following their parents.
+     */
+    public List<StartupPhase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Returns the top-level phases, whose durations add up to (roughly) the total startup time.
+     */
+    public List<StartupPhase> getTopLevelPhases() {
+        return phases.stream().filter(p -> p.parent() == null).toList();
+    }
+
+    /**
+     * Returns a human-readable table of the phases, indented according to their nesting.
+     */
+    @Override
+    public String toString() {
+
+        Map<String, Integer> depths = new HashMap<>();
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Cayenne stack '%s' started in %.2f ms%n", runtimeName, totalNanos / 1_000_000.));
+
+        for (StartupPhase p : phases) {
+            int depth = p.parent() != null ? depths.getOrDefault(p.parent(), 0) + 1 : 0;
+            depths.put(p.name(), depth);
+
+            out.append("  ".repeat(depth + 1))
+                    .append(String.format("%-40s %10.2f ms%n", p.name(), p.durationMs()));
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.startup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Measures the phases of the Cayenne stack startup, recording each of them as a {@link StartupPhaseEvent} JFR event,
+ * and collecting them for the {@link StartupReport}. Phases may be nested. Once the timer is stopped, the phases are
+ * run without being recorded.
+ *
+ * @since 4.0
+ */
+public class StartupTimer {
+
+    private final String runtimeName;
+    private final long t0;
+    private final List<StartupPhase> phases;
+
+    // phases may be started from a thread other than the one that started the timer (e.g. when the DataDomain is
+    // built lazily), so nesting is tracked per thread
+    private final ThreadLocal<Deque<String>> openPhases;
+
+    private volatile boolean stopped;
+
+    public StartupTimer(String runtimeName) {
+        this.runtimeName = runtimeName;
+        this.t0 = System.nanoTime();
+        this.phases = new ArrayList<>();
+        this.openPhases = ThreadLocal.withInitial(ArrayDeque::new);
+    }
+
+    public void run(String phase, Runnable op) {
+        call(phase, () -> {
+            op.run();
+            return null;
+        });
+    }
+
+    public <T> T call(String phase, Supplier<T> op) {
+
+        if (stopped) {
+            return op.get();
+        }
+
+        Deque<String> open = openPhases.get();
+        String parent = open.peek();
+
+        StartupPhaseEvent event = new StartupPhaseEvent();
+        event.begin();
+
+        int index = reserve();
+        long start = System.nanoTime();
+        open.push(phase);
+
+        try {
+            return op.get();
+        } finally {
+            long duration = System.nanoTime() - start;
+            open.pop();
+            record(index, new StartupPhase(phase, parent, start - t0, duration));
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.runtimeName = runtimeName;
+                event.phase = phase;
+                event.parent = parent;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Stops recording of the phases. The phases already in progress are still recorded.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    public StartupReport report() {
+        List<StartupPhase> completed;
+        synchronized (phases) {
+            completed = phases.stream().filter(p -> p != null).toList();
+        }
+
+        return new StartupReport(runtimeName, System.nanoTime() - t0, completed);
+    }
+
+    // the phase slot is reserved on phase start, so that the parent phases precede the nested ones in the report
+    private int reserve() {
+        synchronized (phases) {
+            phases.add(null);
+            return phases.size() - 1;
+        }
+    }
+
+    private void record(int index, StartupPhase phase) {
+        synchronized (phases) {
+            phases.set(index, phase);
+        }
+    }
+}
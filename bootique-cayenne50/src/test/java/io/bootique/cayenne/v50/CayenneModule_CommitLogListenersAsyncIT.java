@@ -0,0 +1,110 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.commitlog.AsyncCommitLogMetrics;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class CayenneModule_CommitLogListenersAsyncIT {
+
+    static final List<String> sequence = new CopyOnWriteArrayList<>();
+    static final List<Thread> threads = new CopyOnWriteArrayList<>();
+    static CountDownLatch done;
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:config_asyncCommitLog.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addCommitLogListener(new L1(), false, L2.class)
+                    .addCommitLogListener(L2.class, false))
+            .createRuntime();
+
+    @BeforeEach
+    void clearListenerState() {
+        sequence.clear();
+        threads.clear();
+    }
+
+    @Test
+    public void listeners() throws InterruptedException {
+
+        done = new CountDownLatch(2);
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        for (int i = 0; i < 2; i++) {
+            GenericPersistentObject o = new GenericPersistentObject();
+            o.setObjectId(ObjectId.of("T1"));
+            o.writeProperty("name", "n" + i);
+            c.registerNewObject(o);
+            c.commitChanges();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // ordering within a change set and across change sets must be preserved
+        assertEquals("L2:L1:L2:L1", String.join(":", sequence));
+        threads.forEach(t -> assertNotEquals(Thread.currentThread(), t));
+
+        AsyncCommitLogMetrics metrics = app.getInstance(AsyncCommitLogMetrics.class);
+        assertEquals(2, metrics.getSubmitted());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    public static class L1 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L1");
+            threads.add(Thread.currentThread());
+            done.countDown();
+        }
+    }
+
+    public static class L2 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L2");
+            threads.add(Thread.currentThread());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class CayenneModule_CommitLogListenersParallelIT {
+
+    static final List<String> sequence = new CopyOnWriteArrayList<>();
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:config_parallelCommitLog.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addCommitLogListener(L1.class, false)
+                    .addCommitLogListener(L2.class, false)
+                    .addCommitLogListener(L3.class, false, L1.class))
+            .createRuntime();
+
+    @BQApp(skipRun = true)
+    final BQRuntime failingApp = Bootique
+            .app("--config=classpath:config_parallelCommitLog.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addCommitLogListener(F1.class, false)
+                    .addCommitLogListener(L2.class, false)
+                    .addCommitLogListener(L3.class, false, F1.class)
+                    .addCommitLogListener(L4.class, false, L3.class)
+                    .addCommitLogListener(L5.class, false, L2.class))
+            .createRuntime();
+
+    @BQApp(skipRun = true)
+    final BQRuntime parallelApp = Bootique
+            .app("--config=classpath:config_parallelCommitLog.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addCommitLogListener(P1.class, false)
+                    .addCommitLogListener(P2.class, false))
+            .createRuntime();
+
+    @BeforeEach
+    void clearListenerState() {
+        sequence.clear();
+        P.latch = new CountDownLatch(2);
+    }
+
+    @Test
+    public void listeners() {
+
+        commit(app);
+
+        // L1 and L2 are in the same level and may run in any order, L3 must run after that level
+        assertEquals(3, sequence.size());
+        assertEquals(Set.of("L1", "L2"), Set.copyOf(sequence.subList(0, 2)));
+        assertEquals("L3", sequence.get(2));
+    }
+
+    @Test
+    public void listenerFailure() {
+
+        // the commit must not fail, and only the listeners depending on the failed one (L3 and transitively L4) are
+        // skipped
+        commit(failingApp);
+        assertEquals(Set.of("F1", "L2", "L5"), Set.copyOf(sequence));
+        assertEquals(3, sequence.size());
+        assertEquals("L5", sequence.get(2));
+    }
+
+    @Test
+    public void parallelInvocation() {
+
+        // each listener waits for the other one to start, which only succeeds if they run in parallel
+        commit(parallelApp);
+        assertEquals(Set.of("P1", "P2"), Set.copyOf(sequence));
+    }
+
+    private static void commit(BQRuntime app) {
+        GenericPersistentObject o1 = new GenericPersistentObject();
+        o1.setObjectId(ObjectId.of("T1"));
+        o1.writeProperty("name", "n" + 1);
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        c.registerNewObject(o1);
+        c.commitChanges();
+    }
+
+    public static class L1 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L1");
+        }
+    }
+
+    public static class L2 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L2");
+        }
+    }
+
+    public static class L3 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L3");
+        }
+    }
+
+    public static class L4 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L4");
+        }
+    }
+
+    public static class L5 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("L5");
+        }
+    }
+
+    public static class F1 implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            sequence.add("F1");
+            throw new RuntimeException("Test listener failure");
+        }
+    }
+
+    static abstract class P implements CommitLogListener {
+
+        static volatile CountDownLatch latch;
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            latch.countDown();
+
+            try {
+                assertTrue(latch.await(5, TimeUnit.SECONDS), "Listeners are not invoked in parallel");
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            sequence.add(getClass().getSimpleName());
+        }
+    }
+
+    public static class P1 extends P {
+    }
+
+    public static class P2 extends P {
+    }
+}
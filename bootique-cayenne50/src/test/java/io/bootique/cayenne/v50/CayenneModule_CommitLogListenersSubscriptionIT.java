@@ -0,0 +1,116 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.cayenne.T1;
+import io.bootique.cayenne.v50.cayenne.T2;
+import io.bootique.cayenne.v50.commitlog.CommitLogSubscription;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@BQTest
+public class CayenneModule_CommitLogListenersSubscriptionIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:explicitconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addCommitLogListener(new L1(), false, CommitLogSubscription.of(T1.class))
+                    .addCommitLogListener(L2.class, false, CommitLogSubscription.ofEntities("T2")))
+            .createRuntime();
+
+    @BeforeEach
+    void clearListenerState() {
+        L1.tracked.clear();
+        L1.calls = 0;
+        L2.tracked.clear();
+        L2.calls = 0;
+    }
+
+    @Test
+    public void skipUnsubscribed() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        T1 t1 = c.newObject(T1.class);
+        t1.setName("t1");
+        c.commitChanges();
+
+        assertEquals(1, L1.calls);
+        assertEquals(Set.of(t1.getObjectId()), L1.tracked);
+        assertEquals(0, L2.calls);
+    }
+
+    @Test
+    public void filterChanges() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        T1 t1 = c.newObject(T1.class);
+        t1.setName("t1");
+
+        T2 t2 = c.newObject(T2.class);
+        t2.setName("t2");
+
+        c.commitChanges();
+
+        assertEquals(1, L1.calls);
+        assertEquals(Set.of(t1.getObjectId()), L1.tracked);
+        assertEquals(1, L2.calls);
+        assertEquals(Set.of(t2.getObjectId()), L2.tracked);
+    }
+
+    static class L1 implements CommitLogListener {
+
+        static int calls;
+        static Set<ObjectId> tracked = new HashSet<>();
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            calls++;
+            changes.getChanges().keySet().stream().filter(id -> !id.isTemporary()).forEach(tracked::add);
+        }
+    }
+
+    static class L2 implements CommitLogListener {
+
+        static int calls;
+        static Set<ObjectId> tracked = new HashSet<>();
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            calls++;
+            changes.getChanges().keySet().stream().filter(id -> !id.isTemporary()).forEach(tracked::add);
+        }
+    }
+}
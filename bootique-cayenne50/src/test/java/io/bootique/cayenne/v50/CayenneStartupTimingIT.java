@@ -0,0 +1,129 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.startup.StartupPhase;
+import io.bootique.cayenne.v50.startup.StartupReport;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class CayenneStartupTimingIT {
+
+    static final AtomicReference<StartupReport> report = new AtomicReference<>();
+    static final AtomicReference<StartupReport> eagerReport = new AtomicReference<>();
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b).addStartupTimingListener(report::set))
+            .createRuntime();
+
+    // the DataDomain is initialized by a startup listener
+    @BQApp(skipRun = true)
+    final BQRuntime eagerApp = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addStartupTimingListener(eagerReport::set)
+                    .addStartupListener(CayenneRuntime::getDataDomain))
+            .createRuntime();
+
+    @BeforeEach
+    void resetReports() {
+        report.set(null);
+        eagerReport.set(null);
+    }
+
+    private static Map<String, StartupPhase> phases(StartupReport report) {
+        return report.getPhases().stream().collect(Collectors.toMap(StartupPhase::name, p -> p));
+    }
+
+    @Test
+    public void report() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+
+        // reporting must not initialize the lazy parts of the stack, so the report waits for the DataDomain
+        assertNull(report.get());
+
+        runtime.getDataDomain();
+
+        StartupReport r = report.get();
+        assertNotNull(r);
+
+        Map<String, StartupPhase> phases = phases(r);
+        assertNull(phases.get("build").parent());
+        assertNull(phases.get("startupListeners").parent());
+        assertNull(phases.get("dataDomain").parent());
+        assertEquals("dataDomain", phases.get("loadDescriptor").parent());
+        assertNull(phases.get("entityResolver").parent());
+        assertNull(phases.get("createSchema").parent());
+
+        assertTrue(phases.values().stream()
+                .filter(p -> p.name().startsWith("dataSource:"))
+                .allMatch(p -> "dataDomain".equals(p.parent())));
+        assertTrue(phases.keySet().stream().anyMatch(n -> n.startsWith("dataSource:")));
+
+        long topLevel = r.getTopLevelPhases().stream().mapToLong(StartupPhase::durationNanos).sum();
+        assertTrue(topLevel <= r.getTotalNanos());
+    }
+
+    @Test
+    public void report_DataDomainInitializedOnStartup() {
+        eagerApp.getInstance(CayenneRuntime.class);
+
+        StartupReport r = eagerReport.get();
+        assertNotNull(r);
+
+        Map<String, StartupPhase> phases = phases(r);
+        assertEquals("startupListeners", phases.get("dataDomain").parent());
+        assertEquals("dataDomain", phases.get("loadDescriptor").parent());
+        assertEquals("startupListeners", phases.get("entityResolver").parent());
+        assertEquals("startupListeners", phases.get("createSchema").parent());
+    }
+
+    @Test
+    public void report_DeliveredOnce() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        runtime.getDataDomain();
+
+        StartupReport r = report.get();
+        assertNotNull(r);
+
+        report.set(null);
+        runtime.getDataDomain();
+        assertNull(report.get());
+    }
+}
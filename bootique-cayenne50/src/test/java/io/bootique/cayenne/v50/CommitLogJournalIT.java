@@ -0,0 +1,97 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQCoreModule;
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.commitlog.journal.JournalChange;
+import io.bootique.cayenne.v50.commitlog.journal.JournalReader;
+import io.bootique.cayenne.v50.commitlog.journal.JournalRecord;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class CommitLogJournalIT {
+
+    @TempDir
+    static Path journalDir;
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> BQCoreModule.extend(b)
+                    .setProperty("bq.cayenne.commitLogJournal.dir", journalDir.toString())
+                    // small segments to test rollover
+                    .setProperty("bq.cayenne.commitLogJournal.segmentSize", "256")
+                    .setProperty("bq.cayenne.commitLogJournal.fsyncPolicy", "ALWAYS"))
+            .createRuntime();
+
+    @Test
+    public void appendAndTail() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+
+        try (JournalReader reader = new JournalReader(journalDir)) {
+
+            assertNull(reader.next());
+
+            for (int i = 0; i < 5; i++) {
+                GenericPersistentObject o = new GenericPersistentObject();
+                o.setObjectId(ObjectId.of("T1"));
+                o.writeProperty("name", "n" + i);
+                c.registerNewObject(o);
+                c.commitChanges();
+            }
+
+            List<JournalRecord> records = new ArrayList<>();
+            assertEquals(5, reader.replay(records::add));
+            assertNull(reader.next());
+
+            for (int i = 0; i < 5; i++) {
+                JournalRecord r = records.get(i);
+                assertEquals(1, r.getChanges().size());
+
+                JournalChange change = r.getChanges().get(0);
+                assertEquals(ObjectChangeType.INSERT, change.getType());
+                assertEquals("T1", change.getEntityName());
+                assertEquals("n" + i, change.getValues().get("name"));
+            }
+
+            assertTrue(records.get(4).getPosition().getSegment() > 0, "Expected segment rollover");
+        }
+    }
+}
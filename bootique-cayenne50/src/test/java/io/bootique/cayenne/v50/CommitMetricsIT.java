@@ -0,0 +1,79 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.metrics.CommitMetrics;
+import io.bootique.cayenne.v50.metrics.CommitStats;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@BQTest
+public class CommitMetricsIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b).enableCommitMetrics())
+            .createRuntime();
+
+    @Test
+    public void commits() {
+
+        GenericPersistentObject o1 = new GenericPersistentObject();
+        o1.setObjectId(ObjectId.of("T1"));
+        o1.writeProperty("name", "n" + 1);
+
+        GenericPersistentObject o2 = new GenericPersistentObject();
+        o2.setObjectId(ObjectId.of("T1"));
+        o2.writeProperty("name", "n" + 2);
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        c.registerNewObject(o1);
+        c.registerNewObject(o2);
+        c.commitChanges();
+
+        o1.writeProperty("name", "n" + 3);
+        c.deleteObject(o2);
+        c.commitChanges();
+
+        List<CommitStats> stats = app.getInstance(CommitMetrics.class).snapshot();
+        assertEquals(1, stats.size());
+
+        CommitStats ds = stats.get(0);
+        assertEquals("ds", ds.getNodeName());
+        assertEquals(2, ds.getCommits());
+        assertEquals(0, ds.getRollbacks());
+        assertEquals(2, ds.getInserted());
+        assertEquals(1, ds.getUpdated());
+        assertEquals(1, ds.getDeleted());
+    }
+}
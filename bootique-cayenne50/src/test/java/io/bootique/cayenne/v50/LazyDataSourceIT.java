@@ -0,0 +1,70 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.configuration.runtime.DataSourceFactory;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class LazyDataSourceIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:lazy_datasources.yml")
+            .autoLoadModules()
+            .createRuntime();
+
+    @Test
+    public void startedOnFirstUse() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+
+        // force the creation of the DataNodes
+        runtime.getDataDomain();
+
+        BQCayenneDataSourceFactory dsFactory = (BQCayenneDataSourceFactory) runtime
+                .getInjector()
+                .getInstance(DataSourceFactory.class);
+
+        Map<String, LazyDataSource> lazy = dsFactory.getLazyDataSources().stream()
+                .collect(Collectors.toMap(LazyDataSource::getName, ds -> ds));
+
+        assertEquals(2, lazy.size());
+        assertFalse(lazy.get("ds1").isInitialized());
+        assertFalse(lazy.get("ds2").isInitialized());
+
+        ObjectSelect.dbQuery("db_entity").select(runtime.newContext());
+
+        assertTrue(lazy.get("ds1").isInitialized());
+        assertFalse(lazy.get("ds2").isInitialized());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.commitlog.outbox.OutboxCommitLogListener;
+import io.bootique.cayenne.v50.commitlog.outbox.OutboxEntry;
+import io.bootique.cayenne.v50.commitlog.outbox.OutboxPoller;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class OutboxCommitLogListenerIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b).addCommitLogListener(new OutboxCommitLogListener(), true))
+            .createRuntime();
+
+    // fails the commit after the outbox rows are written in the same transaction
+    @BQApp(skipRun = true)
+    final BQRuntime rollbackApp = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b)
+                    .addCommitLogListener(new OutboxCommitLogListener(), true)
+                    .addCommitLogListener(new FailingListener(), true, OutboxCommitLogListener.class))
+            .createRuntime();
+
+    @BeforeEach
+    void createOutbox() throws SQLException {
+        try (Connection c = dataSource().getConnection(); Statement st = c.createStatement()) {
+            try {
+                st.execute("CREATE TABLE cayenne_outbox (" +
+                        "id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, " +
+                        "entity_name VARCHAR(200) NOT NULL, " +
+                        "object_id VARCHAR(1000) NOT NULL, " +
+                        "change_type VARCHAR(10) NOT NULL, " +
+                        "payload VARCHAR(4000), " +
+                        "created_at TIMESTAMP NOT NULL)");
+            } catch (SQLException e) {
+                // table already exists
+                st.execute("DELETE FROM cayenne_outbox");
+            }
+        }
+    }
+
+    private DataSource dataSource() {
+        return app.getInstance(DataSourceFactory.class).forName("ds");
+    }
+
+    @Test
+    public void writeAndPoll() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        for (int i = 0; i < 3; i++) {
+            GenericPersistentObject o = new GenericPersistentObject();
+            o.setObjectId(ObjectId.of("T1"));
+            o.writeProperty("name", "n" + i);
+            c.registerNewObject(o);
+        }
+        c.commitChanges();
+
+        List<OutboxEntry> polled = new ArrayList<>();
+        OutboxPoller poller = new OutboxPoller(dataSource(), 2);
+
+        assertEquals(2, poller.pollOnce(polled::addAll));
+        assertEquals(1, poller.drain(polled::addAll));
+        assertEquals(0, poller.drain(polled::addAll));
+
+        assertEquals(3, polled.size());
+        polled.forEach(e -> {
+            assertEquals("T1", e.getEntityName());
+            assertEquals("INSERT", e.getChangeType());
+            assertTrue(e.getPayload().contains("\"name\":\"n"), e.getPayload());
+        });
+    }
+
+    @Test
+    public void poll_ConsumerFailure() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        GenericPersistentObject o = new GenericPersistentObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.writeProperty("name", "n");
+        c.registerNewObject(o);
+        c.commitChanges();
+
+        OutboxPoller poller = new OutboxPoller(dataSource(), 10);
+        assertThrows(RuntimeException.class, () -> poller.pollOnce(b -> {
+            throw new RuntimeException("test");
+        }));
+
+        // the failed batch must stay in the outbox
+        assertEquals(1, poller.drain(b -> {}));
+    }
+
+    @Test
+    public void rollback() {
+
+        ObjectContext c = rollbackApp.getInstance(CayenneRuntime.class).newContext();
+        GenericPersistentObject o = new GenericPersistentObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.writeProperty("name", "n");
+        c.registerNewObject(o);
+
+        assertThrows(RuntimeException.class, c::commitChanges);
+
+        // the outbox rows were written in the rolled back transaction
+        assertEquals(0, new OutboxPoller(dataSource(), 10).drain(b -> {}));
+    }
+
+    static class FailingListener implements CommitLogListener {
+
+        @Override
+        public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+            throw new RuntimeException("test");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.metrics.QueryCacheOutcome;
+import io.bootique.cayenne.v50.metrics.QueryMetrics;
+import io.bootique.cayenne.v50.metrics.QueryStats;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SQLSelect;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@BQTest
+public class QueryMetricsIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:genericconfig.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b).enableQueryMetrics())
+            .createRuntime();
+
+    @Test
+    public void noCache() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        QueryMetrics metrics = app.getInstance(QueryMetrics.class);
+
+        ObjectSelect.dbQuery("T1").select(c);
+        ObjectSelect.dbQuery("T1").select(c);
+
+        assertEquals(2, count(metrics, QueryCacheOutcome.NONE));
+        assertEquals(0, count(metrics, QueryCacheOutcome.HIT));
+        assertEquals(0, count(metrics, QueryCacheOutcome.MISS));
+    }
+
+    @Test
+    public void sharedCache() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        QueryMetrics metrics = app.getInstance(QueryMetrics.class);
+
+        ObjectSelect.dbQuery("T1").sharedCache("g1").select(c);
+        ObjectSelect.dbQuery("T1").sharedCache("g1").select(c);
+        ObjectSelect.dbQuery("T1").sharedCache("g1").select(c);
+
+        assertEquals(0, count(metrics, QueryCacheOutcome.NONE));
+        assertEquals(2, count(metrics, QueryCacheOutcome.HIT));
+        assertEquals(1, count(metrics, QueryCacheOutcome.MISS));
+    }
+
+    @Test
+    public void noRoot() {
+
+        ObjectContext c = app.getInstance(CayenneRuntime.class).newContext();
+        QueryMetrics metrics = app.getInstance(QueryMetrics.class);
+
+        // not a fluent select, so the entity is taken from the query metadata
+        SQLSelect.dataRowQuery("SELECT * FROM T1").select(c);
+
+        long count = metrics.snapshot()
+                .stream()
+                .filter(s -> QueryMetrics.NO_ENTITY.equals(s.getEntityName()))
+                .filter(s -> s.getCacheOutcome() == QueryCacheOutcome.NONE)
+                .mapToLong(s -> s.getLatency().getCount())
+                .sum();
+
+        assertEquals(1, count);
+    }
+
+    private static long count(QueryMetrics metrics, QueryCacheOutcome outcome) {
+        return metrics.snapshot()
+                .stream()
+                .filter(s -> "T1".equals(s.getEntityName()))
+                .filter(s -> s.getQueryType() == ObjectSelect.class)
+                .filter(s -> s.getCacheOutcome() == outcome)
+                .map(QueryStats::getLatency)
+                .mapToLong(l -> l.getCount())
+                .sum();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.replica.ReadYourWrites;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SQLExec;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@BQTest
+public class ReadYourWritesIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:readyourwrites.yml")
+            .autoLoadModules()
+            .module(b -> CayenneModule.extend(b).setReplicaLagProbe(lag::get))
+            .createRuntime();
+
+    static final AtomicReference<Duration> lag = new AtomicReference<>();
+
+    @BeforeEach
+    void resetData() throws SQLException {
+
+        // "replica" is not a real replica of "ds", and has different data, so that we can tell where a read went
+        try (Connection c = app.getInstance(DataSourceFactory.class).forName("replica").getConnection()) {
+            try (Statement st = c.createStatement()) {
+                try {
+                    st.execute("CREATE TABLE T1 (id INTEGER NOT NULL, name VARCHAR(100), PRIMARY KEY (id))");
+                } catch (SQLException e) {
+                    // the table already exists
+                }
+
+                st.execute("DELETE FROM T1");
+                st.execute("INSERT INTO T1 (id, name) VALUES (1, 'replica')");
+            }
+        }
+
+        lag.set(null);
+        SQLExec.query("DELETE FROM T1").execute(app.getInstance(CayenneRuntime.class).newContext());
+    }
+
+    private ObjectContext commit(ObjectContext context) {
+        GenericPersistentObject o = new GenericPersistentObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.writeProperty("name", "primary");
+
+        context.registerNewObject(o);
+        context.commitChanges();
+        return context;
+    }
+
+    private String readName(ObjectContext context) {
+        List<DataRow> rows = ObjectSelect.dbQuery("T1").select(context);
+        assertEquals(1, rows.size());
+        return (String) rows.get(0).get("name");
+    }
+
+    @Test
+    public void committingContextReadsPrimary() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        ObjectContext context = commit(runtime.newContext());
+
+        assertEquals("primary", readName(context));
+        assertEquals("replica", readName(runtime.newContext()));
+    }
+
+    @Test
+    public void sameTokenReadsPrimary() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+
+        ObjectContext c1 = runtime.newContext();
+        c1.setUserProperty(ReadYourWrites.TOKEN_PROPERTY, "t1");
+        commit(c1);
+
+        ObjectContext c2 = runtime.newContext();
+        c2.setUserProperty(ReadYourWrites.TOKEN_PROPERTY, "t1");
+        assertEquals("primary", readName(c2));
+
+        ObjectContext c3 = runtime.newContext();
+        c3.setUserProperty(ReadYourWrites.TOKEN_PROPERTY, "t2");
+        assertEquals("replica", readName(c3));
+    }
+
+    @Test
+    public void replicaCaughtUp() throws InterruptedException {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        ObjectContext context = commit(runtime.newContext());
+
+        lag.set(Duration.ofMinutes(1));
+        assertEquals("primary", readName(context));
+
+        Thread.sleep(5);
+        lag.set(Duration.ZERO);
+        assertEquals("replica", readName(context));
+    }
+}
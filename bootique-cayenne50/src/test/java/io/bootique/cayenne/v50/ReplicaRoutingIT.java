@@ -0,0 +1,100 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SQLExec;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@BQTest
+public class ReplicaRoutingIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:replicas.yml")
+            .autoLoadModules()
+            .createRuntime();
+
+    @BeforeEach
+    void resetData() throws SQLException {
+
+        // "replica" is not a real replica of "ds", and has different data, so that we can tell where a read went
+        try (Connection c = app.getInstance(DataSourceFactory.class).forName("replica").getConnection()) {
+            try (Statement st = c.createStatement()) {
+                try {
+                    st.execute("CREATE TABLE T1 (id INTEGER NOT NULL, name VARCHAR(100), PRIMARY KEY (id))");
+                } catch (SQLException e) {
+                    // the table already exists
+                }
+
+                st.execute("DELETE FROM T1");
+                st.execute("INSERT INTO T1 (id, name) VALUES (1, 'replica')");
+            }
+        }
+
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        SQLExec.query("DELETE FROM T1").execute(runtime.newContext());
+
+        GenericPersistentObject o = new GenericPersistentObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.writeProperty("name", "primary");
+
+        ObjectContext context = runtime.newContext();
+        context.registerNewObject(o);
+        context.commitChanges();
+    }
+
+    @Test
+    public void readsGoToReplica() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        List<DataRow> rows = ObjectSelect.dbQuery("T1").select(runtime.newContext());
+
+        assertEquals(1, rows.size());
+        assertEquals("replica", rows.get(0).get("name"));
+    }
+
+    @Test
+    public void readsInTransactionGoToPrimary() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        List<DataRow> rows = runtime.performInTransaction(
+                () -> ObjectSelect.dbQuery("T1").select(runtime.newContext()));
+
+        assertEquals(1, rows.size());
+        assertEquals("primary", rows.get(0).get("name"));
+    }
+}
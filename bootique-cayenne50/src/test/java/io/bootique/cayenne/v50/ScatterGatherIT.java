@@ -0,0 +1,194 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.shard.ScatterGather;
+import io.bootique.cayenne.v50.shard.ShardAggregate;
+import io.bootique.cayenne.v50.shard.ShardRouting;
+import io.bootique.cayenne.v50.shard.Shards;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.exp.property.PropertyFactory;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SortOrder;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class ScatterGatherIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:sharding.yml")
+            .autoLoadModules()
+            .createRuntime();
+
+    @BeforeEach
+    void resetData() throws SQLException {
+
+        // odd ids go to shard1, even ids go to shard2
+        for (int s = 1; s <= 2; s++) {
+            try (Connection c = app.getInstance(DataSourceFactory.class).forName("shard" + s).getConnection()) {
+                try (Statement st = c.createStatement()) {
+                    try {
+                        st.execute("CREATE TABLE T1 (id INTEGER NOT NULL, name VARCHAR(100), PRIMARY KEY (id))");
+                    } catch (SQLException e) {
+                        // the table already exists
+                    }
+
+                    st.execute("DELETE FROM T1");
+                    for (int id = s; id <= 6; id += 2) {
+                        st.execute("INSERT INTO T1 (id, name) VALUES (" + id + ", 'n" + id + "')");
+                    }
+                }
+            }
+        }
+    }
+
+    private static ObjectSelect<GenericPersistentObject> t1() {
+        return ObjectSelect.query(GenericPersistentObject.class, "T1");
+    }
+
+    private static List<Object> names(List<GenericPersistentObject> objects) {
+        return objects.stream().map(o -> o.readProperty("name")).toList();
+    }
+
+    @Test
+    public void select_Ordered() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+
+        List<GenericPersistentObject> all = sg.select(() -> t1().orderBy("name"));
+        assertEquals(List.of("n1", "n2", "n3", "n4", "n5", "n6"), names(all));
+
+        List<GenericPersistentObject> desc = sg.select(() -> t1().orderBy("name", SortOrder.DESCENDING));
+        assertEquals(List.of("n6", "n5", "n4", "n3", "n2", "n1"), names(desc));
+    }
+
+    @Test
+    public void select_OffsetLimit() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+
+        List<GenericPersistentObject> page = sg.select(() -> t1().orderBy("name").offset(1).limit(3));
+        assertEquals(List.of("n2", "n3", "n4"), names(page));
+    }
+
+    @Test
+    public void select_SharedCache() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+
+        // each shard must cache its own result, even though the query is the same
+        for (int i = 0; i < 2; i++) {
+            List<GenericPersistentObject> all = sg.select(() -> t1().orderBy("name").sharedCache());
+            assertEquals(List.of("n1", "n2", "n3", "n4", "n5", "n6"), names(all));
+        }
+    }
+
+    @Test
+    public void selectCount() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+        assertEquals(6L, sg.selectCount(ScatterGatherIT::t1));
+    }
+
+    @Test
+    public void selectAggregate() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+        assertEquals(6L, sg.selectAggregate(() -> t1().column(PropertyFactory.COUNT), ShardAggregate.COUNT));
+    }
+
+    @Test
+    public void select_CaseInsensitiveOrdering() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+
+        // can't be reproduced in memory without a comparator
+        assertThrows(CayenneRuntimeException.class,
+                () -> sg.select(() -> t1().orderBy("name", SortOrder.ASCENDING_INSENSITIVE)));
+
+        Comparator<GenericPersistentObject> byName =
+                Comparator.comparing(o -> ((String) o.readProperty("name")).toLowerCase());
+        List<GenericPersistentObject> all = sg.select(
+                () -> t1().orderBy("name", SortOrder.ASCENDING_INSENSITIVE),
+                byName);
+        assertEquals(List.of("n1", "n2", "n3", "n4", "n5", "n6"), names(all));
+    }
+
+    @Test
+    public void select_ShardFailure() {
+        ScatterGather sg = app.getInstance(ScatterGather.class);
+
+        CayenneRuntimeException e = assertThrows(CayenneRuntimeException.class, () -> sg.select(() -> {
+            if ("shard2".equals(ShardRouting.currentShard())) {
+                throw new IllegalStateException("shard2 is down");
+            }
+
+            return t1();
+        }));
+
+        assertTrue(e.getMessage().contains("shard2"), e.getMessage());
+    }
+
+    @Test
+    public void select_Timeout() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ScatterGather sg = new ScatterGather(
+                    app.getInstance(CayenneRuntime.class),
+                    new Shards(List.of("shard1", "shard2"), Map.of()),
+                    executor,
+                    Duration.ofMillis(100));
+
+            CayenneRuntimeException e = assertThrows(CayenneRuntimeException.class, () -> sg.select(() -> {
+                if ("shard1".equals(ShardRouting.currentShard())) {
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (InterruptedException ie) {
+                        // cancelled on timeout
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                return t1();
+            }));
+
+            assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.shard.ContextShardKeyResolver;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class ShardingCreateSchemaIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:sharding_createschema.yml")
+            .autoLoadModules()
+            .createRuntime();
+
+    private boolean tableExists(String shard) throws SQLException {
+        try (Connection c = app.getInstance(DataSourceFactory.class).forName(shard).getConnection()) {
+            try (ResultSet rs = c.getMetaData().getTables(null, null, "T1", null)) {
+                return rs.next();
+            }
+        }
+    }
+
+    private List<DataRow> select(String key) {
+        ObjectContext context = app.getInstance(CayenneRuntime.class).newContext();
+        context.setUserProperty(ContextShardKeyResolver.SHARD_KEY_PROPERTY, key);
+        return ObjectSelect.dbQuery("T1").select(context);
+    }
+
+    @Test
+    public void createSchemaOnEachShard() throws SQLException {
+        assertEquals(List.of(), select("a"));
+        assertEquals(List.of(), select("b"));
+
+        assertTrue(tableExists("shard1"));
+        assertTrue(tableExists("shard2"));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v50.shard.ContextShardKeyResolver;
+import io.bootique.cayenne.v50.shard.ShardRouting;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit.BQApp;
+import io.bootique.junit.BQTest;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.GenericPersistentObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.runtime.CayenneRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@BQTest
+public class ShardingIT {
+
+    @BQApp(skipRun = true)
+    final BQRuntime app = Bootique
+            .app("--config=classpath:sharding.yml")
+            .autoLoadModules()
+            .createRuntime();
+
+    @BeforeEach
+    void resetData() throws SQLException {
+        for (String shard : List.of("shard1", "shard2")) {
+            try (Connection c = app.getInstance(DataSourceFactory.class).forName(shard).getConnection()) {
+                try (Statement st = c.createStatement()) {
+                    try {
+                        st.execute("CREATE TABLE T1 (id INTEGER NOT NULL, name VARCHAR(100), PRIMARY KEY (id))");
+                    } catch (SQLException e) {
+                        // the table already exists
+                    }
+
+                    st.execute("DELETE FROM T1");
+                }
+            }
+        }
+    }
+
+    private ObjectContext tenantContext(String key) {
+        ObjectContext context = app.getInstance(CayenneRuntime.class).newContext();
+        context.setUserProperty(ContextShardKeyResolver.SHARD_KEY_PROPERTY, key);
+        return context;
+    }
+
+    private void insert(ObjectContext context, int id, String name) {
+        ObjectId oid = ObjectId.of("T1");
+        oid.getReplacementIdMap().put("id", id);
+
+        GenericPersistentObject o = new GenericPersistentObject();
+        o.setObjectId(oid);
+        o.writeProperty("name", name);
+
+        context.registerNewObject(o);
+        context.commitChanges();
+    }
+
+    private List<String> names(ObjectContext context) {
+        return names(ObjectSelect.dbQuery("T1").select(context));
+    }
+
+    private List<String> names(List<DataRow> rows) {
+        return rows.stream().map(r -> (String) r.get("name")).sorted().toList();
+    }
+
+    private List<String> shardNames(String shard) throws SQLException {
+        try (Connection c = app.getInstance(DataSourceFactory.class).forName(shard).getConnection()) {
+            try (Statement st = c.createStatement()) {
+                try (ResultSet rs = st.executeQuery("SELECT name FROM T1 ORDER BY name")) {
+                    List<String> names = new ArrayList<>();
+                    while (rs.next()) {
+                        names.add(rs.getString(1));
+                    }
+                    return names;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void routeByContextKey() {
+        insert(tenantContext("a"), 1, "a1");
+        insert(tenantContext("b"), 2, "b1");
+
+        assertEquals(List.of("a1"), names(tenantContext("a")));
+        assertEquals(List.of("b1"), names(tenantContext("b")));
+    }
+
+    @Test
+    public void assignedKeys() throws SQLException {
+        insert(tenantContext("a"), 1, "a1");
+        insert(tenantContext("b"), 2, "b1");
+
+        assertEquals(List.of("a1"), shardNames("shard1"));
+        assertEquals(List.of("b1"), shardNames("shard2"));
+    }
+
+    @Test
+    public void sharedCache() {
+        insert(tenantContext("a"), 1, "a1");
+        insert(tenantContext("b"), 2, "b1");
+
+        // same query and cache key, but each tenant must see the rows of its own shard
+        assertEquals(List.of("a1"), names(ObjectSelect.dbQuery("T1").sharedCache().select(tenantContext("a"))));
+        assertEquals(List.of("b1"), names(ObjectSelect.dbQuery("T1").sharedCache().select(tenantContext("b"))));
+
+        // cached results are still served per shard
+        insert(tenantContext("a"), 3, "a2");
+        assertEquals(List.of("a1"), names(ObjectSelect.dbQuery("T1").sharedCache().select(tenantContext("a"))));
+        assertEquals(List.of("b1"), names(ObjectSelect.dbQuery("T1").sharedCache().select(tenantContext("b"))));
+    }
+
+    @Test
+    public void transaction_SameShard() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+        insert(tenantContext("a"), 1, "a1");
+
+        List<String> names = runtime.performInTransaction(() -> {
+            names(tenantContext("a"));
+            return names(tenantContext("a"));
+        });
+
+        assertEquals(List.of("a1"), names);
+    }
+
+    @Test
+    public void transaction_ShardSwitchRejected() {
+        CayenneRuntime runtime = app.getInstance(CayenneRuntime.class);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> runtime.performInTransaction(() -> {
+            names(tenantContext("a"));
+            return names(tenantContext("b"));
+        }));
+
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof IllegalStateException)) {
+            cause = cause.getCause();
+        }
+        assertNotNull(cause, "Expected the shard switch to be rejected");
+
+        // the rejected transaction must not affect the subsequent operations on the thread
+        assertEquals(List.of(), names(tenantContext("b")));
+        assertEquals(List.of(), runtime.performInTransaction(() -> names(tenantContext("b"))));
+    }
+
+    @Test
+    public void explicitShard() {
+        insert(tenantContext("b"), 3, "b1");
+
+        ObjectContext context = app.getInstance(CayenneRuntime.class).newContext();
+        assertEquals(List.of("b1"), ShardRouting.callOnShard("shard2", () -> names(context)));
+        assertEquals(List.of(), ShardRouting.callOnShard("shard1", () -> names(context)));
+    }
+
+    @Test
+    public void noShardKey() {
+        ObjectContext context = app.getInstance(CayenneRuntime.class).newContext();
+        assertThrows(CayenneRuntimeException.class, () -> names(context));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    public void putGet() {
+        TinyLfuCache<String, String> cache = TinyLfuCache.ofMaxEntries(10, 0);
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        assertNull(cache.get("c"));
+        assertEquals(2, cache.size());
+
+        cache.remove("a");
+        assertNull(cache.get("a"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void maxEntries() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100, v -> 1, 0, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.evictionCount());
+    }
+
+    @Test
+    public void frequentEntriesSurvive() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100, v -> 1, 0, 1);
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+
+        for (int r = 0; r < 10; r++) {
+            for (int i = 0; i < 50; i++) {
+                assertNotNull(cache.get(i));
+            }
+        }
+
+        // a scan of one-off entries must not flush the popular ones
+        for (int i = 1000; i < 2000; i++) {
+            cache.put(i, i);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(cache.get(i), "Popular entry evicted: " + i);
+        }
+    }
+
+    @Test
+    public void maxWeight() {
+        TinyLfuCache<String, List<Integer>> cache = new TinyLfuCache<>(10, List::size, 0, 1);
+
+        cache.put("a", List.of(1, 2, 3, 4, 5, 6));
+        cache.put("b", List.of(1, 2, 3, 4, 5, 6));
+        assertTrue(cache.weightedSize() <= 10);
+
+        // too heavy to ever fit
+        cache.put("c", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    public void sketchSize_ByteWeighted() {
+        long maxBytes = 64L * 1024 * 1024;
+        int averageBytes = 4 * 1024;
+        TinyLfuCache<String, byte[]> cache = TinyLfuCache.ofMaxWeight(maxBytes, b -> b.length, averageBytes, 0);
+
+        // the sketch must be sized by the expected number of entries (a long per entry, rounded up to a power of
+        // 2 per segment), not by the byte capacity
+        long expectedEntries = maxBytes / averageBytes;
+        assertTrue(cache.sketchBytes() <= 2 * expectedEntries * Long.BYTES, "Sketch too big: " + cache.sketchBytes());
+
+        cache.put("a", new byte[averageBytes]);
+        assertNotNull(cache.get("a"));
+    }
+
+    @Test
+    public void expireAfterWrite() throws InterruptedException {
+        TinyLfuCache<String, String> cache = TinyLfuCache.ofMaxEntries(10, 5);
+
+        cache.put("a", "A");
+        Thread.sleep(20);
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog;
+
+import org.apache.cayenne.commitlog.CommitLog;
+import org.apache.cayenne.commitlog.meta.CommitLogEntity;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.DbRelationship;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.map.ObjRelationship;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexedCommitLogEntityFactoryTest {
+
+    static ObjEntity entity;
+
+    @BeforeAll
+    static void createEntity() {
+        DataMap map = new DataMap("m");
+
+        DbEntity dbA = new DbEntity("A");
+        map.addDbEntity(dbA);
+        DbEntity dbB = new DbEntity("B");
+        map.addDbEntity(dbB);
+
+        DbRelationship toB = new DbRelationship("toB");
+        toB.setSourceEntity(dbA);
+        toB.setTargetEntityName(dbB);
+        toB.setToMany(false);
+        dbA.addRelationship(toB);
+
+        DbRelationship toBs = new DbRelationship("toBs");
+        toBs.setSourceEntity(dbA);
+        toBs.setTargetEntityName(dbB);
+        toBs.setToMany(true);
+        dbA.addRelationship(toBs);
+
+        ObjEntity b = new ObjEntity("B");
+        b.setDbEntityName("B");
+        map.addObjEntity(b);
+
+        entity = new ObjEntity("A");
+        entity.setDbEntityName("A");
+        map.addObjEntity(entity);
+
+        entity.addAttribute(new ObjAttribute("name", String.class.getName(), entity));
+        entity.addAttribute(new ObjAttribute("code", String.class.getName(), entity));
+
+        ObjRelationship one = new ObjRelationship("b");
+        one.setSourceEntity(entity);
+        one.setTargetEntityName(b);
+        one.addDbRelationship(toB);
+        entity.addRelationship(one);
+
+        ObjRelationship many = new ObjRelationship("bs");
+        many.setSourceEntity(entity);
+        many.setTargetEntityName(b);
+        many.addDbRelationship(toBs);
+        entity.addRelationship(many);
+    }
+
+    @Test
+    public void notAnnotated() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, NotAnnotated.class);
+
+        assertFalse(e.isIncluded());
+        assertFalse(e.isIncluded("name"));
+        assertFalse(e.isIncluded("b"));
+    }
+
+    @Test
+    public void includeAll() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, IncludeAll.class);
+
+        assertTrue(e.isIncluded());
+        assertTrue(e.isIncluded("name"));
+        assertTrue(e.isIncluded("code"));
+        assertTrue(e.isIncluded("b"));
+        assertTrue(e.isIncluded("bs"));
+        assertFalse(e.isConfidential("name"));
+    }
+
+    @Test
+    public void ignoredProperties() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, IgnoredProperties.class);
+
+        assertTrue(e.isIncluded());
+        assertFalse(e.isIncluded("name"));
+        assertTrue(e.isIncluded("code"));
+        assertFalse(e.isIncluded("bs"));
+        assertTrue(e.isIncluded("b"));
+    }
+
+    @Test
+    public void ignoreAttributes() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, IgnoreAttributes.class);
+
+        assertTrue(e.isIncluded());
+        assertFalse(e.isIncluded("name"));
+        assertFalse(e.isIncluded("code"));
+        assertTrue(e.isIncluded("b"));
+        assertTrue(e.isIncluded("bs"));
+    }
+
+    @Test
+    public void ignoreToOneRelationships() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, IgnoreToOne.class);
+
+        assertTrue(e.isIncluded());
+        assertTrue(e.isIncluded("name"));
+        assertTrue(e.isIncluded("code"));
+        assertFalse(e.isIncluded("b"));
+        assertTrue(e.isIncluded("bs"));
+    }
+
+    @Test
+    public void ignoreToManyRelationships() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, IgnoreToMany.class);
+
+        assertTrue(e.isIncluded());
+        assertTrue(e.isIncluded("name"));
+        assertTrue(e.isIncluded("code"));
+        assertTrue(e.isIncluded("b"));
+        assertFalse(e.isIncluded("bs"));
+    }
+
+    @Test
+    public void confidential() {
+        CommitLogEntity e = IndexedCommitLogEntityFactory.createEntity(entity, Confidential.class);
+
+        assertTrue(e.isIncluded("name"));
+        assertTrue(e.isConfidential("name"));
+        assertFalse(e.isConfidential("code"));
+    }
+
+    static class NotAnnotated {
+    }
+
+    @CommitLog
+    static class IncludeAll {
+    }
+
+    @CommitLog(ignoredProperties = {"name", "bs"})
+    static class IgnoredProperties {
+    }
+
+    @CommitLog(ignoreAttributes = true)
+    static class IgnoreAttributes {
+    }
+
+    @CommitLog(ignoreToOneRelationships = true)
+    static class IgnoreToOne {
+    }
+
+    @CommitLog(ignoreToManyRelationships = true)
+    static class IgnoreToMany {
+    }
+
+    @CommitLog(confidential = "name")
+    static class Confidential {
+    }
+}
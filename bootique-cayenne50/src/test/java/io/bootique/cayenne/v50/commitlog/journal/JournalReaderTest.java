@@ -0,0 +1,88 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.commitlog.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class JournalReaderTest {
+
+    // a record with an empty change set takes 20 bytes with the header, so 3 records fit in a segment
+    static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void tail_SegmentRollover() throws IOException {
+
+        try (JournalReader reader = new JournalReader(dir)) {
+
+            // the writer creates a segment file before extending it, so the reader may see (and map) an empty file
+            Files.createFile(JournalSegments.segmentPath(dir, 0));
+            assertNull(reader.next());
+
+            try (CommitLogJournal journal = new CommitLogJournal(dir, SEGMENT_SIZE, JournalFsyncPolicy.NEVER, 0)) {
+
+                for (int i = 0; i < 3; i++) {
+                    journal.append(emptyChangeSet(i));
+                }
+
+                assertTimestamp(0, reader.next());
+                assertTimestamp(1, reader.next());
+                assertTimestamp(2, reader.next());
+                assertNull(reader.next());
+
+                // same for the segment created on rollover
+                Files.createFile(JournalSegments.segmentPath(dir, 1));
+                assertNull(reader.next());
+
+                for (int i = 3; i < 7; i++) {
+                    journal.append(emptyChangeSet(i));
+                }
+
+                for (int i = 3; i < 7; i++) {
+                    assertTimestamp(i, reader.next());
+                }
+
+                assertNull(reader.next());
+                assertEquals(2, reader.getPosition().getSegment());
+            }
+        }
+    }
+
+    private static void assertTimestamp(long expected, JournalRecord record) {
+        assertNotNull(record);
+        assertEquals(expected, record.getTimestamp());
+    }
+
+    private static byte[] emptyChangeSet(long timestamp) {
+        return ByteBuffer.allocate(12).putLong(timestamp).putInt(0).array();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardAggregateTest {
+
+    @Test
+    public void sum_PreservesType() {
+        assertEquals(5, ShardAggregate.SUM.combine(2, 3));
+        assertEquals(5L, ShardAggregate.SUM.combine(2L, 3L));
+        assertEquals(2.5, ShardAggregate.SUM.combine(1.0, 1.5));
+        assertEquals(new BigDecimal("2.5"), ShardAggregate.SUM.combine(new BigDecimal("1.0"), new BigDecimal("1.5")));
+    }
+
+    @Test
+    public void sum_Overflow() {
+        assertThrows(CayenneRuntimeException.class, () -> ShardAggregate.SUM.combine(Integer.MAX_VALUE, 1));
+        assertThrows(CayenneRuntimeException.class, () -> ShardAggregate.COUNT.combine(Long.MAX_VALUE, 1L));
+    }
+
+    @Test
+    public void sum_MixedTypes() {
+        assertThrows(CayenneRuntimeException.class, () -> ShardAggregate.SUM.combine(1, 1L));
+    }
+
+    @Test
+    public void minMax() {
+        assertEquals(2, ShardAggregate.MIN.combine(2, 3));
+        assertEquals(3, ShardAggregate.MAX.combine(2, 3));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v50.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardsTest {
+
+    @Test
+    public void shardFor_AssignedKeys() {
+        Shards shards = new Shards(List.of("s1", "s2", "s3"), Map.of("a", "s3", "b", "s3", "42", "s1"));
+
+        assertEquals("s3", shards.shardFor("a"));
+        assertEquals("s3", shards.shardFor("b"));
+
+        // keys are compared as Strings
+        assertEquals("s1", shards.shardFor(42));
+    }
+
+    @Test
+    public void shardFor_HashedKeys() {
+        Shards shards = new Shards(List.of("s1", "s2", "s3"), Map.of("a", "s3"));
+
+        for (String key : List.of("x", "y", "z", "tenant-1", "tenant-2")) {
+            String expected = List.of("s1", "s2", "s3").get(Math.floorMod(key.hashCode(), 3));
+            assertEquals(expected, shards.shardFor(key), key);
+        }
+    }
+
+    @Test
+    public void unknownAssignedShard() {
+        assertThrows(IllegalArgumentException.class, () -> new Shards(List.of("s1"), Map.of("a", "s2")));
+    }
+
+    @Test
+    public void noShards() {
+        assertThrows(IllegalArgumentException.class, () -> new Shards(List.of(), Map.of()));
+    }
+}